@@ -0,0 +1,32 @@
+package com.example.analyzer.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Entry point of the {@code jmh} Maven profile. Accepts the usual JMH command line arguments and always adds the
+ * GC profiler, so every result comes with {@code gc.alloc.rate.norm} - bytes allocated per operation.
+ * Results are written to {@code target/jmh-result.json} unless another result file is given.
+ */
+public final class BenchmarkRunner {
+
+    private BenchmarkRunner() {
+    }
+
+    public static void main(String[] args) throws CommandLineOptionException, RunnerException {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        ChainedOptionsBuilder options = new OptionsBuilder()
+                .parent(commandLine)
+                .addProfiler(GCProfiler.class);
+        if (!commandLine.getResult().hasValue()) {
+            options.result("target/jmh-result.json").resultFormat(ResultFormatType.JSON);
+        }
+        new Runner(options.build()).run();
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.analyzer.benchmark;
+
+import java.util.SplittableRandom;
+
+/**
+ * Deterministic synthetic file contents, so that results of different runs and branches are comparable.
+ */
+public final class BenchmarkTexts {
+
+    private static final long SEED = 0x5EED_F11EL;
+
+    private BenchmarkTexts() {
+    }
+
+    /**
+     * Generates a text of exactly {@code length} characters.
+     */
+    static String generate(int length, Alphabet alphabet, Whitespace whitespace) {
+        SplittableRandom random = new SplittableRandom(SEED);
+        StringBuilder text = new StringBuilder(length);
+        while (text.length() < length) {
+            int wordLength = whitespace.minWordLength
+                    + random.nextInt(whitespace.maxWordLength - whitespace.minWordLength + 1);
+            for (int i = 0; i < wordLength && text.length() < length; i++) {
+                text.append(alphabet.next(random));
+            }
+            String separator = whitespace.separator(random);
+            for (int i = 0; i < separator.length() && text.length() < length; i++) {
+                text.append(separator.charAt(i));
+            }
+        }
+        return text.toString();
+    }
+
+    /**
+     * Character sets of the words, covering one, two and three byte UTF-8 sequences.
+     */
+    public enum Alphabet {
+        ASCII {
+            @Override
+            char next(SplittableRandom random) {
+                return (char) ('a' + random.nextInt(26));
+            }
+        },
+        CYRILLIC {
+            @Override
+            char next(SplittableRandom random) {
+                return (char) ('а' + random.nextInt(32));
+            }
+        },
+        CJK {
+            @Override
+            char next(SplittableRandom random) {
+                return (char) ('一' + random.nextInt(2000));
+            }
+        },
+        MIXED {
+            @Override
+            char next(SplittableRandom random) {
+                Alphabet[] alphabets = {ASCII, ASCII, CYRILLIC, CJK};
+                return alphabets[random.nextInt(alphabets.length)].next(random);
+            }
+        };
+
+        abstract char next(SplittableRandom random);
+    }
+
+    /**
+     * Shapes of the whitespace between words, which drive the word and paragraph state machines differently.
+     */
+    public enum Whitespace {
+        /** Ordinary prose: words of 2-10 characters, sentences and paragraphs separated by blank lines. */
+        PROSE(2, 10) {
+            @Override
+            String separator(SplittableRandom random) {
+                int roll = random.nextInt(100);
+                return roll < 2 ? "\n\n" : roll < 8 ? "\n" : " ";
+            }
+        },
+        /** Very short words with runs of mixed whitespace, the worst case for per-character branching. */
+        DENSE(1, 3) {
+            @Override
+            String separator(SplittableRandom random) {
+                String[] separators = {" ", "  ", "\t", " \t ", "  "};
+                return separators[random.nextInt(separators.length)];
+            }
+        },
+        /** One word per line with all line break styles, many of them forming paragraph separators. */
+        LINE_BREAKS(3, 12) {
+            @Override
+            String separator(SplittableRandom random) {
+                String[] separators = {"\n", "\r\n", "\r", "\n\n", "\r\n\r\n", "\n\n\n"};
+                return separators[random.nextInt(separators.length)];
+            }
+        };
+
+        private final int minWordLength;
+        private final int maxWordLength;
+
+        Whitespace(int minWordLength, int maxWordLength) {
+            this.minWordLength = minWordLength;
+            this.maxWordLength = maxWordLength;
+        }
+
+        abstract String separator(SplittableRandom random);
+    }
+}
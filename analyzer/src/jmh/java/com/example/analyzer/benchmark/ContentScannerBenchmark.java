@@ -0,0 +1,77 @@
+package com.example.analyzer.benchmark;
+
+import com.example.analyzer.benchmark.BenchmarkTexts.Alphabet;
+import com.example.analyzer.benchmark.BenchmarkTexts.Whitespace;
+import com.example.analyzer.service.ContentScanner;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The whole content pass of one file - digest, decoding, statistics and MinHash sketch - fed in chunks of about the
+ * size read from the storage service, and its individual parts for comparison.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ContentScannerBenchmark {
+
+    private static final String DIGEST_ALGORITHM = "SHA-256";
+    private static final int SHINGLE_SIZE = 5;
+
+    @Param({"1024", "65536", "1048576"})
+    private int size;
+
+    @Param({"ASCII", "CYRILLIC", "CJK", "MIXED"})
+    private Alphabet alphabet;
+
+    @Param({"PROSE", "DENSE", "LINE_BREAKS"})
+    private Whitespace whitespace;
+
+    // Just below the 64 KiB read size; being odd, it puts chunk boundaries inside multi-byte sequences
+    @Param({"65521"})
+    private int chunkSize;
+
+    private byte[] content;
+
+    @Setup
+    public void setUp() {
+        content = BenchmarkTexts.generate(size, alphabet, whitespace).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public ContentScanner scan() throws NoSuchAlgorithmException {
+        ContentScanner scanner = new ContentScanner(DIGEST_ALGORITHM, SHINGLE_SIZE);
+        for (int offset = 0; offset < content.length; offset += chunkSize) {
+            scanner.update(ByteBuffer.wrap(content, offset, Math.min(chunkSize, content.length - offset)));
+        }
+        return scanner.complete();
+    }
+
+    @Benchmark
+    public byte[] digestOnly() throws NoSuchAlgorithmException {
+        return MessageDigest.getInstance(DIGEST_ALGORITHM).digest(content);
+    }
+
+    @Benchmark
+    public String decodeToStringBaseline() {
+        return new String(content, StandardCharsets.UTF_8);
+    }
+}
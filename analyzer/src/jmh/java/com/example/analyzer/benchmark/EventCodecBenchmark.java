@@ -0,0 +1,102 @@
+package com.example.analyzer.benchmark;
+
+import com.example.analyzer.dto.event.FileStatsCalculatedEvent;
+import com.example.analyzer.dto.event.FileUploadedEvent;
+import com.example.analyzer.dto.event.PlagiarismCheckResultEvent;
+import com.example.analyzer.serialization.BinaryEventCodec;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialization of the Kafka events exchanged with the storage service: the binary codec against JSON.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EventCodecBenchmark {
+
+    @Param({"FILE_UPLOADED", "FILE_STATS_CALCULATED", "PLAGIARISM_CHECK_RESULT"})
+    private EventType eventType;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private Object event;
+    private byte[] binary;
+    private byte[] json;
+
+    @Setup
+    public void setUp() throws JsonProcessingException {
+        event = eventType.create();
+        binary = BinaryEventCodec.encode(event);
+        json = objectMapper.writeValueAsBytes(event);
+    }
+
+    @Benchmark
+    public byte[] encodeBinary() {
+        return BinaryEventCodec.encode(event);
+    }
+
+    @Benchmark
+    public byte[] encodeJson() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(event);
+    }
+
+    @Benchmark
+    public Object decodeBinary() {
+        return BinaryEventCodec.decode(binary, eventType.type);
+    }
+
+    @Benchmark
+    public Object decodeJson() throws IOException {
+        return objectMapper.readValue(json, eventType.type);
+    }
+
+    public enum EventType {
+        FILE_UPLOADED(FileUploadedEvent.class) {
+            @Override
+            Object create() {
+                return new FileUploadedEvent(UUID.randomUUID().toString(), "Курсовая работа (финал).txt",
+                        "text/plain", 1_048_576, "files/2026/10/" + UUID.randomUUID(), "user-12345",
+                        "9f86d081884c7d659a2feaa0c55ad015a3bf4f1b2b0b822cd15d6c15b0f00a08");
+            }
+        },
+        FILE_STATS_CALCULATED(FileStatsCalculatedEvent.class) {
+            @Override
+            Object create() {
+                return new FileStatsCalculatedEvent(UUID.randomUUID().toString(), 412, 157_320, 1_048_576);
+            }
+        },
+        PLAGIARISM_CHECK_RESULT(PlagiarismCheckResultEvent.class) {
+            @Override
+            Object create() {
+                return new PlagiarismCheckResultEvent(UUID.randomUUID().toString(), true,
+                        UUID.randomUUID().toString(), 87.5);
+            }
+        };
+
+        private final Class<?> type;
+
+        EventType(Class<?> type) {
+            this.type = type;
+        }
+
+        abstract Object create();
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.analyzer.benchmark;
+
+import com.example.analyzer.util.HexCodec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HexFormat;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hex encoding of SHA-256 digests, done for every analyzed file and every duplicate lookup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HexCodecBenchmark {
+
+    private static final HexFormat HEX_FORMAT = HexFormat.of();
+
+    private final byte[] decoded = new byte[32];
+    private byte[] digest;
+    private String hex;
+
+    @Setup
+    public void setUp() {
+        digest = new byte[32];
+        new SplittableRandom(42).nextBytes(digest);
+        hex = HexCodec.encode(digest);
+    }
+
+    @Benchmark
+    public String encode() {
+        return HexCodec.encode(digest);
+    }
+
+    @Benchmark
+    public String encodeHexFormatBaseline() {
+        return HEX_FORMAT.formatHex(digest);
+    }
+
+    @Benchmark
+    public byte[] decode() {
+        return HexCodec.decode(hex);
+    }
+
+    @Benchmark
+    public byte[] decodeInto() {
+        HexCodec.decode(hex, decoded);
+        return decoded;
+    }
+
+    @Benchmark
+    public byte[] decodeHexFormatBaseline() {
+        return HEX_FORMAT.parseHex(hex);
+    }
+}
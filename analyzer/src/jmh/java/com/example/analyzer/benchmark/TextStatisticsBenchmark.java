@@ -0,0 +1,70 @@
+package com.example.analyzer.benchmark;
+
+import com.example.analyzer.benchmark.BenchmarkTexts.Alphabet;
+import com.example.analyzer.benchmark.BenchmarkTexts.Whitespace;
+import com.example.analyzer.service.TextStatisticsCounter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.CharBuffer;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Character, word and paragraph counting of decoded text: the streaming counter against the regex rules it replaced.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TextStatisticsBenchmark {
+
+    private static final Pattern WORD_SEPARATOR = Pattern.compile("\\s+");
+    private static final Pattern PARAGRAPH_SEPARATOR = Pattern.compile("(\r\n|\r|\n){2,}|(^\n|\n$)|(^\r\n|\r\n$)");
+
+    @Param({"1024", "65536", "1048576"})
+    private int size;
+
+    @Param({"ASCII", "CYRILLIC", "CJK", "MIXED"})
+    private Alphabet alphabet;
+
+    @Param({"PROSE", "DENSE", "LINE_BREAKS"})
+    private Whitespace whitespace;
+
+    private String text;
+
+    @Setup
+    public void setUp() {
+        text = BenchmarkTexts.generate(size, alphabet, whitespace);
+    }
+
+    @Benchmark
+    public void counter(Blackhole blackhole) {
+        TextStatisticsCounter counter = new TextStatisticsCounter();
+        counter.accept(CharBuffer.wrap(text));
+        counter.finish();
+        blackhole.consume(counter.getCharCount());
+        blackhole.consume(counter.getWordCount());
+        blackhole.consume(counter.getParagraphCount());
+    }
+
+    @Benchmark
+    public void regexBaseline(Blackhole blackhole) {
+        boolean blank = text.isBlank();
+        blackhole.consume(text.length());
+        blackhole.consume(blank ? 0 : WORD_SEPARATOR.split(text.trim()).length);
+        blackhole.consume(blank ? 0 : PARAGRAPH_SEPARATOR.split(text).length);
+    }
+}
@@ -1,10 +1,14 @@
 package com.example.analyzer.client;
 
-import org.springframework.core.io.Resource;
+import org.springframework.core.io.buffer.DataBuffer;
+import reactor.core.publisher.Flux;
 
 public interface FileStorageClient {
 
-    Resource downloadFileAsResource(String fileId);
+    /**
+     * Streams the file content as it arrives from the storage service.
+     * Subscribers are responsible for releasing every emitted buffer.
+     */
+    Flux<DataBuffer> downloadFileContent(String fileId);
 
 }
-
@@ -0,0 +1,81 @@
+package com.example.analyzer.client;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * Reads files directly from a volume shared with the storage service, memory-mapping them instead of
+ * downloading them over HTTP. Only paths below the configured storage root are ever opened, since the path
+ * itself comes from a Kafka event.
+ */
+@Component
+@Slf4j
+public class LocalFileContentReader {
+
+    private static final long MAP_WINDOW_SIZE = 64L * 1024 * 1024;
+    private static final int CHUNK_SIZE = 64 * 1024;
+
+    private final Path storageRoot;
+
+    public LocalFileContentReader(@Value("${app.analysis.local-storage-root:}") String storageRoot) {
+        this.storageRoot = StringUtils.hasText(storageRoot)
+                ? Paths.get(storageRoot).toAbsolutePath().normalize()
+                : null;
+    }
+
+    /**
+     * Resolves the storage path reported by the storage service if it points to a readable file below the
+     * configured storage root.
+     */
+    public Optional<Path> resolve(String storagePath) {
+        if (storageRoot == null || !StringUtils.hasText(storagePath)) {
+            return Optional.empty();
+        }
+        try {
+            Path path = Paths.get(storagePath).toAbsolutePath().normalize();
+            if (!path.startsWith(storageRoot)) {
+                log.warn("Storage path {} is outside of the local storage root {}", storagePath, storageRoot);
+                return Optional.empty();
+            }
+            if (Files.isRegularFile(path) && Files.isReadable(path)) {
+                return Optional.of(path);
+            }
+            log.debug("Storage path {} is not readable locally", storagePath);
+        } catch (InvalidPathException e) {
+            log.warn("Invalid storage path {}: {}", storagePath, e.getMessage());
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Memory-maps the file window by window and passes it to the consumer in fixed-size slices.
+     * The slices are views of the mapping and are only valid during the callback.
+     */
+    public void read(Path path, Consumer<ByteBuffer> consumer) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            for (long position = 0; position < size; position += MAP_WINDOW_SIZE) {
+                long windowSize = Math.min(MAP_WINDOW_SIZE, size - position);
+                MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position, windowSize);
+                for (int offset = 0; offset < windowSize; offset += CHUNK_SIZE) {
+                    int length = (int) Math.min(CHUNK_SIZE, windowSize - offset);
+                    consumer.accept(window.slice(offset, length));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.analyzer.config;
+
+import com.example.analyzer.consumer.KeyOrderedExecutor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.support.ContextPropagatingTaskDecorator;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+public class AnalysisExecutorConfig {
+
+    // 0 - one thread per available processor
+    @Value("${app.analysis.worker-threads:0}")
+    private int workerThreads;
+
+    @Value("${app.analysis.worker-pool.lane-capacity:16}")
+    private int laneCapacity;
+
+    @Bean
+    public ThreadPoolTaskExecutor analysisExecutor() {
+        int threads = workerThreads();
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setThreadNamePrefix("analysis-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        // Scans of a batch continue the trace of the submitting thread
+        executor.setTaskDecorator(new ContextPropagatingTaskDecorator());
+        return executor;
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    @ConditionalOnProperty(name = "app.analysis.consumer-mode", havingValue = "WORKER_POOL")
+    public KeyOrderedExecutor analysisWorkerPool() {
+        return new KeyOrderedExecutor("analysis-worker-", workerThreads(), laneCapacity);
+    }
+
+    private int workerThreads() {
+        return workerThreads > 0 ? workerThreads : Runtime.getRuntime().availableProcessors();
+    }
+}
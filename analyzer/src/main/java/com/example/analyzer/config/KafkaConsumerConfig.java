@@ -1,6 +1,14 @@
 package com.example.analyzer.config;
 
+import com.example.analyzer.consumer.ConsumerMode;
+import com.example.analyzer.dto.event.FileStatsCalculatedEvent;
 import com.example.analyzer.dto.event.FileUploadedEvent;
+import com.example.analyzer.dto.event.PlagiarismCheckResultEvent;
+import com.example.analyzer.serialization.EventDeserializer;
+import com.example.analyzer.serialization.TopicEventDeserializer;
+import com.example.analyzer.service.DeadLetterService;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.common.serialization.StringDeserializer;
 import org.springframework.beans.factory.annotation.Value;
@@ -10,40 +18,82 @@ import org.springframework.kafka.annotation.EnableKafka;
 import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.core.ConsumerFactory;
 import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.MicrometerConsumerListener;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.kafka.support.ExponentialBackOffWithMaxRetries;
 import org.springframework.kafka.support.serializer.ErrorHandlingDeserializer;
 import org.springframework.kafka.support.serializer.JsonDeserializer;
 
+import java.time.Duration;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.UUID;
 
 @EnableKafka
 @Configuration
+@RequiredArgsConstructor
 public class KafkaConsumerConfig {
 
+    // Метрики клиента Kafka, в том числе отставание консьюмера (records-lag) по партициям
+    private final MeterRegistry meterRegistry;
+    private final DeadLetterService deadLetterService;
+
     @Value("${spring.kafka.bootstrap-servers}")
     private String bootstrapServers;
 
     @Value("${spring.kafka.consumer.group-id}")
     private String groupId;
 
+    @Value("${app.analysis.consumer-mode:RECORD}")
+    private ConsumerMode consumerMode;
+
+    // 0 - one listener thread per available processor; threads above the partition count stay idle
+    @Value("${app.analysis.listener-concurrency:0}")
+    private int listenerConcurrency;
+
+    @Value("${app.analysis.batch.max-poll-records:100}")
+    private int batchMaxPollRecords;
+
+    // Total number of attempts, including the first one
+    @Value("${app.analysis.retry.max-attempts:4}")
+    private int retryMaxAttempts;
+
+    @Value("${app.analysis.retry.initial-backoff:10s}")
+    private Duration retryInitialBackoff;
+
+    @Value("${app.analysis.retry.multiplier:3}")
+    private double retryMultiplier;
+
+    @Value("${app.analysis.retry.max-backoff:5m}")
+    private Duration retryMaxBackoff;
+
+    @Value("${kafka.topic.stats.calculated}")
+    private String statsCalculatedTopic;
+
+    @Value("${kafka.topic.plagiarism.checked}")
+    private String plagiarismCheckedTopic;
+
     @Bean
     public ConsumerFactory<String, FileUploadedEvent> fileUploadedConsumerFactory() {
         Map<String, Object> props = new HashMap<>();
         props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
         props.put(ConsumerConfig.GROUP_ID_CONFIG, groupId); // Важно для группы консьюмеров
+        if (consumerMode == ConsumerMode.BATCH) {
+            props.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, batchMaxPollRecords);
+        }
 
-        JsonDeserializer<FileUploadedEvent> jsonDeserializer = new JsonDeserializer<>(FileUploadedEvent.class);
-        jsonDeserializer.addTrustedPackages("com.example.analyzer.dto.events", "com.example.filestorage.dto.events");
-        jsonDeserializer.setUseTypeHeaders(false);
-
+        // Принимает и JSON, и бинарный формат, поэтому продюсеры переключаются независимо
         ErrorHandlingDeserializer<FileUploadedEvent> errorHandlingDeserializer =
-                new ErrorHandlingDeserializer<>(jsonDeserializer);
+                new ErrorHandlingDeserializer<>(eventDeserializer(FileUploadedEvent.class));
 
-        return new DefaultKafkaConsumerFactory<>(
+        DefaultKafkaConsumerFactory<String, FileUploadedEvent> consumerFactory = new DefaultKafkaConsumerFactory<>(
                 props,
                 new StringDeserializer(),
                 errorHandlingDeserializer
         );
+        consumerFactory.addListener(new MicrometerConsumerListener<>(meterRegistry));
+        return consumerFactory;
     }
 
     @Bean
@@ -51,6 +101,75 @@ public class KafkaConsumerConfig {
         ConcurrentKafkaListenerContainerFactory<String, FileUploadedEvent> factory =
                 new ConcurrentKafkaListenerContainerFactory<>();
         factory.setConsumerFactory(fileUploadedConsumerFactory());
+        factory.setConcurrency(listenerConcurrency > 0 ? listenerConcurrency : Runtime.getRuntime().availableProcessors());
+        // Один poll целиком передаётся в FileUploadBatchConsumer
+        factory.setBatchListener(consumerMode == ConsumerMode.BATCH);
+        // Продолжает трассу продюсера из заголовков; для batch-листенеров Spring Kafka наблюдения не поддерживает
+        factory.getContainerProperties().setObservationEnabled(consumerMode != ConsumerMode.BATCH);
+        if (consumerMode == ConsumerMode.WORKER_POOL) {
+            // Offset'ы подтверждаются из пула воркеров и коммитятся по порядку, когда закрыты все пропуски
+            factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+            factory.getContainerProperties().setAsyncAcks(true);
+        }
+        if (consumerMode == ConsumerMode.BATCH) {
+            // Запись, указанная в BatchListenerFailedException, повторяется с задержкой, затем уходит в DLT;
+            // недесериализуемые записи уходят в DLT сразу. В режиме RECORD обработчик задают retry-топики
+            factory.setCommonErrorHandler(new DefaultErrorHandler(deadLetterService.getRecoverer(), fileUploadedRetryBackOff()));
+        }
+        return factory;
+    }
+
+    /**
+     * Back-off between the attempts to analyze a file, shared by the retry topics, the batch error handler and
+     * the worker pool.
+     */
+    @Bean
+    public ExponentialBackOffWithMaxRetries fileUploadedRetryBackOff() {
+        ExponentialBackOffWithMaxRetries backOff = new ExponentialBackOffWithMaxRetries(retryMaxAttempts - 1);
+        backOff.setInitialInterval(retryInitialBackoff.toMillis());
+        backOff.setMultiplier(retryMultiplier);
+        backOff.setMaxInterval(retryMaxBackoff.toMillis());
+        return backOff;
+    }
+
+    /**
+     * Consumer of the result topics for pushing results to subscribed clients. Every instance has its own group,
+     * so each one sees all results regardless of which instance holds the client connection, and starts from
+     * the latest offset since only live results are pushed.
+     */
+    @Bean
+    public ConsumerFactory<String, Object> resultNotificationConsumerFactory() {
+        Map<String, Object> props = new HashMap<>();
+        props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        props.put(ConsumerConfig.GROUP_ID_CONFIG, groupId + "-notifications-" + UUID.randomUUID());
+        props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "latest");
+
+        TopicEventDeserializer topicEventDeserializer = new TopicEventDeserializer(Map.of(
+                statsCalculatedTopic, eventDeserializer(FileStatsCalculatedEvent.class),
+                plagiarismCheckedTopic, eventDeserializer(PlagiarismCheckResultEvent.class)
+        ));
+
+        DefaultKafkaConsumerFactory<String, Object> consumerFactory = new DefaultKafkaConsumerFactory<>(
+                props,
+                new StringDeserializer(),
+                new ErrorHandlingDeserializer<>(topicEventDeserializer)
+        );
+        consumerFactory.addListener(new MicrometerConsumerListener<>(meterRegistry));
+        return consumerFactory;
+    }
+
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, Object> resultNotificationKafkaListenerContainerFactory() {
+        ConcurrentKafkaListenerContainerFactory<String, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(resultNotificationConsumerFactory());
+        factory.getContainerProperties().setObservationEnabled(true);
         return factory;
     }
+
+    private static <T> EventDeserializer<T> eventDeserializer(Class<T> type) {
+        JsonDeserializer<T> jsonDeserializer = new JsonDeserializer<>(type);
+        jsonDeserializer.addTrustedPackages("com.example.analyzer.dto.events", "com.example.filestorage.dto.events");
+        jsonDeserializer.setUseTypeHeaders(false);
+        return new EventDeserializer<>(type, jsonDeserializer);
+    }
 }
@@ -1,35 +1,84 @@
 package com.example.analyzer.config;
 
+import com.example.analyzer.serialization.BinaryEventSerializer;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
 import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.Serializer;
 import org.apache.kafka.common.serialization.StringSerializer;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.kafka.core.DefaultKafkaProducerFactory;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.MicrometerProducerListener;
 import org.springframework.kafka.core.ProducerFactory;
+import org.springframework.kafka.support.serializer.DelegatingByTypeSerializer;
 import org.springframework.kafka.support.serializer.JsonSerializer;
 
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 @Configuration
+@RequiredArgsConstructor
 public class KafkaProducerConfig {
 
+    private final MeterRegistry meterRegistry;
+
     @Value("${spring.kafka.bootstrap-servers}")
     private String bootstrapServers;
 
+    // JSON - readable by any consumer; BINARY - compact codec, switch only once all consumers understand it
+    @Value("${kafka.producer.value-format:JSON}")
+    private ValueFormat valueFormat;
+
+    // Time to wait for more records of the same partition before sending a batch
+    @Value("${kafka.producer.linger-ms:10}")
+    private int lingerMs;
+
+    @Value("${kafka.producer.batch-size:65536}")
+    private int batchSize;
+
+    @Value("${kafka.producer.compression-type:lz4}")
+    private String compressionType;
+
+    @Value("${kafka.producer.enable-idempotence:true}")
+    private boolean enableIdempotence;
+
     @Bean
     public ProducerFactory<String, Object> producerFactory() {
         Map<String, Object> configProps = new HashMap<>();
         configProps.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
-        configProps.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
-        configProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JsonSerializer.class);
-        return new DefaultKafkaProducerFactory<>(configProps);
+        configProps.put(ProducerConfig.LINGER_MS_CONFIG, lingerMs);
+        configProps.put(ProducerConfig.BATCH_SIZE_CONFIG, batchSize);
+        configProps.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, compressionType);
+        configProps.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, enableIdempotence);
+        if (enableIdempotence) {
+            configProps.put(ProducerConfig.ACKS_CONFIG, "all");
+            configProps.put(ProducerConfig.MAX_IN_FLIGHT_REQUESTS_PER_CONNECTION, 5);
+        }
+
+        // Raw byte[] values are records forwarded as they were received (dead letters, replays) and are sent unchanged
+        Map<Class<?>, Serializer<?>> valueSerializers = new LinkedHashMap<>();
+        valueSerializers.put(byte[].class, new ByteArraySerializer());
+        valueSerializers.put(Object.class, valueFormat == ValueFormat.BINARY ? new BinaryEventSerializer() : new JsonSerializer<>());
+
+        DefaultKafkaProducerFactory<String, Object> producerFactory = new DefaultKafkaProducerFactory<>(
+                configProps,
+                new StringSerializer(),
+                new DelegatingByTypeSerializer(valueSerializers, true)
+        );
+        producerFactory.addListener(new MicrometerProducerListener<>(meterRegistry));
+        return producerFactory;
     }
 
     @Bean
     public KafkaTemplate<String, Object> kafkaTemplate() {
-        return new KafkaTemplate<>(producerFactory());
+        KafkaTemplate<String, Object> kafkaTemplate = new KafkaTemplate<>(producerFactory());
+        // Timings of sends and trace context in the message headers
+        kafkaTemplate.setObservationEnabled(true);
+        return kafkaTemplate;
     }
 }
@@ -0,0 +1,60 @@
+package com.example.analyzer.config;
+
+import com.example.analyzer.service.DeadLetterService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.retrytopic.DltStrategy;
+import org.springframework.kafka.retrytopic.RetryTopicConfiguration;
+import org.springframework.kafka.retrytopic.RetryTopicConfigurationBuilder;
+import org.springframework.kafka.support.ExponentialBackOffWithMaxRetries;
+
+/**
+ * Non-blocking retries of {@code files.uploaded} in {@code RECORD} mode. A record whose processing fails is forwarded
+ * to the next retry topic ({@code files.uploaded-retry-0}, {@code -1}, ...) and processed again once its back-off has
+ * elapsed, so a storage outage delays only the affected files instead of blocking their partitions. After the last
+ * attempt, or right away for errors that cannot succeed on retry such as undeserializable records, the record is
+ * moved to {@code files.uploaded-dlt}, see {@link DeadLetterService}.
+ * <p>
+ * Retry topics are not available to batch listeners, nor to the worker pool whose failures happen after the
+ * listener has returned. Those modes retry with the same back-off in place and then move the record to the same
+ * dead letter topic.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.analysis.consumer-mode", havingValue = "RECORD", matchIfMissing = true)
+public class KafkaRetryConfig {
+
+    @Value("${kafka.topic.files.uploaded}")
+    private String filesUploadedTopic;
+
+    @Value("${kafka.default-topic.partitions:1}")
+    private int partitions;
+
+    @Value("${kafka.default-topic.replicas:1}")
+    private short replicas;
+
+    // Listener threads per retry topic; retried records are few compared to the main topic
+    @Value("${app.analysis.retry.concurrency:2}")
+    private int concurrency;
+
+    @Bean
+    public RetryTopicConfiguration fileUploadedRetryTopicConfiguration(KafkaTemplate<String, Object> kafkaTemplate,
+                                                                       ExponentialBackOffWithMaxRetries fileUploadedRetryBackOff) {
+        return RetryTopicConfigurationBuilder.newInstance()
+                .includeTopic(filesUploadedTopic)
+                .maxAttempts(fileUploadedRetryBackOff.getMaxRetries() + 1)
+                .exponentialBackoff(fileUploadedRetryBackOff.getInitialInterval(), fileUploadedRetryBackOff.getMultiplier(),
+                        fileUploadedRetryBackOff.getMaxInterval())
+                .retryTopicSuffix("-retry")
+                .suffixTopicsWithIndexValues()
+                .dltSuffix(DeadLetterService.DLT_SUFFIX)
+                .autoCreateTopicsWith(partitions, replicas)
+                .concurrency(concurrency)
+                .dltHandlerMethod("fileUploadConsumer", "handleDeadLetter")
+                // A dead letter that cannot even be logged is not sent to the dead letter topic again
+                .dltProcessingFailureStrategy(DltStrategy.FAIL_ON_ERROR)
+                .create(kafkaTemplate);
+    }
+}
@@ -1,7 +1,9 @@
 package com.example.analyzer.config;
 
+import com.example.analyzer.service.DeadLetterService;
 import org.apache.kafka.clients.admin.NewTopic;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.kafka.config.TopicBuilder;
@@ -15,6 +17,9 @@ public class KafkaTopicConfig {
     @Value("${kafka.topic.plagiarism.checked}")
     private String plagiarismCheckedTopicName;
 
+    @Value("${kafka.topic.files.uploaded}")
+    private String filesUploadedTopicName;
+
     @Value("${kafka.default-topic.partitions:1}")
     private int defaultPartitions;
 
@@ -36,4 +41,14 @@ public class KafkaTopicConfig {
                 .replicas(defaultReplicas)
                 .build();
     }
+
+    // В режиме RECORD топик создаётся вместе с retry-топиками, см. KafkaRetryConfig
+    @Bean
+    @ConditionalOnExpression("'${app.analysis.consumer-mode:RECORD}' != 'RECORD'")
+    public NewTopic filesUploadedDeadLetterTopic() {
+        return TopicBuilder.name(filesUploadedTopicName + DeadLetterService.DLT_SUFFIX)
+                .partitions(defaultPartitions)
+                .replicas(defaultReplicas)
+                .build();
+    }
 }
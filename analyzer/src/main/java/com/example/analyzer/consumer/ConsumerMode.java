@@ -0,0 +1,20 @@
+package com.example.analyzer.consumer;
+
+/**
+ * Defines how {@code files.uploaded} events are consumed, see {@code app.analysis.consumer-mode}.
+ */
+public enum ConsumerMode {
+    /**
+     * One event at a time on the listener thread ({@link FileUploadConsumer}).
+     */
+    RECORD,
+    /**
+     * A whole poll batch at once with bulk persistence ({@link FileUploadBatchConsumer}).
+     */
+    BATCH,
+    /**
+     * Events are handed off to a key-ordered worker pool and acknowledged once processed
+     * ({@link FileUploadWorkerPoolConsumer}).
+     */
+    WORKER_POOL
+}
@@ -0,0 +1,74 @@
+package com.example.analyzer.consumer;
+
+import com.example.analyzer.dto.event.FileUploadedEvent;
+import com.example.analyzer.service.AnalysisService;
+import com.example.analyzer.service.DeadLetterService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Batch counterpart of {@link FileUploadConsumer}, active when {@code app.analysis.consumer-mode=BATCH}.
+ * <p>
+ * A file that fails is reported with {@link BatchListenerFailedException}: the container error handler commits
+ * the records before it, retries it with back-off and finally moves it to the dead letter topic, and the records
+ * after it are delivered again (already analyzed files are skipped). A failure of the batch as a whole is
+ * retried as a whole.
+ */
+@Component
+@ConditionalOnProperty(name = "app.analysis.consumer-mode", havingValue = "BATCH")
+@RequiredArgsConstructor
+@Slf4j
+public class FileUploadBatchConsumer {
+
+    private final AnalysisService analysisService;
+
+    @KafkaListener(
+            topics = "${kafka.topic.files.uploaded}",
+            groupId = "${spring.kafka.consumer.group-id}",
+            containerFactory = "fileUploadedKafkaListenerContainerFactory"
+    )
+    public void consumeFileUploadedEvents(List<ConsumerRecord<String, FileUploadedEvent>> records) {
+        log.info("Received batch of {} FileUploadedEvents", records.size());
+
+        List<FileUploadedEvent> events = new ArrayList<>(records.size());
+        Map<String, Integer> indexByFileId = new HashMap<>();
+        int failedIndex = -1;
+        RuntimeException failure = null;
+        for (int i = 0; i < records.size(); i++) {
+            ConsumerRecord<String, FileUploadedEvent> record = records.get(i);
+            if (record.value() == null) {
+                // ErrorHandlingDeserializer оставляет null вместо сообщений, которые не удалось десериализовать;
+                // обрабатываются только записи до неё, остальные придут заново
+                log.warn("Undeserializable record from topic='{}', partition='{}', offset='{}'",
+                        record.topic(), record.partition(), record.offset());
+                failedIndex = i;
+                failure = DeadLetterService.deserializationError(record);
+                break;
+            }
+            events.add(record.value());
+            indexByFileId.putIfAbsent(record.value().getFileId(), i);
+        }
+
+        for (Map.Entry<String, RuntimeException> entry : analysisService.processBatch(events).entrySet()) {
+            int index = indexByFileId.get(entry.getKey());
+            if (failedIndex < 0 || index < failedIndex) {
+                failedIndex = index;
+                failure = entry.getValue();
+            }
+        }
+        if (failure != null) {
+            throw new BatchListenerFailedException("Could not process record " + failedIndex + " of the batch",
+                    failure, failedIndex);
+        }
+    }
+}
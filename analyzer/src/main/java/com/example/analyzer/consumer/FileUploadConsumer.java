@@ -4,13 +4,18 @@ import com.example.analyzer.dto.event.FileUploadedEvent;
 import com.example.analyzer.service.AnalysisService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.kafka.support.KafkaHeaders;
 import org.springframework.messaging.handler.annotation.Header;
 import org.springframework.messaging.handler.annotation.Payload;
 import org.springframework.stereotype.Component;
 
+import java.nio.charset.StandardCharsets;
+
 @Component
+@ConditionalOnProperty(name = "app.analysis.consumer-mode", havingValue = "RECORD", matchIfMissing = true)
 @RequiredArgsConstructor
 @Slf4j
 public class FileUploadConsumer {
@@ -34,19 +39,20 @@ public class FileUploadConsumer {
 
         try {
             analysisService.processFile(event);
-        } catch (Exception e) {
-            // Здесь важна стратегия обработки ошибок.
-            // 1. Логирование - обязательно.
-            // 2. Повторы (retries) - можно настроить на уровне KafkaListenerContainerFactory.
-            // 3. Dead Letter Queue (DLQ) - для сообщений, которые не удалось обработать после нескольких попыток.
-            //    Это предотвращает блокировку консьюмера "ядовитыми" сообщениями.
-            //    DLQ - это отдельный топик, куда отправляются такие сообщения.
-            //    Spring Kafka предоставляет DeadLetterPublishingRecoverer для этого.
-            log.error("Error processing FileUploadedEvent for fileId {}: {}", event.getFileId(), e.getMessage(), e);
-            // Если не настроен специальный ErrorHandler, который перехватывает исключения,
-            // то исключение здесь приведет к тому, что offset не будет закоммичен,
-            // и сообщение будет пытаться обработаться снова (в зависимости от настроек retries).
-            // Для простоты, сейчас мы просто логируем. Для продакшена нужна более robust обработка.
+        } catch (RuntimeException e) {
+            // Контейнер переложит запись в следующий retry-топик, а после последней попытки - в DLT (см. KafkaRetryConfig)
+            log.warn("Error processing FileUploadedEvent for fileId {} from topic {}: {}", event.getFileId(), topic, e.getMessage());
+            throw e;
         }
     }
-}
+
+    /**
+     * Receives records that failed every attempt; they stay in the dead letter topic until replayed.
+     */
+    public void handleDeadLetter(ConsumerRecord<String, Object> record) {
+        org.apache.kafka.common.header.Header error = record.headers().lastHeader(KafkaHeaders.DLT_EXCEPTION_MESSAGE);
+        log.error("FileUploadedEvent with key {} moved to {} at offset {} after failing all attempts: {}",
+                record.key(), record.topic(), record.offset(),
+                error != null ? new String(error.value(), StandardCharsets.UTF_8) : "unknown error");
+    }
+}
\ No newline at end of file
@@ -0,0 +1,103 @@
+package com.example.analyzer.consumer;
+
+import com.example.analyzer.dto.event.FileUploadedEvent;
+import com.example.analyzer.service.AnalysisService;
+import com.example.analyzer.service.DeadLetterService;
+import io.micrometer.context.ContextSnapshotFactory;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.kafka.support.ExponentialBackOffWithMaxRetries;
+import org.springframework.stereotype.Component;
+import org.springframework.util.backoff.BackOffExecution;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hands events off to the {@link KeyOrderedExecutor} so the listener thread can keep polling while analysis runs.
+ * Offsets are acknowledged only after processing finished; the container commits them in order once all
+ * earlier offsets of the partition have been acknowledged as well (async acks).
+ * <p>
+ * Events that fail are submitted again after the retry back-off, without holding up their lane in the meantime,
+ * and moved to the dead letter topic once the attempts are exhausted. Records that cannot be deserialized are
+ * moved there right away.
+ */
+@Component
+@ConditionalOnProperty(name = "app.analysis.consumer-mode", havingValue = "WORKER_POOL")
+@RequiredArgsConstructor
+@Slf4j
+public class FileUploadWorkerPoolConsumer {
+
+    private final AnalysisService analysisService;
+    private final KeyOrderedExecutor analysisWorkerPool;
+    private final DeadLetterService deadLetterService;
+    private final ExponentialBackOffWithMaxRetries fileUploadedRetryBackOff;
+    private final ContextSnapshotFactory contextSnapshotFactory = ContextSnapshotFactory.builder().build();
+    // Only waits out the back-off; resubmission blocks here, not on the listener, when the lane is full
+    private final ScheduledExecutorService retryScheduler = Executors.newSingleThreadScheduledExecutor(task -> {
+        Thread thread = new Thread(task, "analysis-retry");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @KafkaListener(
+            topics = "${kafka.topic.files.uploaded}",
+            groupId = "${spring.kafka.consumer.group-id}",
+            containerFactory = "fileUploadedKafkaListenerContainerFactory"
+    )
+    public void consumeFileUploadedEvent(ConsumerRecord<String, FileUploadedEvent> record,
+                                         Acknowledgment acknowledgment) throws InterruptedException {
+        FileUploadedEvent event = record.value();
+        if (event == null) {
+            // ErrorHandlingDeserializer оставляет null вместо сообщений, которые не удалось десериализовать
+            deadLetterService.publish(record, DeadLetterService.deserializationError(record));
+            acknowledgment.acknowledge();
+            return;
+        }
+
+        log.info("Received FileUploadedEvent: fileId='{}' from topic='{}', partition='{}', offset='{}'",
+                event.getFileId(), record.topic(), record.partition(), record.offset());
+        submit(record, acknowledgment, fileUploadedRetryBackOff.start());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // Records waiting for a retry are not acknowledged and are delivered again after a restart
+        retryScheduler.shutdownNow();
+    }
+
+    private void submit(ConsumerRecord<String, FileUploadedEvent> record, Acknowledgment acknowledgment,
+                        BackOffExecution backOff) throws InterruptedException {
+        FileUploadedEvent event = record.value();
+        // The snapshot carries the listener's trace context over to the worker thread
+        analysisWorkerPool.execute(record.key() != null ? record.key() : event.getFileId(), contextSnapshotFactory.captureAll().wrap(() -> {
+            try {
+                analysisService.processFile(event);
+                acknowledgment.acknowledge();
+            } catch (Exception e) {
+                long delay = backOff.nextBackOff();
+                if (delay == BackOffExecution.STOP) {
+                    log.error("Error processing FileUploadedEvent for fileId {}: {}", event.getFileId(), e.getMessage(), e);
+                    deadLetterService.publish(record, e);
+                    acknowledgment.acknowledge();
+                    return;
+                }
+                log.warn("Error processing FileUploadedEvent for fileId {}, retrying in {} ms: {}",
+                        event.getFileId(), delay, e.getMessage());
+                retryScheduler.schedule(contextSnapshotFactory.captureAll().wrap(() -> {
+                    try {
+                        submit(record, acknowledgment, backOff);
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                    }
+                }), delay, TimeUnit.MILLISECONDS);
+            }
+        }));
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.analyzer.consumer;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs tasks on a fixed set of single-threaded lanes. Tasks with the same key always go to the same lane and
+ * therefore run in submission order, while different keys are processed in parallel.
+ * <p>
+ * Each lane accepts a bounded number of pending tasks; {@link #execute(String, Runnable)} blocks once the lane
+ * is full, which in turn slows down the Kafka listener instead of buffering an unbounded backlog in memory.
+ */
+@Slf4j
+public class KeyOrderedExecutor {
+
+    private final ExecutorService[] lanes;
+    private final Semaphore[] capacity;
+
+    public KeyOrderedExecutor(String threadNamePrefix, int laneCount, int laneCapacity) {
+        this.lanes = new ExecutorService[laneCount];
+        this.capacity = new Semaphore[laneCount];
+        for (int i = 0; i < laneCount; i++) {
+            lanes[i] = Executors.newSingleThreadExecutor(threadFactory(threadNamePrefix + i + "-"));
+            capacity[i] = new Semaphore(laneCapacity);
+        }
+    }
+
+    public void execute(String key, Runnable task) throws InterruptedException {
+        int lane = Math.floorMod(key == null ? 0 : key.hashCode(), lanes.length);
+        capacity[lane].acquire();
+        try {
+            lanes[lane].execute(() -> {
+                try {
+                    task.run();
+                } finally {
+                    capacity[lane].release();
+                }
+            });
+        } catch (RuntimeException e) {
+            capacity[lane].release();
+            throw e;
+        }
+    }
+
+    public int getLaneCount() {
+        return lanes.length;
+    }
+
+    /**
+     * Stops accepting tasks and waits for already submitted ones to finish.
+     */
+    public void shutdown() throws InterruptedException {
+        for (ExecutorService lane : lanes) {
+            lane.shutdown();
+        }
+        for (ExecutorService lane : lanes) {
+            if (!lane.awaitTermination(30, TimeUnit.SECONDS)) {
+                log.warn("Analysis worker lane did not finish in time, interrupting");
+                lane.shutdownNow();
+            }
+        }
+    }
+
+    private static ThreadFactory threadFactory(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+            thread.setDaemon(false);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.analyzer.consumer;
+
+import com.example.analyzer.dto.event.FileStatsCalculatedEvent;
+import com.example.analyzer.dto.event.PlagiarismCheckResultEvent;
+import com.example.analyzer.service.AnalysisResultService;
+import com.example.analyzer.service.ResultNotificationService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.KafkaHandler;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Forwards analysis results, including the ones produced by other instances, to clients subscribed on this instance,
+ * and drops the cached incomplete results of the affected files.
+ */
+@Component
+@ConditionalOnProperty(name = "app.analysis.notifications.enabled", havingValue = "true", matchIfMissing = true)
+@KafkaListener(
+        topics = {"${kafka.topic.stats.calculated}", "${kafka.topic.plagiarism.checked}"},
+        containerFactory = "resultNotificationKafkaListenerContainerFactory"
+)
+@RequiredArgsConstructor
+@Slf4j
+public class ResultNotificationConsumer {
+
+    private final ResultNotificationService resultNotificationService;
+    private final AnalysisResultService analysisResultService;
+
+    @KafkaHandler
+    public void onStatsCalculated(FileStatsCalculatedEvent event) {
+        log.debug("Received FileStatsCalculatedEvent for fileId {}", event.getFileId());
+        analysisResultService.evictPending(event.getFileId());
+        resultNotificationService.onStatsCalculated(event);
+    }
+
+    @KafkaHandler
+    public void onPlagiarismChecked(PlagiarismCheckResultEvent event) {
+        log.debug("Received PlagiarismCheckResultEvent for fileId {}", event.getFileId());
+        analysisResultService.evictPending(event.getFileId());
+        resultNotificationService.onPlagiarismChecked(event);
+    }
+}
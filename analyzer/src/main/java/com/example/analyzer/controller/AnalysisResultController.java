@@ -0,0 +1,55 @@
+package com.example.analyzer.controller;
+
+import com.example.analyzer.dto.FileAnalysisResultDTO;
+import com.example.analyzer.exception.BadRequestException;
+import com.example.analyzer.service.AnalysisResultService;
+import com.example.analyzer.service.ResultNotificationService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/v1/analysis/results")
+@RequiredArgsConstructor
+@Slf4j
+public class AnalysisResultController {
+
+    private final AnalysisResultService analysisResultService;
+    private final ResultNotificationService resultNotificationService;
+
+    @Value("${app.analysis.results.max-batch-size:500}")
+    private int maxBatchSize;
+
+    @GetMapping("/{fileId}")
+    public ResponseEntity<FileAnalysisResultDTO> getResult(@PathVariable String fileId) {
+        log.debug("Received results request for fileId: {}", fileId);
+        return ResponseEntity.ok(analysisResultService.getResult(fileId));
+    }
+
+    /**
+     * Results of many files in one call; the body is a JSON array of file ids. Files without results are omitted.
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<List<FileAnalysisResultDTO>> getResults(@RequestBody List<String> fileIds) {
+        if (fileIds.size() > maxBatchSize) {
+            throw new BadRequestException("At most " + maxBatchSize + " file ids can be requested at once");
+        }
+        log.debug("Received batch results request for {} files", fileIds.size());
+        return ResponseEntity.ok(analysisResultService.getResults(fileIds));
+    }
+
+    /**
+     * Server-Sent Events stream of the results of the given files, completed once all of them are analyzed.
+     */
+    @GetMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamResults(@RequestParam("fileId") List<String> fileIds) {
+        log.debug("Received result stream request for {} files", fileIds.size());
+        return resultNotificationService.subscribe(fileIds);
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.analyzer.controller;
+
+import com.example.analyzer.dto.DeadLetterReplayResultDTO;
+import com.example.analyzer.dto.DeadLetterStatusDTO;
+import com.example.analyzer.exception.BadRequestException;
+import com.example.analyzer.service.DeadLetterService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * Operations on the dead letter topic of {@code files.uploaded}. Not routed by the gateway, only reachable
+ * from inside the deployment.
+ */
+@RestController
+@RequestMapping("/api/v1/analysis/admin/dead-letters")
+@RequiredArgsConstructor
+@Slf4j
+public class DeadLetterAdminController {
+
+    private final DeadLetterService deadLetterService;
+
+    @Value("${app.analysis.dead-letters.replay-max-records:10000}")
+    private int replayMaxRecords;
+
+    @GetMapping
+    public ResponseEntity<DeadLetterStatusDTO> getStatus() {
+        return ResponseEntity.ok(deadLetterService.getStatus());
+    }
+
+    /**
+     * Sends the oldest {@code maxRecords} dead letters back to {@code files.uploaded} to be analyzed again.
+     */
+    @PostMapping("/replay")
+    public ResponseEntity<DeadLetterReplayResultDTO> replay(@RequestParam(defaultValue = "1000") int maxRecords) {
+        if (maxRecords < 1 || maxRecords > replayMaxRecords) {
+            throw new BadRequestException("maxRecords must be between 1 and " + replayMaxRecords);
+        }
+        log.info("Received dead letter replay request for up to {} records", maxRecords);
+        return ResponseEntity.ok(deadLetterService.replay(maxRecords));
+    }
+}
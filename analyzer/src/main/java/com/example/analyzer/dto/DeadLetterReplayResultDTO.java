@@ -0,0 +1,15 @@
+package com.example.analyzer.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DeadLetterReplayResultDTO {
+    private String topic;
+    private int replayed;
+    // Records left in the dead letter topic, including those that arrived during the replay
+    private long pending;
+}
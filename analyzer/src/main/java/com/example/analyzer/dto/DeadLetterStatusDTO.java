@@ -0,0 +1,14 @@
+package com.example.analyzer.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DeadLetterStatusDTO {
+    private String topic;
+    // Records not replayed yet
+    private long pending;
+}
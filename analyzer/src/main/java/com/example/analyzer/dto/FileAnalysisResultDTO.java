@@ -14,4 +14,5 @@ public class FileAnalysisResultDTO {
     private Integer charCount;
     private Boolean isPlagiarized;
     private String matchedFileId;
+    private Double similarityPercentage;
 }
@@ -10,7 +10,7 @@ import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "file_hashes", indexes = {
-        @Index(name = "idx_filehash_hashvalue", columnList = "hashValue")
+        @Index(name = "idx_filehash_algorithm_digest", columnList = "hashAlgorithm, digest")
 })
 @Getter
 @Setter
@@ -27,16 +27,28 @@ public class FileHash {
     @Column(nullable = false, length = 64)
     private String hashAlgorithm;
 
-    @Column(nullable = false, length = 255)
-    private String hashValue;
+    // Always written; NOT NULL is set by FileHashDigestMigration once old rows have been backfilled, since
+    // Hibernate cannot add a NOT NULL column to a populated table
+    @Column(length = 32)
+    private byte[] digest;
+
+    // Outcome of the plagiarism check; null for rows written before it was stored
+    @Column
+    private Boolean plagiarized;
+
+    @Column
+    private String matchedFileId;
+
+    @Column
+    private Double similarityPercentage;
 
     @CreationTimestamp
     @Column(nullable = false, updatable = false)
     private LocalDateTime createdAt;
 
-    public FileHash(String fileId, String hashAlgorithm, String hashValue) {
+    public FileHash(String fileId, String hashAlgorithm, byte[] digest) {
         this.fileId = fileId;
         this.hashAlgorithm = hashAlgorithm;
-        this.hashValue = hashValue;
+        this.digest = digest;
     }
 }
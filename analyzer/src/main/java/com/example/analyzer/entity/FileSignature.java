@@ -0,0 +1,39 @@
+package com.example.analyzer.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * MinHash signature of a file, stored as {@code SIGNATURE_SIZE} big-endian longs.
+ */
+@Entity
+@Table(name = "file_signatures")
+@Getter
+@Setter
+@NoArgsConstructor
+public class FileSignature {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, unique = true)
+    private String fileId;
+
+    @Column(nullable = false)
+    private byte[] signature;
+
+    @CreationTimestamp
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    public FileSignature(String fileId, byte[] signature) {
+        this.fileId = fileId;
+        this.signature = signature;
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.analyzer.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * One locality-sensitive hashing band of a file signature. Files sharing at least one band hash are
+ * candidates for the similarity check.
+ */
+@Entity
+@Table(name = "lsh_bands",
+        uniqueConstraints = @UniqueConstraint(name = "uk_lshband_fileid_bandhash", columnNames = {"fileId", "bandHash"}),
+        indexes = @Index(name = "idx_lshband_bandhash", columnList = "bandHash"))
+@Getter
+@Setter
+@NoArgsConstructor
+public class LshBand {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String fileId;
+
+    @Column(nullable = false)
+    private long bandHash;
+
+    public LshBand(String fileId, long bandHash) {
+        this.fileId = fileId;
+        this.bandHash = bandHash;
+    }
+}
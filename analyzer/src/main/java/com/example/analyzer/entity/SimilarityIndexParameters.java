@@ -0,0 +1,48 @@
+package com.example.analyzer.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Sketching parameters the stored signatures and LSH bands were computed with. Signatures computed with other
+ * parameters cannot be compared with them. The table holds a single row.
+ */
+@Entity
+@Table(name = "similarity_index_parameters")
+@Getter
+@Setter
+@NoArgsConstructor
+public class SimilarityIndexParameters {
+
+    public static final int SINGLETON_ID = 1;
+
+    @Id
+    private Integer id;
+
+    @Column(nullable = false)
+    private int shingleSize;
+
+    @Column(nullable = false)
+    private int signatureSize;
+
+    @Column(nullable = false)
+    private int bandCount;
+
+    public SimilarityIndexParameters(int shingleSize, int signatureSize, int bandCount) {
+        this.id = SINGLETON_ID;
+        this.shingleSize = shingleSize;
+        this.signatureSize = signatureSize;
+        this.bandCount = bandCount;
+    }
+
+    public boolean matches(SimilarityIndexParameters other) {
+        return shingleSize == other.shingleSize && signatureSize == other.signatureSize && bandCount == other.bandCount;
+    }
+
+    @Override
+    public String toString() {
+        return "shingle-size=" + shingleSize + ", signature-size=" + signatureSize + ", band-count=" + bandCount;
+    }
+}
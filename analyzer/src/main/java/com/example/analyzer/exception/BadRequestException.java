@@ -0,0 +1,8 @@
+package com.example.analyzer.exception;
+
+public class BadRequestException extends RuntimeException {
+
+    public BadRequestException(String message) {
+        super(message);
+    }
+}
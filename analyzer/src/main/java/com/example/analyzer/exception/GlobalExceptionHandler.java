@@ -70,6 +70,48 @@ public class GlobalExceptionHandler {
     }
 
 
+    @ExceptionHandler(ResultNotFoundException.class)
+    public ResponseEntity<Object> handleResultNotFoundException(
+            ResultNotFoundException ex, WebRequest request) {
+        ErrorDetails body = new ErrorDetails(
+                LocalDateTime.now(),
+                HttpStatus.NOT_FOUND.value(),
+                "Not Found",
+                ex.getMessage(),
+                request.getDescription(false).replace("uri=", "")
+        );
+        return new ResponseEntity<>(body, HttpStatus.NOT_FOUND);
+    }
+
+    @ExceptionHandler(BadRequestException.class)
+    public ResponseEntity<Object> handleBadRequestException(
+            BadRequestException ex, WebRequest request) {
+        ErrorDetails body = new ErrorDetails(
+                LocalDateTime.now(),
+                HttpStatus.BAD_REQUEST.value(),
+                "Bad Request",
+                ex.getMessage(),
+                request.getDescription(false).replace("uri=", "")
+        );
+        return new ResponseEntity<>(body, HttpStatus.BAD_REQUEST);
+    }
+
+
+    @ExceptionHandler(SubscriptionLimitExceededException.class)
+    public ResponseEntity<Object> handleSubscriptionLimitExceededException(
+            SubscriptionLimitExceededException ex, WebRequest request) {
+        logger.warn("Rejected result subscription: {}", ex.getMessage());
+        ErrorDetails body = new ErrorDetails(
+                LocalDateTime.now(),
+                HttpStatus.SERVICE_UNAVAILABLE.value(),
+                "Service Unavailable",
+                ex.getMessage(),
+                request.getDescription(false).replace("uri=", "")
+        );
+        return new ResponseEntity<>(body, HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
+
     @ExceptionHandler(Exception.class)
     public ResponseEntity<Object> handleGenericException(
             Exception ex, WebRequest request) {
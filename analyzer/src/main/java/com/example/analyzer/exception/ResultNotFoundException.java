@@ -0,0 +1,8 @@
+package com.example.analyzer.exception;
+
+public class ResultNotFoundException extends RuntimeException {
+
+    public ResultNotFoundException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,8 @@
+package com.example.analyzer.exception;
+
+public class SubscriptionLimitExceededException extends RuntimeException {
+
+    public SubscriptionLimitExceededException(String message) {
+        super(message);
+    }
+}
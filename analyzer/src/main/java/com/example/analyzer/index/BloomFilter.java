@@ -0,0 +1,49 @@
+package com.example.analyzer.index;
+
+/**
+ * Fixed-size bloom filter over 64-bit key hashes. Bit positions are derived by double hashing, so callers only
+ * need to supply one well-mixed 64-bit hash per key (such as the leading bytes of a SHA-256 digest).
+ * <p>
+ * Not thread-safe; {@link FileHashIndex} guards all access.
+ */
+class BloomFilter {
+
+    private final long[] bits;
+    private final long bitCount;
+    private final int hashFunctions;
+
+    BloomFilter(long expectedEntries, double falsePositiveRate) {
+        long entries = Math.max(expectedEntries, 1);
+        long optimalBits = (long) Math.ceil(-entries * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        this.bits = new long[(int) Math.max(1, (optimalBits + 63) >>> 6)];
+        this.bitCount = (long) bits.length << 6;
+        this.hashFunctions = Math.max(1, (int) Math.round((double) bitCount / entries * Math.log(2)));
+    }
+
+    void add(long hash) {
+        long h1 = hash;
+        long h2 = mix(hash);
+        for (int i = 0; i < hashFunctions; i++) {
+            long bit = Math.floorMod(h1 + i * h2, bitCount);
+            bits[(int) (bit >>> 6)] |= 1L << bit;
+        }
+    }
+
+    boolean mightContain(long hash) {
+        long h1 = hash;
+        long h2 = mix(hash);
+        for (int i = 0; i < hashFunctions; i++) {
+            long bit = Math.floorMod(h1 + i * h2, bitCount);
+            if ((bits[(int) (bit >>> 6)] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static long mix(long z) {
+        z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+        z = (z ^ (z >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return (z ^ (z >>> 33)) | 1;
+    }
+}
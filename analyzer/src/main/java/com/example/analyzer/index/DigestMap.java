@@ -0,0 +1,115 @@
+package com.example.analyzer.index;
+
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+/**
+ * Open-addressing hash map from fixed-length binary digests to file ids. Keys are stored back to back in a single
+ * {@code byte[]} instead of one object per entry, which keeps a million SHA-256 keys at about 64 MB including
+ * free slots.
+ * <p>
+ * Not thread-safe; {@link FileHashIndex} guards all access.
+ */
+class DigestMap {
+
+    private static final double MAX_LOAD_FACTOR = 0.5;
+
+    private final int keyLength;
+    private final int maxCapacity;
+    private byte[] keys;
+    private String[] values;
+    private int size;
+
+    DigestMap(int keyLength, int expectedEntries) {
+        this.keyLength = keyLength;
+        this.maxCapacity = Integer.highestOneBit(Integer.MAX_VALUE / keyLength);
+        long wanted = Math.max(16, (long) (expectedEntries / MAX_LOAD_FACTOR));
+        allocate((int) Math.min(maxCapacity, Long.highestOneBit(wanted - 1) << 1));
+    }
+
+    /**
+     * Associates the digest with the file id unless the digest is already present; the first file wins,
+     * like the lowest id wins in the database lookup.
+     */
+    void putIfAbsent(byte[] digest, String fileId) {
+        checkKey(digest);
+        if ((size + 1) > values.length * MAX_LOAD_FACTOR) {
+            if (values.length >= maxCapacity) {
+                throw new IllegalStateException("Digest map is full: " + size + " entries");
+            }
+            resize(values.length << 1);
+        }
+        int slot = findSlot(keys, values, digest);
+        if (values[slot] == null) {
+            System.arraycopy(digest, 0, keys, slot * keyLength, keyLength);
+            values[slot] = fileId;
+            size++;
+        }
+    }
+
+    String get(byte[] digest) {
+        checkKey(digest);
+        return values[findSlot(keys, values, digest)];
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Passes the {@link #keyHash(byte[])} of every stored digest to the consumer.
+     */
+    void forEachKeyHash(LongConsumer consumer) {
+        byte[] key = new byte[keyLength];
+        for (int slot = 0; slot < values.length; slot++) {
+            if (values[slot] != null) {
+                System.arraycopy(keys, slot * keyLength, key, 0, keyLength);
+                consumer.accept(keyHash(key));
+            }
+        }
+    }
+
+    static long keyHash(byte[] digest) {
+        long hash = 0;
+        for (int i = 0; i < Math.min(Long.BYTES, digest.length); i++) {
+            hash = (hash << 8) | (digest[i] & 0xff);
+        }
+        return hash;
+    }
+
+    private int findSlot(byte[] keys, String[] values, byte[] digest) {
+        int mask = values.length - 1;
+        // Digests are uniformly distributed, so their leading bytes are a good hash already
+        int slot = (int) keyHash(digest) & mask;
+        while (values[slot] != null && !Arrays.equals(keys, slot * keyLength, (slot + 1) * keyLength, digest, 0, keyLength)) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void resize(int capacity) {
+        byte[] oldKeys = keys;
+        String[] oldValues = values;
+        allocate(capacity);
+        byte[] key = new byte[keyLength];
+        for (int slot = 0; slot < oldValues.length; slot++) {
+            if (oldValues[slot] != null) {
+                System.arraycopy(oldKeys, slot * keyLength, key, 0, keyLength);
+                int newSlot = findSlot(keys, values, key);
+                System.arraycopy(key, 0, keys, newSlot * keyLength, keyLength);
+                values[newSlot] = oldValues[slot];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new byte[capacity * keyLength];
+        values = new String[capacity];
+    }
+
+    private void checkKey(byte[] digest) {
+        if (digest.length != keyLength) {
+            throw new IllegalArgumentException("Expected a " + keyLength + "-byte digest, got " + digest.length);
+        }
+    }
+}
@@ -0,0 +1,248 @@
+package com.example.analyzer.index;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-process copy of {@code file_hashes} that answers the plagiarism hot-path questions without a database
+ * round-trip: a bloom filter tells that a digest or a file id has definitely never been seen, and a compact
+ * digest-to-fileId map resolves the rare hits.
+ * <p>
+ * The index is warm-loaded in the background after startup; until it is {@link #isReady() ready} callers must
+ * fall back to the repository. Rows written by this instance are added after their transaction commits, rows
+ * written by other analyzer instances are picked up by a periodic incremental refresh, so a duplicate uploaded
+ * to another instance within one refresh interval may be missed.
+ * <p>
+ * Row ids are assigned on insert but become visible on commit, so a row can show up after rows with higher ids
+ * have already been loaded. The refresh therefore keeps re-reading rows until they are older than
+ * {@code app.plagiarism.hash-index.refresh-overlap}, which has to exceed the longest transaction writing hashes.
+ */
+@Component
+@Slf4j
+public class FileHashIndex {
+
+    private static final String HASH_ALGORITHM = "SHA-256";
+    private static final int DIGEST_LENGTH = 32;
+    private static final String LOAD_SQL = "SELECT id, file_id, digest, created_at FROM file_hashes " +
+            "WHERE hash_algorithm = ? AND id > ? ORDER BY id";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean enabled;
+    private final double falsePositiveRate;
+    private final Duration refreshOverlap;
+
+    // Readers take the read lock; writers hold mutationLock throughout and the write lock only while changing
+    // what readers see, so rebuilding the filters does not block lookups
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Object mutationLock = new Object();
+    private final DigestMap digests;
+    private final LongHashSet fileIdHashes;
+    private BloomFilter digestFilter;
+    private BloomFilter fileIdFilter;
+    private long capacity;
+    // Every row with a lower or equal id that will ever commit has been loaded
+    private volatile long settledId;
+    private volatile boolean ready;
+
+    public FileHashIndex(JdbcTemplate jdbcTemplate,
+                         @Value("${app.plagiarism.hash-index.enabled:true}") boolean enabled,
+                         @Value("${app.plagiarism.hash-index.expected-entries:1000000}") long expectedEntries,
+                         @Value("${app.plagiarism.hash-index.false-positive-rate:0.01}") double falsePositiveRate,
+                         @Value("${app.plagiarism.hash-index.refresh-overlap:1m}") Duration refreshOverlap) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = enabled;
+        this.falsePositiveRate = falsePositiveRate;
+        this.refreshOverlap = refreshOverlap;
+        this.capacity = Math.max(expectedEntries, 1024);
+        int expected = (int) Math.min(Integer.MAX_VALUE, capacity);
+        this.digests = new DigestMap(DIGEST_LENGTH, expected);
+        this.fileIdHashes = new LongHashSet(expected);
+        this.digestFilter = new BloomFilter(capacity, falsePositiveRate);
+        this.fileIdFilter = new BloomFilter(capacity, falsePositiveRate);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        if (!enabled) {
+            log.info("File hash index is disabled");
+            return;
+        }
+        Thread loader = new Thread(() -> {
+            try {
+                long started = System.nanoTime();
+                int loaded = loadNewRows();
+                ready = true;
+                log.info("File hash index loaded {} hashes in {} ms", loaded, (System.nanoTime() - started) / 1_000_000);
+            } catch (Exception e) {
+                log.error("Could not load file hash index, falling back to database lookups: {}", e.getMessage(), e);
+            }
+        }, "file-hash-index-loader");
+        loader.setDaemon(true);
+        loader.start();
+    }
+
+    @Scheduled(fixedDelayString = "${app.plagiarism.hash-index.refresh-interval-ms:10000}")
+    public void refresh() {
+        if (!ready) {
+            return;
+        }
+        try {
+            int added = loadNewRows();
+            if (added > 0) {
+                log.debug("File hash index picked up {} new hashes", added);
+            }
+        } catch (Exception e) {
+            log.warn("Could not refresh file hash index: {}", e.getMessage());
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * @return {@code false} if no hash has ever been stored for the file; {@code true} means "maybe"
+     */
+    public boolean mightContainFileId(String fileId) {
+        lock.readLock().lock();
+        try {
+            return fileIdFilter.mightContain(fileIdHash(fileId));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return the first file with this digest, or empty if the digest is new
+     */
+    public Optional<String> findFileId(byte[] digest) {
+        long keyHash = DigestMap.keyHash(digest);
+        lock.readLock().lock();
+        try {
+            if (!digestFilter.mightContain(keyHash)) {
+                return Optional.empty();
+            }
+            return Optional.ofNullable(digests.get(digest));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Adds a freshly written hash. Inside a transaction the entry becomes visible only after a successful commit,
+     * so a rolled back row never turns into a false match.
+     */
+    public void add(String fileId, byte[] digest) {
+        if (!enabled) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    put(fileId, digest);
+                }
+            });
+        } else {
+            put(fileId, digest);
+        }
+    }
+
+    /**
+     * Loads the rows above {@link #settledId}, moving it up to the last row older than the refresh overlap.
+     *
+     * @return the number of files that were not in the index yet
+     */
+    private synchronized int loadNewRows() {
+        long fromId = settledId;
+        Timestamp settledBefore = Timestamp.valueOf(LocalDateTime.now().minus(refreshOverlap));
+        long[] newSettledId = {fromId};
+        int[] added = {0};
+        jdbcTemplate.query(con -> {
+            var statement = con.prepareStatement(LOAD_SQL);
+            statement.setFetchSize(10_000);
+            statement.setString(1, HASH_ALGORITHM);
+            statement.setLong(2, fromId);
+            return statement;
+        }, rs -> {
+            if (put(rs.getString("file_id"), rs.getBytes("digest"))) {
+                added[0]++;
+            }
+            if (rs.getTimestamp("created_at").before(settledBefore)) {
+                newSettledId[0] = Math.max(newSettledId[0], rs.getLong("id"));
+            }
+        });
+        settledId = newSettledId[0];
+        return added[0];
+    }
+
+    /**
+     * @return {@code true} if the file was not in the index yet
+     */
+    private boolean put(String fileId, byte[] digest) {
+        if (digest.length != DIGEST_LENGTH) {
+            return false;
+        }
+        long digestHash = DigestMap.keyHash(digest);
+        long fileIdHash = fileIdHash(fileId);
+        synchronized (mutationLock) {
+            boolean added = fileIdHashes.add(fileIdHash);
+            lock.writeLock().lock();
+            try {
+                digests.putIfAbsent(digest, fileId);
+                digestFilter.add(digestHash);
+                fileIdFilter.add(fileIdHash);
+            } finally {
+                lock.writeLock().unlock();
+            }
+            if (Math.max(digests.size(), fileIdHashes.size()) > capacity) {
+                grow();
+            }
+            return added;
+        }
+    }
+
+    /**
+     * Bloom filters cannot grow, so once the expected size is exceeded they are rebuilt twice as large from the
+     * digests and file id hashes kept in memory. Called with {@link #mutationLock} held, so nothing is added
+     * meanwhile; lookups go on using the old filters until the new ones are swapped in.
+     */
+    private void grow() {
+        long newCapacity = capacity * 2;
+        log.info("File hash index exceeded {} entries, rebuilding with double capacity", capacity);
+        BloomFilter newDigestFilter = new BloomFilter(newCapacity, falsePositiveRate);
+        BloomFilter newFileIdFilter = new BloomFilter(newCapacity, falsePositiveRate);
+        digests.forEachKeyHash(newDigestFilter::add);
+        fileIdHashes.forEach(newFileIdFilter::add);
+        lock.writeLock().lock();
+        try {
+            digestFilter = newDigestFilter;
+            fileIdFilter = newFileIdFilter;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        capacity = newCapacity;
+    }
+
+    private static long fileIdHash(String fileId) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < fileId.length(); i++) {
+            hash = (hash ^ fileId.charAt(i)) * 0x100000001b3L;
+        }
+        return BloomFilter.mix(hash);
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.analyzer.index;
+
+import java.util.function.LongConsumer;
+
+/**
+ * Open-addressing set of non-zero 64-bit hashes, eight bytes per slot. Lets {@link FileHashIndex} rebuild its
+ * file id filter from memory without keeping the file id strings themselves.
+ * <p>
+ * Not thread-safe; {@link FileHashIndex} guards all access.
+ */
+class LongHashSet {
+
+    private static final double MAX_LOAD_FACTOR = 0.5;
+
+    private long[] slots;
+    private int size;
+
+    LongHashSet(int expectedEntries) {
+        long wanted = Math.max(16, (long) (expectedEntries / MAX_LOAD_FACTOR));
+        slots = new long[(int) Math.min(1 << 30, Long.highestOneBit(wanted - 1) << 1)];
+    }
+
+    /**
+     * @return {@code true} if the value was not in the set yet
+     */
+    boolean add(long value) {
+        if (value == 0) {
+            throw new IllegalArgumentException("Zero marks a free slot and cannot be stored");
+        }
+        if ((size + 1) > slots.length * MAX_LOAD_FACTOR) {
+            resize(slots.length << 1);
+        }
+        int slot = findSlot(slots, value);
+        if (slots[slot] != 0) {
+            return false;
+        }
+        slots[slot] = value;
+        size++;
+        return true;
+    }
+
+    boolean contains(long value) {
+        return value != 0 && slots[findSlot(slots, value)] != 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    void forEach(LongConsumer consumer) {
+        for (long value : slots) {
+            if (value != 0) {
+                consumer.accept(value);
+            }
+        }
+    }
+
+    private static int findSlot(long[] slots, long value) {
+        int mask = slots.length - 1;
+        // Values are already mixed hashes
+        int slot = (int) value & mask;
+        while (slots[slot] != 0 && slots[slot] != value) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void resize(int capacity) {
+        long[] oldSlots = slots;
+        slots = new long[capacity];
+        for (long value : oldSlots) {
+            if (value != 0) {
+                slots[findSlot(slots, value)] = value;
+            }
+        }
+    }
+}
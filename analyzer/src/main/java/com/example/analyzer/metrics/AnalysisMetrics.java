@@ -0,0 +1,133 @@
+package com.example.analyzer.metrics;
+
+import com.example.analyzer.service.ContentScanner;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Meters and trace spans of the analysis pipeline. Database calls, Kafka sends and listener invocations are timed
+ * by Spring Data and Spring Kafka themselves ({@code spring.data.repository.invocations}, {@code spring.kafka.template},
+ * {@code spring.kafka.listener}); this class covers what happens in between.
+ * <ul>
+ *     <li>{@code analysis.file} - whole file processing by outcome, also a span;</li>
+ *     <li>{@code analysis.scan}, {@code analysis.plagiarism.check} - spans (and timers) of the main steps;</li>
+ *     <li>{@code analysis.stage} - content stages: {@code read} is the time spent waiting for content to arrive,
+ *     the others are the CPU time of each pass of {@link ContentScanner};</li>
+ *     <li>{@code analysis.content.bytes} - bytes scanned by content source;</li>
+ *     <li>{@code analysis.batch.size} - files per batch in batch mode;</li>
+ *     <li>{@code analysis.files.in.flight} - files being processed right now.</li>
+ * </ul>
+ */
+@Component
+public class AnalysisMetrics {
+
+    private final MeterRegistry registry;
+    private final ObservationRegistry observationRegistry;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Timer readTimer;
+    private final Timer hashingTimer;
+    private final Timer decodingTimer;
+    private final Timer statisticsTimer;
+    private final Timer sketchingTimer;
+    private final DistributionSummary batchSize;
+
+    public AnalysisMetrics(MeterRegistry registry, ObservationRegistry observationRegistry) {
+        this.registry = registry;
+        this.observationRegistry = observationRegistry;
+        this.readTimer = stageTimer("read");
+        this.hashingTimer = stageTimer("hashing");
+        this.decodingTimer = stageTimer("decoding");
+        this.statisticsTimer = stageTimer("statistics");
+        this.sketchingTimer = stageTimer("sketching");
+        this.batchSize = DistributionSummary.builder("analysis.batch.size")
+                .description("Files per processed batch")
+                .register(registry);
+        Gauge.builder("analysis.files.in.flight", inFlight, AtomicInteger::get)
+                .description("Files being processed")
+                .register(registry);
+    }
+
+    /**
+     * Starts the observation of one file; it has to be put in scope by the caller so that nested spans attach to it.
+     */
+    public Observation startFile(String fileId) {
+        inFlight.incrementAndGet();
+        return Observation.createNotStarted("analysis.file", observationRegistry)
+                .contextualName("analyze file")
+                .highCardinalityKeyValue("file.id", fileId)
+                .start();
+    }
+
+    public void fileCompleted(Observation observation, FileOutcome outcome) {
+        inFlight.decrementAndGet();
+        observation.lowCardinalityKeyValue("outcome", outcome.tagValue()).stop();
+    }
+
+    public <T> T observeScan(Supplier<T> scan) {
+        return Observation.createNotStarted("analysis.scan", observationRegistry)
+                .contextualName("scan content")
+                .observe(scan);
+    }
+
+    public <T> T observePlagiarismCheck(Supplier<T> check) {
+        return Observation.createNotStarted("analysis.plagiarism.check", observationRegistry)
+                .contextualName("check plagiarism")
+                .observe(check);
+    }
+
+    public void batchStarted(int files) {
+        inFlight.addAndGet(files);
+        batchSize.record(files);
+    }
+
+    public void batchCompleted(int files) {
+        inFlight.addAndGet(-files);
+    }
+
+    /**
+     * Records the stage timings of a completed scan.
+     *
+     * @param elapsedNanos wall time from the start of reading to the completion of the scan
+     */
+    public void scanCompleted(ContentScanner scanner, String source, long elapsedNanos) {
+        hashingTimer.record(scanner.getHashingNanos(), TimeUnit.NANOSECONDS);
+        decodingTimer.record(scanner.getDecodingNanos(), TimeUnit.NANOSECONDS);
+        statisticsTimer.record(scanner.getStatisticsNanos(), TimeUnit.NANOSECONDS);
+        sketchingTimer.record(scanner.getSketchingNanos(), TimeUnit.NANOSECONDS);
+        readTimer.record(Math.max(0, elapsedNanos - scanner.getProcessingNanos()), TimeUnit.NANOSECONDS);
+        Counter.builder("analysis.content.bytes")
+                .description("Bytes of file content scanned")
+                .baseUnit("bytes")
+                .tag("source", source)
+                .register(registry)
+                .increment(scanner.getByteCount());
+    }
+
+    private Timer stageTimer(String stage) {
+        return Timer.builder("analysis.stage")
+                .description("Time spent in one stage of content processing")
+                .tag("stage", stage)
+                .register(registry);
+    }
+
+    public enum FileOutcome {
+        ANALYZED,
+        DUPLICATE,
+        SKIPPED,
+        FAILED;
+
+        String tagValue() {
+            return name().toLowerCase();
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.analyzer.repository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Moves {@code file_hashes} written before the binary digest column existed over to it: fills {@code digest}
+ * from the hex {@code hash_value}, makes it mandatory and drops {@code hash_value} with its index.
+ * <p>
+ * Runs once the schema has been updated by Hibernate and before the Kafka listeners start, so no lookup ever
+ * sees a row without its digest. It is a no-op once {@code hash_value} is gone.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class FileHashDigestMigration implements SmartInitializingSingleton {
+
+    private static final String HAS_HASH_VALUE_SQL = "SELECT count(*) FROM information_schema.columns " +
+            "WHERE table_schema = current_schema() AND table_name = 'file_hashes' AND column_name = 'hash_value'";
+    private static final String BACKFILL_SQL = "UPDATE file_hashes SET digest = decode(hash_value, 'hex') " +
+            "WHERE digest IS NULL AND hash_value ~ '^[0-9a-fA-F]{64}$'";
+    private static final String MISSING_DIGEST_SQL = "SELECT count(*) FROM file_hashes WHERE digest IS NULL";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        Integer columns = jdbcTemplate.queryForObject(HAS_HASH_VALUE_SQL, Integer.class);
+        if (columns == null || columns == 0) {
+            return;
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            // Serializes instances starting at the same time
+            jdbcTemplate.execute("LOCK TABLE file_hashes IN SHARE ROW EXCLUSIVE MODE");
+            // Normally added by the schema update already, unless it failed on a populated table
+            jdbcTemplate.execute("ALTER TABLE file_hashes ADD COLUMN IF NOT EXISTS digest bytea");
+            int backfilled = jdbcTemplate.update(BACKFILL_SQL);
+            Long missing = jdbcTemplate.queryForObject(MISSING_DIGEST_SQL, Long.class);
+            if (missing != null && missing > 0) {
+                // Without a digest these rows cannot be matched; hash_value is kept for them to be fixed by hand
+                log.error("{} file hashes have no valid hex value to fill their digest from, keeping hash_value", missing);
+                jdbcTemplate.execute("ALTER TABLE file_hashes ALTER COLUMN hash_value DROP NOT NULL");
+                return;
+            }
+            jdbcTemplate.execute("ALTER TABLE file_hashes ALTER COLUMN digest SET NOT NULL");
+            jdbcTemplate.execute("DROP INDEX IF EXISTS idx_filehash_hashvalue");
+            jdbcTemplate.execute("ALTER TABLE file_hashes DROP COLUMN IF EXISTS hash_value");
+            log.info("Backfilled binary digests of {} file hashes and dropped hash_value", backfilled);
+        });
+    }
+}
@@ -2,17 +2,28 @@ package com.example.analyzer.repository;
 
 import com.example.analyzer.entity.FileHash;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 @Repository
-public interface FileHashRepository extends JpaRepository<FileHash, Long> {
+public interface FileHashRepository extends JpaRepository<FileHash, Long>, FileHashRepositoryCustom {
 
     Optional<FileHash> findByFileId(String fileId);
 
-    List<FileHash> findByHashAlgorithmAndHashValue(String hashAlgorithm, String hashValue);
+    List<FileHash> findByFileIdIn(Collection<String> fileIds);
+
+    Optional<FileHash> findFirstByHashAlgorithmAndDigestOrderByIdAsc(String hashAlgorithm, byte[] digest);
+
+    List<FileHash> findByHashAlgorithmAndDigestInOrderByIdAsc(String hashAlgorithm, Collection<byte[]> digests);
 
     boolean existsByFileId(String fileId);
+
+    @Query("select h.fileId from FileHash h where h.fileId in :fileIds")
+    Set<String> findExistingFileIds(@Param("fileIds") Collection<String> fileIds);
 }
@@ -0,0 +1,13 @@
+package com.example.analyzer.repository;
+
+import com.example.analyzer.entity.FileHash;
+
+import java.util.Collection;
+
+public interface FileHashRepositoryCustom {
+
+    /**
+     * Inserts all rows with JDBC batching, silently skipping files that already have a hash.
+     */
+    void insertAll(Collection<FileHash> hashes);
+}
@@ -0,0 +1,37 @@
+package com.example.analyzer.repository;
+
+import com.example.analyzer.entity.FileHash;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.Collection;
+
+@RequiredArgsConstructor
+public class FileHashRepositoryCustomImpl implements FileHashRepositoryCustom {
+
+    private static final String INSERT_SQL = "INSERT INTO file_hashes " +
+            "(file_id, hash_algorithm, digest, plagiarized, matched_file_id, similarity_percentage, created_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?) ON CONFLICT (file_id) DO NOTHING";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void insertAll(Collection<FileHash> hashes) {
+        if (hashes.isEmpty()) {
+            return;
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(INSERT_SQL, hashes, hashes.size(), (ps, row) -> {
+            ps.setString(1, row.getFileId());
+            ps.setString(2, row.getHashAlgorithm());
+            ps.setBytes(3, row.getDigest());
+            ps.setObject(4, row.getPlagiarized(), Types.BOOLEAN);
+            ps.setString(5, row.getMatchedFileId());
+            ps.setObject(6, row.getSimilarityPercentage(), Types.DOUBLE);
+            ps.setTimestamp(7, now);
+        });
+    }
+}
@@ -0,0 +1,14 @@
+package com.example.analyzer.repository;
+
+import com.example.analyzer.entity.FileSignature;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface FileSignatureRepository extends JpaRepository<FileSignature, Long>, FileSignatureRepositoryCustom {
+
+    List<FileSignature> findByFileIdIn(Collection<String> fileIds);
+}
@@ -0,0 +1,15 @@
+package com.example.analyzer.repository;
+
+import java.util.Map;
+
+public interface FileSignatureRepositoryCustom {
+
+    /**
+     * Stores signatures together with their LSH bands using JDBC batching. Files that already have a signature
+     * are skipped.
+     *
+     * @param signaturesByFileId serialized signatures
+     * @param bandHashesByFileId LSH band hashes of the same files
+     */
+    void insertAll(Map<String, byte[]> signaturesByFileId, Map<String, long[]> bandHashesByFileId);
+}
@@ -0,0 +1,40 @@
+package com.example.analyzer.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+@RequiredArgsConstructor
+public class FileSignatureRepositoryCustomImpl implements FileSignatureRepositoryCustom {
+
+    private static final String INSERT_SIGNATURE_SQL = "INSERT INTO file_signatures (file_id, signature, created_at) " +
+            "VALUES (?, ?, ?) ON CONFLICT (file_id) DO NOTHING";
+    private static final String INSERT_BAND_SQL = "INSERT INTO lsh_bands (file_id, band_hash) " +
+            "VALUES (?, ?) ON CONFLICT (file_id, band_hash) DO NOTHING";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void insertAll(Map<String, byte[]> signaturesByFileId, Map<String, long[]> bandHashesByFileId) {
+        if (signaturesByFileId.isEmpty()) {
+            return;
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> signatures = new ArrayList<>(signaturesByFileId.size());
+        signaturesByFileId.forEach((fileId, signature) -> signatures.add(new Object[]{fileId, signature, now}));
+        jdbcTemplate.batchUpdate(INSERT_SIGNATURE_SQL, signatures);
+
+        List<Object[]> bands = new ArrayList<>();
+        bandHashesByFileId.forEach((fileId, bandHashes) -> {
+            for (long bandHash : bandHashes) {
+                bands.add(new Object[]{fileId, bandHash});
+            }
+        });
+        jdbcTemplate.batchUpdate(INSERT_BAND_SQL, bands);
+    }
+}
@@ -2,14 +2,24 @@ package com.example.analyzer.repository;
 
 import com.example.analyzer.entity.FileStats;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 @Repository
-public interface FileStatsRepository extends JpaRepository<FileStats, Long> {
+public interface FileStatsRepository extends JpaRepository<FileStats, Long>, FileStatsRepositoryCustom {
 
     Optional<FileStats> findByFileId(String fileId);
 
+    List<FileStats> findByFileIdIn(Collection<String> fileIds);
+
     boolean existsByFileId(String fileId);
+
+    @Query("select s.fileId from FileStats s where s.fileId in :fileIds")
+    Set<String> findExistingFileIds(@Param("fileIds") Collection<String> fileIds);
 }
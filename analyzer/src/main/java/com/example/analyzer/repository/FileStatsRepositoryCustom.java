@@ -0,0 +1,13 @@
+package com.example.analyzer.repository;
+
+import com.example.analyzer.entity.FileStats;
+
+import java.util.Collection;
+
+public interface FileStatsRepositoryCustom {
+
+    /**
+     * Inserts all rows with JDBC batching, silently skipping files that already have statistics.
+     */
+    void insertAll(Collection<FileStats> stats);
+}
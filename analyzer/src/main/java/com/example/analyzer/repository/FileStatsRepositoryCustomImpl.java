@@ -0,0 +1,35 @@
+package com.example.analyzer.repository;
+
+import com.example.analyzer.entity.FileStats;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collection;
+
+@RequiredArgsConstructor
+public class FileStatsRepositoryCustomImpl implements FileStatsRepositoryCustom {
+
+    private static final String INSERT_SQL = "INSERT INTO file_stats " +
+            "(file_id, paragraph_count, word_count, char_count, created_at, updated_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?) ON CONFLICT (file_id) DO NOTHING";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void insertAll(Collection<FileStats> stats) {
+        if (stats.isEmpty()) {
+            return;
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(INSERT_SQL, stats, stats.size(), (ps, row) -> {
+            ps.setString(1, row.getFileId());
+            ps.setInt(2, row.getParagraphCount());
+            ps.setInt(3, row.getWordCount());
+            ps.setInt(4, row.getCharCount());
+            ps.setTimestamp(5, now);
+            ps.setTimestamp(6, now);
+        });
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.analyzer.repository;
+
+import com.example.analyzer.entity.LshBand;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface LshBandRepository extends JpaRepository<LshBand, Long>, LshBandRepositoryCustom {
+}
@@ -0,0 +1,13 @@
+package com.example.analyzer.repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+public interface LshBandRepositoryCustom {
+
+    /**
+     * Files having each band hash, reading at most {@code limitPerBand} rows per band.
+     */
+    Map<Long, List<String>> findFileIdsByBandHash(Collection<Long> bandHashes, int limitPerBand);
+}
@@ -0,0 +1,37 @@
+package com.example.analyzer.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@RequiredArgsConstructor
+public class LshBandRepositoryCustomImpl implements LshBandRepositoryCustom {
+
+    // One index range scan per band, each stopping after the limit
+    private static final String FIND_SQL = "SELECT q.band_hash, b.file_id FROM unnest(?) AS q(band_hash) " +
+            "CROSS JOIN LATERAL (SELECT file_id FROM lsh_bands WHERE band_hash = q.band_hash LIMIT ?) b";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public Map<Long, List<String>> findFileIdsByBandHash(Collection<Long> bandHashes, int limitPerBand) {
+        Map<Long, List<String>> fileIdsByBandHash = new HashMap<>();
+        if (bandHashes.isEmpty()) {
+            return fileIdsByBandHash;
+        }
+        jdbcTemplate.query(con -> {
+            var statement = con.prepareStatement(FIND_SQL);
+            statement.setArray(1, con.createArrayOf("bigint", bandHashes.toArray()));
+            statement.setInt(2, limitPerBand);
+            return statement;
+        }, rs -> {
+            fileIdsByBandHash.computeIfAbsent(rs.getLong("band_hash"), k -> new ArrayList<>()).add(rs.getString("file_id"));
+        });
+        return fileIdsByBandHash;
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.analyzer.repository;
+
+import com.example.analyzer.entity.SimilarityIndexParameters;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface SimilarityIndexParametersRepository extends JpaRepository<SimilarityIndexParameters, Integer> {
+}
@@ -0,0 +1,132 @@
+package com.example.analyzer.serialization;
+
+import com.example.analyzer.dto.event.FileStatsCalculatedEvent;
+import com.example.analyzer.dto.event.FileUploadedEvent;
+import com.example.analyzer.dto.event.PlagiarismCheckResultEvent;
+import com.example.analyzer.util.HexCodec;
+import org.apache.kafka.common.errors.SerializationException;
+
+/**
+ * Compact binary encoding of the Kafka events, used instead of JSON with {@code kafka.producer.value-format=BINARY}.
+ * <p>
+ * Layout: a magic byte, the format version, the event type and then protobuf-style tagged fields (a varint key
+ * holding the field number and wire type, followed by a zigzag varint, 8 fixed bytes or a length-prefixed byte
+ * string). Missing fields keep their defaults and unknown fields are skipped, so fields may be added or dropped
+ * freely as long as field numbers are never reused; the version is only raised for incompatible changes.
+ * The magic byte can never start a JSON document, which lets consumers accept both formats during a rollout.
+ * <p>
+ * Type ids and field numbers must match the storage service's copy of this codec.
+ */
+public final class BinaryEventCodec {
+
+    public static final byte MAGIC = (byte) 0xB1;
+    static final byte VERSION = 1;
+
+    private static final int TYPE_FILE_UPLOADED = 1;
+    private static final int TYPE_FILE_STATS_CALCULATED = 2;
+    private static final int TYPE_PLAGIARISM_CHECK_RESULT = 3;
+
+    private BinaryEventCodec() {
+    }
+
+    public static boolean supports(Class<?> type) {
+        return type == FileUploadedEvent.class
+                || type == FileStatsCalculatedEvent.class
+                || type == PlagiarismCheckResultEvent.class;
+    }
+
+    public static boolean isBinary(byte[] data) {
+        return data != null && data.length > 0 && data[0] == MAGIC;
+    }
+
+    public static byte[] encode(Object event) {
+        if (event instanceof FileUploadedEvent e) {
+            return new EventWriter(TYPE_FILE_UPLOADED)
+                    .string(1, e.getFileId())
+                    .string(2, e.getOriginalFilename())
+                    .string(3, e.getContentType())
+                    .integer(4, e.getSize())
+                    .string(5, e.getStoragePath())
+                    .string(6, e.getUserId())
+                    .bytes(7, e.getContentDigest() != null ? HexCodec.decode(e.getContentDigest()) : null)
+                    .toByteArray();
+        }
+        if (event instanceof FileStatsCalculatedEvent e) {
+            return new EventWriter(TYPE_FILE_STATS_CALCULATED)
+                    .string(1, e.getFileId())
+                    .integer(2, e.getParagraphCount())
+                    .integer(3, e.getWordCount())
+                    .integer(4, e.getCharCount())
+                    .toByteArray();
+        }
+        if (event instanceof PlagiarismCheckResultEvent e) {
+            return new EventWriter(TYPE_PLAGIARISM_CHECK_RESULT)
+                    .string(1, e.getFileId())
+                    .bool(2, e.isPlagiarized())
+                    .string(3, e.getMatchedFileId())
+                    .decimal(4, e.getSimilarityPercentage())
+                    .toByteArray();
+        }
+        throw new SerializationException("No binary encoding for " + event.getClass().getName());
+    }
+
+    public static <T> T decode(byte[] data, Class<T> type) {
+        EventReader reader = new EventReader(data);
+        int eventType = reader.readHeader();
+        Object event = switch (eventType) {
+            case TYPE_FILE_UPLOADED -> readFileUploaded(reader);
+            case TYPE_FILE_STATS_CALCULATED -> readFileStatsCalculated(reader);
+            case TYPE_PLAGIARISM_CHECK_RESULT -> readPlagiarismCheckResult(reader);
+            default -> throw new SerializationException("Unknown binary event type " + eventType);
+        };
+        if (!type.isInstance(event)) {
+            throw new SerializationException("Expected " + type.getSimpleName() + " but got " + event.getClass().getSimpleName());
+        }
+        return type.cast(event);
+    }
+
+    private static FileUploadedEvent readFileUploaded(EventReader reader) {
+        FileUploadedEvent event = new FileUploadedEvent();
+        while (reader.hasNext()) {
+            switch (reader.nextField()) {
+                case 1 -> event.setFileId(reader.string());
+                case 2 -> event.setOriginalFilename(reader.string());
+                case 3 -> event.setContentType(reader.string());
+                case 4 -> event.setSize(reader.integer());
+                case 5 -> event.setStoragePath(reader.string());
+                case 6 -> event.setUserId(reader.string());
+                case 7 -> event.setContentDigest(HexCodec.encode(reader.bytes()));
+                default -> reader.skip();
+            }
+        }
+        return event;
+    }
+
+    private static FileStatsCalculatedEvent readFileStatsCalculated(EventReader reader) {
+        FileStatsCalculatedEvent event = new FileStatsCalculatedEvent();
+        while (reader.hasNext()) {
+            switch (reader.nextField()) {
+                case 1 -> event.setFileId(reader.string());
+                case 2 -> event.setParagraphCount(reader.int32());
+                case 3 -> event.setWordCount(reader.int32());
+                case 4 -> event.setCharCount(reader.int32());
+                default -> reader.skip();
+            }
+        }
+        return event;
+    }
+
+    private static PlagiarismCheckResultEvent readPlagiarismCheckResult(EventReader reader) {
+        PlagiarismCheckResultEvent event = new PlagiarismCheckResultEvent();
+        while (reader.hasNext()) {
+            switch (reader.nextField()) {
+                case 1 -> event.setFileId(reader.string());
+                case 2 -> event.setPlagiarized(reader.bool());
+                case 3 -> event.setMatchedFileId(reader.string());
+                case 4 -> event.setSimilarityPercentage(reader.decimal());
+                default -> reader.skip();
+            }
+        }
+        return event;
+    }
+}
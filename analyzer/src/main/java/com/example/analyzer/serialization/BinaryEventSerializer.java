@@ -0,0 +1,41 @@
+package com.example.analyzer.serialization;
+
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Serializer;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import java.util.Map;
+
+/**
+ * Writes the events known to {@link BinaryEventCodec} in binary form and anything else as JSON.
+ */
+public class BinaryEventSerializer implements Serializer<Object> {
+
+    private final JsonSerializer<Object> jsonSerializer = new JsonSerializer<>();
+
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        jsonSerializer.configure(configs, isKey);
+    }
+
+    @Override
+    public byte[] serialize(String topic, Object data) {
+        if (data == null) {
+            return null;
+        }
+        return BinaryEventCodec.supports(data.getClass()) ? BinaryEventCodec.encode(data) : jsonSerializer.serialize(topic, data);
+    }
+
+    @Override
+    public byte[] serialize(String topic, Headers headers, Object data) {
+        if (data == null) {
+            return null;
+        }
+        return BinaryEventCodec.supports(data.getClass()) ? BinaryEventCodec.encode(data) : jsonSerializer.serialize(topic, headers, data);
+    }
+
+    @Override
+    public void close() {
+        jsonSerializer.close();
+    }
+}
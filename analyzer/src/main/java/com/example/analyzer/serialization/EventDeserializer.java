@@ -0,0 +1,48 @@
+package com.example.analyzer.serialization;
+
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+
+import java.util.Map;
+
+/**
+ * Reads an event in either format, recognizing binary payloads by their magic byte, so producers can switch
+ * formats without coordinating with consumers.
+ */
+public class EventDeserializer<T> implements Deserializer<T> {
+
+    private final Class<T> type;
+    private final JsonDeserializer<T> jsonDeserializer;
+
+    public EventDeserializer(Class<T> type, JsonDeserializer<T> jsonDeserializer) {
+        this.type = type;
+        this.jsonDeserializer = jsonDeserializer;
+    }
+
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        jsonDeserializer.configure(configs, isKey);
+    }
+
+    @Override
+    public T deserialize(String topic, byte[] data) {
+        if (BinaryEventCodec.isBinary(data)) {
+            return BinaryEventCodec.decode(data, type);
+        }
+        return jsonDeserializer.deserialize(topic, data);
+    }
+
+    @Override
+    public T deserialize(String topic, Headers headers, byte[] data) {
+        if (BinaryEventCodec.isBinary(data)) {
+            return BinaryEventCodec.decode(data, type);
+        }
+        return jsonDeserializer.deserialize(topic, headers, data);
+    }
+
+    @Override
+    public void close() {
+        jsonDeserializer.close();
+    }
+}
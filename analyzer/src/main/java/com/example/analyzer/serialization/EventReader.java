@@ -0,0 +1,137 @@
+package com.example.analyzer.serialization;
+
+import org.apache.kafka.common.errors.SerializationException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Reads tagged fields written by {@link EventWriter}. Call {@link #nextField()} while {@link #hasNext()} and
+ * either read the value with the method matching the field or {@link #skip()} it.
+ */
+final class EventReader {
+
+    private final byte[] data;
+    private int position;
+    private int wireType;
+
+    EventReader(byte[] data) {
+        this.data = data;
+    }
+
+    /**
+     * Validates the header and returns the event type.
+     */
+    int readHeader() {
+        if (data.length < 3 || data[0] != BinaryEventCodec.MAGIC) {
+            throw new SerializationException("Not a binary event");
+        }
+        int version = data[1];
+        if (version < 1 || version > BinaryEventCodec.VERSION) {
+            throw new SerializationException("Unsupported binary event version " + version);
+        }
+        position = 2;
+        return (int) readRawVarint();
+    }
+
+    boolean hasNext() {
+        return position < data.length;
+    }
+
+    int nextField() {
+        long key = readRawVarint();
+        wireType = (int) (key & 0x7);
+        return (int) (key >>> 3);
+    }
+
+    String string() {
+        return new String(bytes(), StandardCharsets.UTF_8);
+    }
+
+    byte[] bytes() {
+        expect(EventWriter.WIRE_BYTES);
+        int length = length();
+        byte[] value = Arrays.copyOfRange(data, position, position + length);
+        position += length;
+        return value;
+    }
+
+    long integer() {
+        expect(EventWriter.WIRE_VARINT);
+        long value = readRawVarint();
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    int int32() {
+        long value = integer();
+        if (value != (int) value) {
+            throw new SerializationException("Value " + value + " does not fit into an int");
+        }
+        return (int) value;
+    }
+
+    boolean bool() {
+        return integer() != 0;
+    }
+
+    double decimal() {
+        expect(EventWriter.WIRE_FIXED64);
+        require(Long.BYTES);
+        long bits = 0;
+        for (int i = 0; i < Long.BYTES; i++) {
+            bits |= (data[position++] & 0xFFL) << (8 * i);
+        }
+        return Double.longBitsToDouble(bits);
+    }
+
+    /**
+     * Skips a field this reader does not know, e.g. one added by a newer writer.
+     */
+    void skip() {
+        switch (wireType) {
+            case EventWriter.WIRE_VARINT -> readRawVarint();
+            case EventWriter.WIRE_FIXED64 -> {
+                require(Long.BYTES);
+                position += Long.BYTES;
+            }
+            case EventWriter.WIRE_BYTES -> {
+                int length = length();
+                position += length;
+            }
+            default -> throw new SerializationException("Unknown wire type " + wireType);
+        }
+    }
+
+    private int length() {
+        long length = readRawVarint();
+        if (length < 0 || length > data.length - position) {
+            throw new SerializationException("Truncated binary event");
+        }
+        return (int) length;
+    }
+
+    private void expect(int expectedWireType) {
+        if (wireType != expectedWireType) {
+            throw new SerializationException("Unexpected wire type " + wireType + ", expected " + expectedWireType);
+        }
+    }
+
+    private void require(int bytes) {
+        if (data.length - position < bytes) {
+            throw new SerializationException("Truncated binary event");
+        }
+    }
+
+    private long readRawVarint() {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            require(1);
+            byte b = data[position++];
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new SerializationException("Malformed varint");
+    }
+}
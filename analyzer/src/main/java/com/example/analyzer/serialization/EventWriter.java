@@ -0,0 +1,92 @@
+package com.example.analyzer.serialization;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Appends tagged fields in the {@link BinaryEventCodec} layout. Fields holding their default value
+ * ({@code null}, zero, {@code false}) are not written at all.
+ */
+final class EventWriter {
+
+    static final int WIRE_VARINT = 0;
+    static final int WIRE_FIXED64 = 1;
+    static final int WIRE_BYTES = 2;
+
+    private byte[] buffer = new byte[128];
+    private int size;
+
+    EventWriter(int type) {
+        writeByte(BinaryEventCodec.MAGIC);
+        writeByte(BinaryEventCodec.VERSION);
+        writeRawVarint(type);
+    }
+
+    EventWriter string(int field, String value) {
+        return value == null ? this : bytes(field, value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    EventWriter bytes(int field, byte[] value) {
+        if (value != null) {
+            key(field, WIRE_BYTES);
+            writeRawVarint(value.length);
+            ensureCapacity(value.length);
+            System.arraycopy(value, 0, buffer, size, value.length);
+            size += value.length;
+        }
+        return this;
+    }
+
+    EventWriter integer(int field, long value) {
+        if (value != 0) {
+            key(field, WIRE_VARINT);
+            // Zigzag, so small negative values stay short as well
+            writeRawVarint((value << 1) ^ (value >> 63));
+        }
+        return this;
+    }
+
+    EventWriter bool(int field, boolean value) {
+        return integer(field, value ? 1 : 0);
+    }
+
+    EventWriter decimal(int field, double value) {
+        long bits = Double.doubleToRawLongBits(value);
+        if (bits != 0) {
+            key(field, WIRE_FIXED64);
+            ensureCapacity(Long.BYTES);
+            for (int i = 0; i < Long.BYTES; i++) {
+                buffer[size++] = (byte) (bits >>> (8 * i));
+            }
+        }
+        return this;
+    }
+
+    byte[] toByteArray() {
+        return Arrays.copyOf(buffer, size);
+    }
+
+    private void key(int field, int wireType) {
+        writeRawVarint(((long) field << 3) | wireType);
+    }
+
+    private void writeRawVarint(long value) {
+        ensureCapacity(10);
+        while ((value & ~0x7FL) != 0) {
+            buffer[size++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buffer[size++] = (byte) value;
+    }
+
+    private void writeByte(byte value) {
+        ensureCapacity(1);
+        buffer[size++] = value;
+    }
+
+    private void ensureCapacity(int additional) {
+        if (size + additional > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, size + additional));
+        }
+    }
+}
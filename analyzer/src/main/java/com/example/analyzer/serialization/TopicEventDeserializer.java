@@ -0,0 +1,47 @@
+package com.example.analyzer.serialization;
+
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Deserializer;
+
+import java.util.Map;
+
+/**
+ * Picks the event deserializer by topic, for listeners that consume several topics with different event types.
+ */
+public class TopicEventDeserializer implements Deserializer<Object> {
+
+    private final Map<String, Deserializer<?>> deserializersByTopic;
+
+    public TopicEventDeserializer(Map<String, Deserializer<?>> deserializersByTopic) {
+        this.deserializersByTopic = Map.copyOf(deserializersByTopic);
+    }
+
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        deserializersByTopic.values().forEach(deserializer -> deserializer.configure(configs, isKey));
+    }
+
+    @Override
+    public Object deserialize(String topic, byte[] data) {
+        return deserializerFor(topic).deserialize(topic, data);
+    }
+
+    @Override
+    public Object deserialize(String topic, Headers headers, byte[] data) {
+        return deserializerFor(topic).deserialize(topic, headers, data);
+    }
+
+    @Override
+    public void close() {
+        deserializersByTopic.values().forEach(Deserializer::close);
+    }
+
+    private Deserializer<?> deserializerFor(String topic) {
+        Deserializer<?> deserializer = deserializersByTopic.get(topic);
+        if (deserializer == null) {
+            throw new SerializationException("No event type registered for topic " + topic);
+        }
+        return deserializer;
+    }
+}
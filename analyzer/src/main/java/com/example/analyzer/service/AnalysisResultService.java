@@ -0,0 +1,202 @@
+package com.example.analyzer.service;
+
+import com.example.analyzer.dto.FileAnalysisResultDTO;
+import com.example.analyzer.dto.event.PlagiarismCheckResultEvent;
+import com.example.analyzer.entity.FileHash;
+import com.example.analyzer.entity.FileStats;
+import com.example.analyzer.exception.ResultNotFoundException;
+import com.example.analyzer.repository.FileHashRepository;
+import com.example.analyzer.repository.FileStatsRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Serves analysis results from a bounded in-process cache with a TTL. Results are put into the cache by the
+ * analysis itself as soon as they are committed; only misses read the database. Incomplete and unknown results
+ * are kept in a separate cache with a short TTL so that clients polling for a file under analysis do not query the
+ * database on every request; such an entry is also dropped as soon as a result event for the file arrives.
+ */
+@Service
+@Slf4j
+public class AnalysisResultService {
+
+    private final FileStatsRepository fileStatsRepository;
+    private final FileHashRepository fileHashRepository;
+    // Only misses open a transaction, so cache hits never borrow a database connection
+    private final TransactionTemplate readTransaction;
+    private final Cache<String, FileAnalysisResultDTO> cache;
+    /** Incomplete results, or an empty value for files without any results yet. */
+    private final Cache<String, Optional<FileAnalysisResultDTO>> pendingCache;
+    /**
+     * When the results of a file last changed, so that a read that started before the change does not put its
+     * outdated result back into the pending cache.
+     */
+    private final Cache<String, Long> changedAt;
+
+    public AnalysisResultService(FileStatsRepository fileStatsRepository,
+                                 FileHashRepository fileHashRepository,
+                                 PlatformTransactionManager transactionManager,
+                                 @Value("${app.analysis.results-cache.max-size:100000}") long maxSize,
+                                 @Value("${app.analysis.results-cache.ttl:10m}") Duration ttl,
+                                 @Value("${app.analysis.results-cache.pending-ttl:2s}") Duration pendingTtl) {
+        this.fileStatsRepository = fileStatsRepository;
+        this.fileHashRepository = fileHashRepository;
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction.setReadOnly(true);
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .build();
+        this.pendingCache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(pendingTtl)
+                .build();
+        this.changedAt = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(pendingTtl)
+                .build();
+    }
+
+    public FileAnalysisResultDTO getResult(String fileId) {
+        FileAnalysisResultDTO cached = cache.getIfPresent(fileId);
+        if (cached != null) {
+            return cached;
+        }
+        Optional<FileAnalysisResultDTO> pending = pendingCache.getIfPresent(fileId);
+        if (pending == null) {
+            long readStartedAt = System.nanoTime();
+            FileAnalysisResultDTO loaded = readTransaction.execute(status -> load(fileId,
+                    fileStatsRepository.findByFileId(fileId).orElse(null),
+                    fileHashRepository.findByFileId(fileId).orElse(null),
+                    readStartedAt));
+            pending = Optional.ofNullable(loaded);
+        }
+        return pending.orElseThrow(() -> new ResultNotFoundException("No analysis results for file with id " + fileId));
+    }
+
+    /**
+     * Results of the given files in request order; files without any results are left out.
+     * Misses are loaded with one query per table.
+     */
+    public List<FileAnalysisResultDTO> getResults(Collection<String> fileIds) {
+        Set<String> uniqueFileIds = new LinkedHashSet<>(fileIds);
+        Map<String, FileAnalysisResultDTO> found = new HashMap<>(cache.getAllPresent(uniqueFileIds));
+        pendingCache.getAllPresent(uniqueFileIds).forEach((fileId, pending) -> {
+            if (!found.containsKey(fileId)) {
+                found.put(fileId, pending.orElse(null));
+            }
+        });
+
+        List<String> missing = uniqueFileIds.stream().filter(fileId -> !found.containsKey(fileId)).toList();
+        if (!missing.isEmpty()) {
+            long readStartedAt = System.nanoTime();
+            readTransaction.executeWithoutResult(status -> {
+                Map<String, FileStats> stats = fileStatsRepository.findByFileIdIn(missing).stream()
+                        .collect(Collectors.toMap(FileStats::getFileId, Function.identity()));
+                Map<String, FileHash> hashes = fileHashRepository.findByFileIdIn(missing).stream()
+                        .collect(Collectors.toMap(FileHash::getFileId, Function.identity()));
+                for (String fileId : missing) {
+                    found.put(fileId, load(fileId, stats.get(fileId), hashes.get(fileId), readStartedAt));
+                }
+            });
+        }
+
+        List<FileAnalysisResultDTO> results = new ArrayList<>(found.size());
+        for (String fileId : uniqueFileIds) {
+            FileAnalysisResultDTO result = found.get(fileId);
+            if (result != null) {
+                results.add(result);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Caches a freshly calculated result once the current transaction commits, or right away without one.
+     */
+    public void cacheOnCommit(FileStats stats, PlagiarismCheckResultEvent plagiarismResult) {
+        FileAnalysisResultDTO result = new FileAnalysisResultDTO(
+                stats.getFileId(),
+                stats.getParagraphCount(),
+                stats.getWordCount(),
+                stats.getCharCount(),
+                plagiarismResult.isPlagiarized(),
+                plagiarismResult.getMatchedFileId(),
+                plagiarismResult.getSimilarityPercentage()
+        );
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    cache.put(result.getFileId(), result);
+                    evictPending(result.getFileId());
+                }
+            });
+        } else {
+            cache.put(result.getFileId(), result);
+            evictPending(result.getFileId());
+        }
+    }
+
+    /**
+     * Drops the cached incomplete or missing result of a file whose results have just changed.
+     */
+    public void evictPending(String fileId) {
+        changedAt.put(fileId, System.nanoTime());
+        pendingCache.invalidate(fileId);
+    }
+
+    /**
+     * Builds the result from whatever is stored and caches it, in the main cache if it is complete and in the
+     * pending cache otherwise.
+     *
+     * @return the result, or {@code null} if the file has no results at all
+     */
+    private FileAnalysisResultDTO load(String fileId, FileStats stats, FileHash fileHash, long readStartedAt) {
+        if (stats == null && fileHash == null) {
+            cachePending(fileId, Optional.empty(), readStartedAt);
+            return null;
+        }
+        FileAnalysisResultDTO result = new FileAnalysisResultDTO(
+                fileId,
+                stats != null ? stats.getParagraphCount() : null,
+                stats != null ? stats.getWordCount() : null,
+                stats != null ? stats.getCharCount() : null,
+                fileHash != null ? fileHash.getPlagiarized() : null,
+                fileHash != null ? fileHash.getMatchedFileId() : null,
+                fileHash != null ? fileHash.getSimilarityPercentage() : null
+        );
+        if (stats != null && fileHash != null && fileHash.getPlagiarized() != null) {
+            cache.put(fileId, result);
+        } else {
+            cachePending(fileId, Optional.of(result), readStartedAt);
+        }
+        return result;
+    }
+
+    private void cachePending(String fileId, Optional<FileAnalysisResultDTO> result, long readStartedAt) {
+        Long lastChange = changedAt.getIfPresent(fileId);
+        if (lastChange == null || lastChange - readStartedAt < 0) {
+            pendingCache.put(fileId, result);
+        }
+    }
+}
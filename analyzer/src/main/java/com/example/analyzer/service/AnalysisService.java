@@ -1,25 +1,41 @@
 package com.example.analyzer.service;
 
 import com.example.analyzer.client.FileStorageClient;
+import com.example.analyzer.client.LocalFileContentReader;
 import com.example.analyzer.dto.event.FileStatsCalculatedEvent;
 import com.example.analyzer.dto.event.FileUploadedEvent;
+import com.example.analyzer.dto.event.PlagiarismCheckResultEvent;
 import com.example.analyzer.entity.FileStats;
 import com.example.analyzer.exception.AnalysisException;
+import com.example.analyzer.exception.ExternalServiceException;
+import com.example.analyzer.metrics.AnalysisMetrics;
+import com.example.analyzer.metrics.AnalysisMetrics.FileOutcome;
 import com.example.analyzer.repository.FileStatsRepository;
+import com.example.analyzer.util.HexCodec;
+import io.micrometer.observation.Observation;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.core.io.Resource;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.util.FileCopyUtils;
-
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.Reader;
-import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 @Service
 @RequiredArgsConstructor
@@ -27,37 +43,58 @@ import java.nio.charset.StandardCharsets;
 public class AnalysisService {
 
     private final FileStorageClient fileStorageClient;
+    private final LocalFileContentReader localFileContentReader;
     private final FileStatsRepository fileStatsRepository;
     private final PlagiarismDetectionService plagiarismDetectionService;
     private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final ThreadPoolTaskExecutor analysisExecutor;
+    private final TransactionTemplate transactionTemplate;
+    private final AnalysisResultService analysisResultService;
+    private final AnalysisMetrics analysisMetrics;
 
     @Value("${kafka.topic.stats.calculated}")
     private String statsCalculatedTopic;
 
+    @Value("${app.plagiarism.minhash.shingle-size:5}")
+    private int shingleSize;
+
+    @Value("${app.analysis.content-access:HTTP}")
+    private ContentAccessMode contentAccessMode;
+
     @Transactional
     public void processFile(FileUploadedEvent event) {
+        Observation observation = analysisMetrics.startFile(event.getFileId());
+        FileOutcome outcome = FileOutcome.FAILED;
+        try (Observation.Scope scope = observation.openScope()) {
+            outcome = analyzeFile(event);
+        } catch (RuntimeException e) {
+            observation.error(e);
+            throw e;
+        } finally {
+            analysisMetrics.fileCompleted(observation, outcome);
+        }
+    }
+
+    private FileOutcome analyzeFile(FileUploadedEvent event) {
         String fileId = event.getFileId();
         log.info("Processing fileId: {}", fileId);
 
+        if (processDuplicate(event)) {
+            return FileOutcome.DUPLICATE;
+        }
+
         if (fileStatsRepository.existsByFileId(fileId)) {
             log.warn("Statistics for fileId {} already calculated. Skipping statistics calculation.", fileId);
-            try {
-                Resource resource = fileStorageClient.downloadFileAsResource(fileId);
-                String fileContent = resourceToString(resource);
-                plagiarismDetectionService.detectAndReportPlagiarism(fileId, fileContent);
-            } catch (IOException e) {
-                log.error("IOException while reprocessing file {} for plagiarism check: {}", fileId, e.getMessage(), e);
-                throw new AnalysisException("Failed to reprocess file for plagiarism check " + fileId, e);
-            }
-            return;
+            ContentScanner scanner = scanContent(event);
+            plagiarismDetectionService.detectAndReportPlagiarism(fileId, scanner);
+            return FileOutcome.SKIPPED;
         }
 
         try {
-            Resource resource = fileStorageClient.downloadFileAsResource(fileId);
-            String fileContent = resourceToString(resource);
-            log.debug("Successfully downloaded and read file content for fileId: {}", fileId);
+            ContentScanner scanner = scanContent(event);
+            log.debug("Successfully downloaded and scanned {} bytes for fileId: {}", scanner.getByteCount(), fileId);
 
-            FileStats stats = calculateStatistics(fileId, fileContent);
+            FileStats stats = toFileStats(fileId, scanner.getStatistics());
             fileStatsRepository.save(stats);
             log.info("Saved statistics for fileId: {}", fileId);
 
@@ -70,39 +107,246 @@ public class AnalysisService {
             kafkaTemplate.send(statsCalculatedTopic, fileId, statsEvent);
             log.info("Sent FileStatsCalculatedEvent to Kafka for fileId: {}", fileId);
 
-            plagiarismDetectionService.detectAndReportPlagiarism(fileId, fileContent);
+            PlagiarismCheckResultEvent plagiarismResult = analysisMetrics.observePlagiarismCheck(
+                    () -> plagiarismDetectionService.detectAndReportPlagiarism(fileId, scanner));
+            if (plagiarismResult != null) {
+                analysisResultService.cacheOnCommit(stats, plagiarismResult);
+            }
 
             log.info("Successfully processed fileId: {}", fileId);
+            return FileOutcome.ANALYZED;
 
-        } catch (IOException e) {
-            log.error("IOException while processing file {}: {}", fileId, e.getMessage(), e);
-            throw new AnalysisException("Failed to process file " + fileId, e);
+        } catch (AnalysisException | ExternalServiceException e) {
+            throw e;
         } catch (Exception e) {
             log.error("Unexpected error while processing file {}: {}", fileId, e.getMessage(), e);
             throw new AnalysisException("Unexpected error during file processing for " + fileId, e);
         }
     }
 
-    private FileStats calculateStatistics(String fileId, String content) {
-        int charCount = content.length();
-        int wordCount = content.isEmpty() ? 0 : content.trim().split("\\s+").length;
-        int paragraphCount = content.isEmpty() ? 0 : content.split("(\r\n|\r|\n){2,}|(^\n|\n$)|(^\r\n|\r\n$)").length;
-        if (!content.trim().isEmpty() && paragraphCount == 0) {
-            paragraphCount = 1;
+    /**
+     * Processes a poll batch: existence checks are done with one query per table, files are scanned in parallel
+     * on the analysis executor and all rows are written with batch inserts in a single transaction.
+     * Events are sent after the transaction has committed. A file that fails is logged and skipped without
+     * affecting the rest of the batch.
+     *
+     * @return the errors of the files that failed, by file id
+     */
+    public Map<String, RuntimeException> processBatch(List<FileUploadedEvent> events) {
+        Map<String, FileUploadedEvent> eventsByFileId = new LinkedHashMap<>();
+        for (FileUploadedEvent event : events) {
+            eventsByFileId.putIfAbsent(event.getFileId(), event);
         }
-        if (content.trim().isEmpty()) {
-            paragraphCount = 0;
-            wordCount = 0;
+        if (eventsByFileId.isEmpty()) {
+            return Map.of();
+        }
+        log.info("Processing batch of {} files", eventsByFileId.size());
+        analysisMetrics.batchStarted(eventsByFileId.size());
+        try {
+            return processEvents(eventsByFileId);
+        } finally {
+            analysisMetrics.batchCompleted(eventsByFileId.size());
         }
+    }
 
+    private Map<String, RuntimeException> processEvents(Map<String, FileUploadedEvent> eventsByFileId) {
 
-        log.debug("Calculated stats for fileId {}: Chars={}, Words={}, Paragraphs={}", fileId, charCount, wordCount, paragraphCount);
-        return new FileStats(fileId, paragraphCount, wordCount, charCount);
+        Set<String> analyzedFileIds = fileStatsRepository.findExistingFileIds(eventsByFileId.keySet());
+        Set<String> checkedFileIds = plagiarismDetectionService.findCheckedFileIds(eventsByFileId.keySet());
+
+        Map<String, CompletableFuture<ContentScanner>> scans = new LinkedHashMap<>();
+        Map<String, RuntimeException> failures = new LinkedHashMap<>();
+        eventsByFileId.forEach((fileId, event) -> {
+            if (analyzedFileIds.contains(fileId) && checkedFileIds.contains(fileId)) {
+                log.warn("FileId {} has already been analyzed. Skipping.", fileId);
+                return;
+            }
+            try {
+                if (Boolean.TRUE.equals(transactionTemplate.execute(status -> processDuplicate(event)))) {
+                    return;
+                }
+            } catch (RuntimeException e) {
+                log.error("Error processing fileId {} in batch: {}", fileId, e.getMessage(), e);
+                failures.put(fileId, e);
+                return;
+            }
+            scans.put(fileId, CompletableFuture.supplyAsync(() -> scanContent(event), analysisExecutor));
+        });
+
+        List<FileStats> newStats = new ArrayList<>();
+        Map<String, ContentScanner> newScans = new LinkedHashMap<>();
+        scans.forEach((fileId, scan) -> {
+            try {
+                ContentScanner scanner = scan.join();
+                if (!analyzedFileIds.contains(fileId)) {
+                    newStats.add(toFileStats(fileId, scanner.getStatistics()));
+                }
+                if (!checkedFileIds.contains(fileId)) {
+                    newScans.put(fileId, scanner);
+                }
+            } catch (CompletionException e) {
+                RuntimeException cause = e.getCause() instanceof RuntimeException runtime ? runtime : e;
+                log.error("Error processing fileId {} in batch: {}", fileId, cause.getMessage(), cause);
+                failures.put(fileId, cause);
+            } catch (RuntimeException e) {
+                log.error("Error processing fileId {} in batch: {}", fileId, e.getMessage(), e);
+                failures.put(fileId, e);
+            }
+        });
+
+        List<PlagiarismCheckResultEvent> plagiarismResults = transactionTemplate.execute(status -> {
+            fileStatsRepository.insertAll(newStats);
+            return plagiarismDetectionService.checkBatch(newScans);
+        });
+        log.info("Saved statistics for {} and hashes for {} files", newStats.size(), newScans.size());
+
+        for (FileStats stats : newStats) {
+            kafkaTemplate.send(statsCalculatedTopic, stats.getFileId(), new FileStatsCalculatedEvent(
+                    stats.getFileId(),
+                    stats.getParagraphCount(),
+                    stats.getWordCount(),
+                    stats.getCharCount()
+            ));
+        }
+        if (plagiarismResults != null) {
+            plagiarismResults.forEach(plagiarismDetectionService::publishResult);
+
+            Map<String, PlagiarismCheckResultEvent> resultsByFileId = new HashMap<>();
+            plagiarismResults.forEach(result -> resultsByFileId.put(result.getFileId(), result));
+            for (FileStats stats : newStats) {
+                PlagiarismCheckResultEvent result = resultsByFileId.get(stats.getFileId());
+                if (result != null) {
+                    analysisResultService.cacheOnCommit(stats, result);
+                }
+            }
+        }
+        log.info("Processed batch of {} files, {} failed", scans.size(), failures.size());
+        return failures;
     }
 
-    private String resourceToString(Resource resource) throws IOException {
-        try (Reader reader = new InputStreamReader(resource.getInputStream(), StandardCharsets.UTF_8)) {
-            return FileCopyUtils.copyToString(reader);
+    /**
+     * Reuses the results of an earlier file with the same content digest, announced by the storage service, so the
+     * content does not have to be read at all. Must be called within a transaction.
+     *
+     * @return {@code true} if the event has been fully handled
+     */
+    private boolean processDuplicate(FileUploadedEvent event) {
+        String fileId = event.getFileId();
+        byte[] digest = parseDigest(event);
+        if (digest == null) {
+            return false;
         }
+        Optional<String> matchedFileId = plagiarismDetectionService.findFirstFileWithDigest(digest)
+                .filter(matched -> !matched.equals(fileId));
+        Optional<FileStats> matchedStats = matchedFileId.flatMap(fileStatsRepository::findByFileId);
+        if (matchedStats.isEmpty()) {
+            return false;
+        }
+        log.info("FileId {} has the same content as fileId {}, reusing its results", fileId, matchedFileId.get());
+
+        FileStats stats = null;
+        if (!fileStatsRepository.existsByFileId(fileId)) {
+            FileStats source = matchedStats.get();
+            stats = fileStatsRepository.save(new FileStats(
+                    fileId, source.getParagraphCount(), source.getWordCount(), source.getCharCount()));
+            kafkaTemplate.send(statsCalculatedTopic, fileId, new FileStatsCalculatedEvent(
+                    fileId,
+                    stats.getParagraphCount(),
+                    stats.getWordCount(),
+                    stats.getCharCount()
+            ));
+        }
+        Optional<PlagiarismCheckResultEvent> plagiarismResult =
+                plagiarismDetectionService.recordExactDuplicate(fileId, digest, matchedFileId.get());
+        plagiarismResult.ifPresent(plagiarismDetectionService::publishResult);
+        if (stats != null && plagiarismResult.isPresent()) {
+            analysisResultService.cacheOnCommit(stats, plagiarismResult.get());
+        }
+        return true;
+    }
+
+    private byte[] parseDigest(FileUploadedEvent event) {
+        String contentDigest = event.getContentDigest();
+        if (contentDigest == null) {
+            return null;
+        }
+        try {
+            byte[] digest = new byte[32];
+            HexCodec.decode(contentDigest, digest);
+            return digest;
+        } catch (IllegalArgumentException e) {
+            log.warn("Ignoring invalid content digest for fileId {}: {}", event.getFileId(), e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Reads the file through a {@link ContentScanner}: memory-mapped from the shared volume when allowed and possible,
+     * otherwise streamed from the storage service. Either way only one chunk is held in memory at a time.
+     */
+    private ContentScanner scanContent(FileUploadedEvent event) {
+        return analysisMetrics.observeScan(() -> readAndScan(event));
+    }
+
+    private ContentScanner readAndScan(FileUploadedEvent event) {
+        String fileId = event.getFileId();
+        if (contentAccessMode == ContentAccessMode.LOCAL) {
+            Optional<Path> localPath = localFileContentReader.resolve(event.getStoragePath());
+            if (localPath.isPresent()) {
+                ContentScanner scanner = newScanner(fileId);
+                long start = System.nanoTime();
+                try {
+                    localFileContentReader.read(localPath.get(), scanner::update);
+                    log.debug("Read fileId {} from local path {}", fileId, localPath.get());
+                    scanner.complete();
+                    analysisMetrics.scanCompleted(scanner, "local", System.nanoTime() - start);
+                    return scanner;
+                } catch (IOException e) {
+                    log.warn("Could not read fileId {} from local path {}, falling back to HTTP: {}",
+                            fileId, localPath.get(), e.getMessage());
+                }
+            }
+        }
+        return downloadAndScan(fileId);
+    }
+
+    private ContentScanner downloadAndScan(String fileId) {
+        ContentScanner scanner = newScanner(fileId);
+        long start = System.nanoTime();
+        fileStorageClient.downloadFileContent(fileId)
+                .doOnNext(buffer -> {
+                    try (DataBuffer.ByteBufferIterator iterator = buffer.readableByteBuffers()) {
+                        while (iterator.hasNext()) {
+                            scanner.update(iterator.next());
+                        }
+                    } finally {
+                        DataBufferUtils.release(buffer);
+                    }
+                })
+                .doOnDiscard(DataBuffer.class, DataBufferUtils::release)
+                .then()
+                .block();
+
+        scanner.complete();
+        analysisMetrics.scanCompleted(scanner, "http", System.nanoTime() - start);
+        return scanner;
+    }
+
+    private ContentScanner newScanner(String fileId) {
+        try {
+            return new ContentScanner(PlagiarismDetectionService.HASH_ALGORITHM, shingleSize);
+        } catch (NoSuchAlgorithmException e) {
+            log.error("Algorithm {} not found for hashing fileId: {}", PlagiarismDetectionService.HASH_ALGORITHM, fileId, e);
+            throw new AnalysisException("Hash algorithm is not available for file " + fileId, e);
+        }
+    }
+
+    private FileStats toFileStats(String fileId, TextStatisticsCounter counter) {
+        int charCount = Math.toIntExact(counter.getCharCount());
+        int wordCount = Math.toIntExact(counter.getWordCount());
+        int paragraphCount = Math.toIntExact(counter.getParagraphCount());
+
+        log.debug("Calculated stats for fileId {}: Chars={}, Words={}, Paragraphs={}", fileId, charCount, wordCount, paragraphCount);
+        return new FileStats(fileId, paragraphCount, wordCount, charCount);
     }
 }
@@ -0,0 +1,15 @@
+package com.example.analyzer.service;
+
+/**
+ * Defines how the analyzer obtains file content.
+ */
+public enum ContentAccessMode {
+    /**
+     * Always download the file from the storage service.
+     */
+    HTTP,
+    /**
+     * Memory-map the file from a shared volume when it is readable locally, otherwise download it.
+     */
+    LOCAL
+}
@@ -0,0 +1,157 @@
+package com.example.analyzer.service;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Consumes raw file bytes chunk by chunk, feeding the message digest, the UTF-8 decoded text statistics and the
+ * MinHash sketch at the same time. Memory usage is bounded by the decode buffer, regardless of the file size.
+ * <p>
+ * Malformed input is replaced the same way {@link java.io.InputStreamReader} does it, so the statistics match
+ * the ones calculated from a fully decoded {@code String}. The digest is taken over the raw bytes, which is the
+ * same value as hashing the decoded text again for any well-formed UTF-8 file.
+ * <p>
+ * The time spent in each stage is accumulated per chunk, so it can be reported without timing every character.
+ */
+public class ContentScanner {
+
+    private static final int DECODE_BUFFER_SIZE = 8192;
+
+    private final MessageDigest digest;
+    private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    private final CharBuffer chars = CharBuffer.allocate(DECODE_BUFFER_SIZE);
+    // Holds the tail of a multi-byte sequence split between two chunks
+    private final ByteBuffer carry = ByteBuffer.allocate(8);
+    private final TextStatisticsCounter statistics = new TextStatisticsCounter();
+    private final MinHashSketcher sketcher;
+
+    private long byteCount;
+    private byte[] digestValue;
+
+    private long hashingNanos;
+    private long decodingNanos;
+    private long statisticsNanos;
+    private long sketchingNanos;
+
+    public ContentScanner(String digestAlgorithm, int shingleSize) throws NoSuchAlgorithmException {
+        this.digest = MessageDigest.getInstance(digestAlgorithm);
+        this.sketcher = new MinHashSketcher(shingleSize);
+    }
+
+    /**
+     * Consumes all remaining bytes of the given chunk.
+     */
+    public void update(ByteBuffer chunk) {
+        if (digestValue != null) {
+            throw new IllegalStateException("Scanner has already been completed");
+        }
+        byteCount += chunk.remaining();
+        long start = System.nanoTime();
+        digest.update(chunk.duplicate());
+        hashingNanos += System.nanoTime() - start;
+
+        while (carry.position() > 0 && chunk.hasRemaining()) {
+            carry.put(chunk.get());
+            carry.flip();
+            decode(carry, false);
+            carry.compact();
+        }
+
+        decode(chunk, false);
+        if (chunk.hasRemaining()) {
+            carry.put(chunk);
+        }
+    }
+
+    public ContentScanner complete() {
+        if (digestValue != null) {
+            return this;
+        }
+        carry.flip();
+        decode(carry, true);
+        carry.clear();
+        while (decoder.flush(chars).isOverflow()) {
+            drain();
+        }
+        drain();
+        statistics.finish();
+        long start = System.nanoTime();
+        sketcher.finish();
+        long sketched = System.nanoTime();
+        digestValue = digest.digest();
+        sketchingNanos += sketched - start;
+        hashingNanos += System.nanoTime() - sketched;
+        return this;
+    }
+
+    public TextStatisticsCounter getStatistics() {
+        return statistics;
+    }
+
+    public byte[] getDigest() {
+        return digestValue;
+    }
+
+    /**
+     * MinHash signature of the text, or {@code null} if it contains no words.
+     */
+    public long[] getSignature() {
+        return sketcher.getSignature();
+    }
+
+    public long getByteCount() {
+        return byteCount;
+    }
+
+    public long getHashingNanos() {
+        return hashingNanos;
+    }
+
+    public long getDecodingNanos() {
+        return decodingNanos;
+    }
+
+    public long getStatisticsNanos() {
+        return statisticsNanos;
+    }
+
+    public long getSketchingNanos() {
+        return sketchingNanos;
+    }
+
+    /**
+     * Total time spent processing the content, excluding the time spent waiting for it.
+     */
+    public long getProcessingNanos() {
+        return hashingNanos + decodingNanos + statisticsNanos + sketchingNanos;
+    }
+
+    private void decode(ByteBuffer in, boolean endOfInput) {
+        CoderResult result;
+        do {
+            long start = System.nanoTime();
+            result = decoder.decode(in, chars, endOfInput);
+            decodingNanos += System.nanoTime() - start;
+            drain();
+        } while (result.isOverflow());
+    }
+
+    private void drain() {
+        chars.flip();
+        long start = System.nanoTime();
+        sketcher.accept(chars.duplicate());
+        long sketched = System.nanoTime();
+        statistics.accept(chars);
+        sketchingNanos += sketched - start;
+        statisticsNanos += System.nanoTime() - sketched;
+        chars.clear();
+    }
+}
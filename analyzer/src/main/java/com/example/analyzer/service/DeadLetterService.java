@@ -0,0 +1,210 @@
+package com.example.analyzer.service;
+
+import com.example.analyzer.dto.DeadLetterReplayResultDTO;
+import com.example.analyzer.dto.DeadLetterStatusDTO;
+import com.example.analyzer.dto.event.FileUploadedEvent;
+import com.example.analyzer.exception.ExternalServiceException;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.log.LogAccessor;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+import org.springframework.kafka.support.serializer.DeserializationException;
+import org.springframework.kafka.support.serializer.SerializationUtils;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Dead letter topic of {@code files.uploaded}: files that could not be analyzed are kept there instead of being
+ * dropped, and can be sent back to {@code files.uploaded} in bulk once the cause has been fixed.
+ * <p>
+ * In {@code RECORD} mode records get there through the retry topics, in {@code BATCH} mode through the container
+ * error handler using {@link #getRecoverer()}, and the worker pool publishes them with
+ * {@link #publish(ConsumerRecord, Exception)} once its own retries are exhausted. Records that could not be
+ * deserialized are kept with their original bytes.
+ * <p>
+ * Replay progress is tracked by the committed offsets of a dedicated consumer group, so every record is replayed
+ * once even over several calls. Only records that were in the topic when a replay started are replayed, which keeps
+ * a file that fails again from looping within one replay.
+ */
+@Service
+@Slf4j
+public class DeadLetterService {
+
+    public static final String DLT_SUFFIX = "-dlt";
+
+    // Headers describing a previous failure or delivery; the replayed record starts afresh
+    private static final List<String> DROPPED_HEADER_PREFIXES = List.of(
+            "kafka_dlt-", "retry_topic-", "traceparent", "tracestate", "b3");
+
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final DeadLetterPublishingRecoverer recoverer;
+    private final String filesUploadedTopic;
+    private final String deadLetterTopic;
+
+    @Value("${spring.kafka.bootstrap-servers}")
+    private String bootstrapServers;
+
+    @Value("${spring.kafka.consumer.group-id}")
+    private String groupId;
+
+    @Value("${app.analysis.dead-letters.replay-timeout:60s}")
+    private Duration replayTimeout;
+
+    public DeadLetterService(KafkaTemplate<String, Object> kafkaTemplate,
+                             @Value("${kafka.topic.files.uploaded}") String filesUploadedTopic) {
+        this.kafkaTemplate = kafkaTemplate;
+        this.filesUploadedTopic = filesUploadedTopic;
+        this.deadLetterTopic = filesUploadedTopic + DLT_SUFFIX;
+        // Same headers and raw value handling as the dead letters of the retry topics
+        this.recoverer = new DeadLetterPublishingRecoverer(kafkaTemplate,
+                (record, e) -> new TopicPartition(deadLetterTopic, -1));
+    }
+
+    /**
+     * Publishes a record that failed to be processed, waiting for the send to complete.
+     */
+    public void publish(ConsumerRecord<String, FileUploadedEvent> record, Exception cause) {
+        log.warn("Moving record with key {} from {}-{}@{} to {}: {}",
+                record.key(), record.topic(), record.partition(), record.offset(), deadLetterTopic, cause.getMessage());
+        recoverer.accept(record, cause);
+    }
+
+    /**
+     * The error that left the record without a value; the recoverer publishes the original bytes it carries.
+     */
+    public static RuntimeException deserializationError(ConsumerRecord<?, ?> record) {
+        DeserializationException error = SerializationUtils.getExceptionFromHeader(record,
+                SerializationUtils.VALUE_DESERIALIZER_EXCEPTION_HEADER, new LogAccessor(DeadLetterService.class));
+        return error != null ? error : new IllegalStateException("Record has no value");
+    }
+
+    public DeadLetterPublishingRecoverer getRecoverer() {
+        return recoverer;
+    }
+
+    public DeadLetterStatusDTO getStatus() {
+        try (KafkaConsumer<String, byte[]> consumer = replayConsumer()) {
+            List<TopicPartition> partitions = assignAll(consumer);
+            return new DeadLetterStatusDTO(deadLetterTopic, countPending(consumer, partitions));
+        }
+    }
+
+    /**
+     * Sends up to {@code maxRecords} dead letters back to {@code files.uploaded}, oldest first per partition, with
+     * their original key, value and headers. Offsets are committed only after all sends have been acknowledged,
+     * so a failed replay is repeated in full by the next call.
+     */
+    public synchronized DeadLetterReplayResultDTO replay(int maxRecords) {
+        try (KafkaConsumer<String, byte[]> consumer = replayConsumer()) {
+            List<TopicPartition> partitions = assignAll(consumer);
+            Map<TopicPartition, Long> endOffsets = consumer.endOffsets(partitions);
+
+            List<CompletableFuture<?>> sends = new ArrayList<>();
+            Map<TopicPartition, OffsetAndMetadata> replayedOffsets = new HashMap<>();
+            long deadline = System.nanoTime() + replayTimeout.toNanos();
+            while (sends.size() < maxRecords && hasRemaining(consumer, partitions, endOffsets)
+                    && System.nanoTime() - deadline < 0) {
+                for (ConsumerRecord<String, byte[]> record : consumer.poll(Duration.ofMillis(500))) {
+                    TopicPartition partition = new TopicPartition(record.topic(), record.partition());
+                    if (sends.size() >= maxRecords || record.offset() >= endOffsets.get(partition)) {
+                        continue;
+                    }
+                    sends.add(kafkaTemplate.send(new ProducerRecord<>(filesUploadedTopic, null, record.key(),
+                            record.value(), replayHeaders(record))));
+                    replayedOffsets.put(partition, new OffsetAndMetadata(record.offset() + 1));
+                }
+            }
+
+            CompletableFuture.allOf(sends.toArray(CompletableFuture[]::new))
+                    .get(replayTimeout.toMillis(), TimeUnit.MILLISECONDS);
+            consumer.commitSync(replayedOffsets);
+            log.info("Replayed {} records from {} to {}", sends.size(), deadLetterTopic, filesUploadedTopic);
+            return new DeadLetterReplayResultDTO(deadLetterTopic, sends.size(), countPending(consumer, partitions));
+        } catch (ExecutionException | TimeoutException e) {
+            throw new ExternalServiceException("Could not replay records from " + deadLetterTopic + ": " + e.getMessage(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ExternalServiceException("Interrupted while replaying records from " + deadLetterTopic, e);
+        }
+    }
+
+    private KafkaConsumer<String, byte[]> replayConsumer() {
+        Map<String, Object> props = new HashMap<>();
+        props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        props.put(ConsumerConfig.GROUP_ID_CONFIG, groupId + "-dlt-replay");
+        props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        return new KafkaConsumer<>(props, new StringDeserializer(), new ByteArrayDeserializer());
+    }
+
+    // Assigned rather than subscribed: no rebalance to wait for, and the group only serves to store offsets
+    private List<TopicPartition> assignAll(KafkaConsumer<String, byte[]> consumer) {
+        List<TopicPartition> partitions = new ArrayList<>();
+        List<PartitionInfo> partitionInfos = consumer.partitionsFor(deadLetterTopic);
+        if (partitionInfos != null) {
+            for (PartitionInfo partitionInfo : partitionInfos) {
+                partitions.add(new TopicPartition(partitionInfo.topic(), partitionInfo.partition()));
+            }
+        }
+        consumer.assign(partitions);
+        return partitions;
+    }
+
+    private boolean hasRemaining(KafkaConsumer<String, byte[]> consumer, List<TopicPartition> partitions,
+                                 Map<TopicPartition, Long> endOffsets) {
+        for (TopicPartition partition : partitions) {
+            if (consumer.position(partition) < endOffsets.get(partition)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private long countPending(KafkaConsumer<String, byte[]> consumer, List<TopicPartition> partitions) {
+        if (partitions.isEmpty()) {
+            return 0;
+        }
+        Map<TopicPartition, Long> beginningOffsets = consumer.beginningOffsets(partitions);
+        Map<TopicPartition, Long> endOffsets = consumer.endOffsets(partitions);
+        Map<TopicPartition, OffsetAndMetadata> committed = consumer.committed(Set.copyOf(partitions));
+        long pending = 0;
+        for (TopicPartition partition : partitions) {
+            OffsetAndMetadata offset = committed.get(partition);
+            long from = Math.max(beginningOffsets.get(partition), offset != null ? offset.offset() : 0);
+            pending += Math.max(0, endOffsets.get(partition) - from);
+        }
+        return pending;
+    }
+
+    private static RecordHeaders replayHeaders(ConsumerRecord<String, byte[]> record) {
+        RecordHeaders headers = new RecordHeaders();
+        for (Header header : record.headers()) {
+            if (DROPPED_HEADER_PREFIXES.stream().noneMatch(header.key()::startsWith)) {
+                headers.add(header);
+            }
+        }
+        return headers;
+    }
+}
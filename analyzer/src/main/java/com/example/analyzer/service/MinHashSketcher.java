@@ -0,0 +1,186 @@
+package com.example.analyzer.service;
+
+import java.nio.CharBuffer;
+import java.util.Arrays;
+
+/**
+ * Streaming MinHash sketch of the word shingles of a text.
+ * <p>
+ * Words are maximal runs of letters and digits (by code point, so characters outside the BMP count as well),
+ * compared case-insensitively, so formatting and punctuation changes
+ * do not affect the sketch. Every shingle of {@code shingleSize} consecutive words is hashed once and placed into one
+ * of {@link #SIGNATURE_SIZE} bins (one-permutation hashing), which keeps the cost per word constant; empty bins are
+ * filled afterwards by densification. The share of equal bins of two signatures estimates the Jaccard similarity of
+ * their shingle sets.
+ * <p>
+ * Signatures are split into {@link #BAND_COUNT} bands of {@link #ROWS_PER_BAND} values for the LSH index. These
+ * constants and the shingle size are part of the stored data format, see {@link SimilarityIndexParametersCheck}.
+ */
+public class MinHashSketcher {
+
+    public static final int SIGNATURE_SIZE = 128;
+    public static final int BAND_COUNT = 32;
+    public static final int ROWS_PER_BAND = SIGNATURE_SIZE / BAND_COUNT;
+
+    private static final int BIN_BITS = 7;
+    private static final long VALUE_MASK = (1L << (64 - BIN_BITS)) - 1;
+    private static final long EMPTY = Long.MAX_VALUE;
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final int shingleSize;
+    private final long[] window;
+    private final long[] bins = new long[SIGNATURE_SIZE];
+
+    private long wordCount;
+    private long currentWord = FNV_OFFSET;
+    private boolean inWord;
+    // High surrogate at the end of the previous chunk, 0 if none
+    private char pendingHighSurrogate;
+    private long[] signature;
+
+    public MinHashSketcher(int shingleSize) {
+        if (shingleSize < 1) {
+            throw new IllegalArgumentException("Shingle size must be positive: " + shingleSize);
+        }
+        this.shingleSize = shingleSize;
+        this.window = new long[shingleSize];
+        Arrays.fill(bins, EMPTY);
+    }
+
+    public void accept(CharBuffer chunk) {
+        for (int i = chunk.position(); i < chunk.limit(); i++) {
+            char c = chunk.get(i);
+            if (pendingHighSurrogate != 0) {
+                char high = pendingHighSurrogate;
+                pendingHighSurrogate = 0;
+                if (Character.isLowSurrogate(c)) {
+                    acceptCodePoint(Character.toCodePoint(high, c));
+                    continue;
+                }
+                acceptCodePoint(high);
+            }
+            if (Character.isHighSurrogate(c)) {
+                pendingHighSurrogate = c;
+            } else {
+                acceptCodePoint(c);
+            }
+        }
+        chunk.position(chunk.limit());
+    }
+
+    /**
+     * Completes the sketch. Texts shorter than one shingle are sketched as a single shingle of all their words.
+     *
+     * @return the signature, or {@code null} if the text contains no words
+     */
+    public long[] finish() {
+        if (pendingHighSurrogate != 0) {
+            acceptCodePoint(pendingHighSurrogate);
+            pendingHighSurrogate = 0;
+        }
+        if (signature != null || wordCount == 0 && !inWord) {
+            return signature;
+        }
+        if (inWord) {
+            endWord();
+        }
+        if (wordCount < shingleSize) {
+            addShingle((int) wordCount);
+        }
+        densify();
+        signature = bins.clone();
+        return signature;
+    }
+
+    public long[] getSignature() {
+        return signature;
+    }
+
+    /**
+     * Estimated Jaccard similarity of the two shingle sets, between 0 and 1.
+     */
+    public static double similarity(long[] a, long[] b) {
+        int equal = 0;
+        for (int i = 0; i < SIGNATURE_SIZE; i++) {
+            if (a[i] == b[i]) {
+                equal++;
+            }
+        }
+        return (double) equal / SIGNATURE_SIZE;
+    }
+
+    /**
+     * LSH band keys of a signature. The band number is mixed into the key, so keys of different bands never collide.
+     */
+    public static long[] bandHashes(long[] signature) {
+        long[] hashes = new long[BAND_COUNT];
+        for (int band = 0; band < BAND_COUNT; band++) {
+            long hash = mix(band + 1L);
+            for (int row = 0; row < ROWS_PER_BAND; row++) {
+                hash = mix(hash ^ signature[band * ROWS_PER_BAND + row]);
+            }
+            hashes[band] = hash;
+        }
+        return hashes;
+    }
+
+    private void acceptCodePoint(int codePoint) {
+        if (Character.isLetterOrDigit(codePoint)) {
+            currentWord = (currentWord ^ Character.toLowerCase(codePoint)) * FNV_PRIME;
+            inWord = true;
+        } else if (inWord) {
+            endWord();
+        }
+    }
+
+    private void endWord() {
+        window[(int) (wordCount % shingleSize)] = mix(currentWord);
+        wordCount++;
+        currentWord = FNV_OFFSET;
+        inWord = false;
+        if (wordCount >= shingleSize) {
+            addShingle(shingleSize);
+        }
+    }
+
+    private void addShingle(int length) {
+        long hash = 0;
+        // Oldest word first, so the shingle hash depends on word order
+        for (int i = 0; i < length; i++) {
+            long word = window[(int) ((wordCount - length + i) % shingleSize)];
+            hash = mix(hash + word);
+        }
+        int bin = (int) (hash >>> (64 - BIN_BITS));
+        long value = hash & VALUE_MASK;
+        if (value < bins[bin]) {
+            bins[bin] = value;
+        }
+    }
+
+    /**
+     * Fills empty bins from pseudo-randomly chosen non-empty ones (optimal densification), which keeps the
+     * estimator unbiased for short texts that do not reach every bin.
+     */
+    private void densify() {
+        long[] original = bins.clone();
+        for (int bin = 0; bin < SIGNATURE_SIZE; bin++) {
+            if (original[bin] != EMPTY) {
+                continue;
+            }
+            long state = bin + 0x9e3779b97f4a7c15L;
+            int donor;
+            do {
+                state = mix(state);
+                donor = (int) (state >>> (64 - BIN_BITS));
+            } while (original[donor] == EMPTY);
+            bins[bin] = original[donor];
+        }
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -2,6 +2,7 @@ package com.example.analyzer.service;
 
 import com.example.analyzer.dto.event.PlagiarismCheckResultEvent;
 import com.example.analyzer.entity.FileHash;
+import com.example.analyzer.index.FileHashIndex;
 import com.example.analyzer.repository.FileHashRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -10,10 +11,15 @@ import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.nio.charset.StandardCharsets;
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 
 @Service
 @RequiredArgsConstructor
@@ -22,73 +28,176 @@ public class PlagiarismDetectionService {
 
     private final FileHashRepository fileHashRepository;
     private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final SimilarityIndexService similarityIndexService;
+    private final FileHashIndex fileHashIndex;
 
     @Value("${kafka.topic.plagiarism.checked}")
     private String plagiarismCheckedTopic;
 
-    private static final String HASH_ALGORITHM = "SHA-256";
+    // Estimated Jaccard similarity of word shingles from which a file counts as plagiarized
+    @Value("${app.plagiarism.minhash.similarity-threshold:0.8}")
+    private double similarityThreshold;
 
+    static final String HASH_ALGORITHM = "SHA-256";
+
+    /**
+     * @return the published result, or {@code null} if the file had already been checked
+     */
     @Transactional
-    public void detectAndReportPlagiarism(String fileId, String fileContent) {
+    public PlagiarismCheckResultEvent detectAndReportPlagiarism(String fileId, ContentScanner scan) {
         log.info("Starting plagiarism detection for fileId: {}", fileId);
 
-        String currentFileHash;
-        try {
-            currentFileHash = calculateHash(fileContent);
-        } catch (NoSuchAlgorithmException e) {
-            log.error("Algorithm {} not found for hashing fileId: {}", HASH_ALGORITHM, fileId, e);
-            return;
+        if (isChecked(fileId)) {
+            log.warn("Plagiarism check for fileId {} already performed. Skipping.", fileId);
+            return null;
         }
 
-        if (fileHashRepository.existsByFileId(fileId)) {
+        String exactMatchFileId = findFirstFileWithDigest(scan.getDigest())
+                .filter(matched -> !matched.equals(fileId))
+                .orElse(null);
+
+        Map<String, long[]> signatures = signatureOf(fileId, scan);
+        SimilarityIndexService.Match nearestMatch = exactMatchFileId == null && !signatures.isEmpty()
+                ? similarityIndexService.findMostSimilar(signatures).get(fileId)
+                : null;
+
+        PlagiarismCheckResultEvent result = toResult(fileId, exactMatchFileId, nearestMatch);
+        fileHashRepository.save(newFileHash(scan.getDigest(), result));
+        fileHashIndex.add(fileId, scan.getDigest());
+        similarityIndexService.index(signatures);
+        log.debug("Saved hash for fileId: {}", fileId);
+
+        publishResult(result);
+        return result;
+    }
+
+    /**
+     * Records a file that is known to have the same content as an already checked one, without scanning it.
+     *
+     * @return the result to publish, or empty if the file has already been checked
+     */
+    @Transactional
+    public Optional<PlagiarismCheckResultEvent> recordExactDuplicate(String fileId, byte[] digest, String matchedFileId) {
+        if (isChecked(fileId)) {
             log.warn("Plagiarism check for fileId {} already performed. Skipping.", fileId);
-            return;
+            return Optional.empty();
         }
+        PlagiarismCheckResultEvent result = toResult(fileId, matchedFileId, null);
+        fileHashRepository.save(newFileHash(digest, result));
+        fileHashIndex.add(fileId, digest);
+        return Optional.of(result);
+    }
 
+    @Transactional(readOnly = true)
+    public Set<String> findCheckedFileIds(Collection<String> fileIds) {
+        if (fileHashIndex.isReady()) {
+            List<String> maybeChecked = fileIds.stream().filter(fileHashIndex::mightContainFileId).toList();
+            return maybeChecked.isEmpty() ? Set.of() : fileHashRepository.findExistingFileIds(maybeChecked);
+        }
+        return fileHashRepository.findExistingFileIds(fileIds);
+    }
 
-        List<FileHash> duplicateHashes = fileHashRepository.findByHashAlgorithmAndHashValue(HASH_ALGORITHM, currentFileHash);
+    /**
+     * Checks a batch of files with a single exact duplicate lookup and a single near-duplicate lookup, and stores
+     * their hashes and signatures with batch inserts. Files within the batch are compared with the ones that come
+     * before them. Results are returned rather than published, so the caller can send them once the surrounding
+     * transaction has committed.
+     *
+     * @param scansByFileId completed scans of files that have not been checked yet, in processing order
+     */
+    @Transactional
+    public List<PlagiarismCheckResultEvent> checkBatch(Map<String, ContentScanner> scansByFileId) {
+        if (scansByFileId.isEmpty()) {
+            return List.of();
+        }
 
-        boolean isPlagiarized = false;
-        String matchedFileId = null;
+        Map<String, long[]> signatures = new LinkedHashMap<>();
+        scansByFileId.forEach((fileId, scan) -> signatures.putAll(signatureOf(fileId, scan)));
+
+        // ByteBuffer keys compare the digest contents
+        Map<ByteBuffer, String> firstFileIdByDigest = new HashMap<>();
+        if (fileHashIndex.isReady()) {
+            scansByFileId.values().forEach(scan -> fileHashIndex.findFileId(scan.getDigest())
+                    .ifPresent(matched -> firstFileIdByDigest.putIfAbsent(ByteBuffer.wrap(scan.getDigest()), matched)));
+        } else {
+            List<byte[]> digests = scansByFileId.values().stream().map(ContentScanner::getDigest).toList();
+            for (FileHash existing : fileHashRepository.findByHashAlgorithmAndDigestInOrderByIdAsc(HASH_ALGORITHM, digests)) {
+                firstFileIdByDigest.putIfAbsent(ByteBuffer.wrap(existing.getDigest()), existing.getFileId());
+            }
+        }
 
-        if (!duplicateHashes.isEmpty()) {
-            FileHash firstDuplicate = duplicateHashes.get(0);
-            if (!firstDuplicate.getFileId().equals(fileId)) {
-                isPlagiarized = true;
-                matchedFileId = firstDuplicate.getFileId();
-                log.info("Plagiarism detected for fileId: {}. Matches with fileId: {}", fileId, matchedFileId);
+        Map<String, SimilarityIndexService.Match> nearestMatches = similarityIndexService.findMostSimilar(signatures);
+
+        List<FileHash> newHashes = new ArrayList<>(scansByFileId.size());
+        List<PlagiarismCheckResultEvent> results = new ArrayList<>(scansByFileId.size());
+        for (Map.Entry<String, ContentScanner> entry : scansByFileId.entrySet()) {
+            String fileId = entry.getKey();
+            byte[] digest = entry.getValue().getDigest();
+            String exactMatchFileId = firstFileIdByDigest.putIfAbsent(ByteBuffer.wrap(digest), fileId);
+            if (fileId.equals(exactMatchFileId)) {
+                exactMatchFileId = null;
             }
+            PlagiarismCheckResultEvent result = toResult(fileId, exactMatchFileId, nearestMatches.get(fileId));
+            newHashes.add(newFileHash(digest, result));
+            results.add(result);
         }
 
-        FileHash newFileHash = new FileHash(fileId, HASH_ALGORITHM, currentFileHash);
-        fileHashRepository.save(newFileHash);
-        log.debug("Saved hash for fileId: {}", fileId);
+        fileHashRepository.insertAll(newHashes);
+        scansByFileId.forEach((fileId, scan) -> fileHashIndex.add(fileId, scan.getDigest()));
+        similarityIndexService.index(signatures);
+        log.debug("Saved {} hashes", newHashes.size());
+        return results;
+    }
 
-        PlagiarismCheckResultEvent event = new PlagiarismCheckResultEvent(
-                fileId,
-                isPlagiarized,
-                matchedFileId,
-                isPlagiarized ? 100.0 : 0.0
-        );
-        kafkaTemplate.send(plagiarismCheckedTopic, fileId, event);
-        log.info("Sent PlagiarismCheckResultEvent to Kafka for fileId: {}, isPlagiarized: {}", fileId, isPlagiarized);
+    public void publishResult(PlagiarismCheckResultEvent event) {
+        kafkaTemplate.send(plagiarismCheckedTopic, event.getFileId(), event);
+        log.info("Sent PlagiarismCheckResultEvent to Kafka for fileId: {}, isPlagiarized: {}", event.getFileId(), event.isPlagiarized());
     }
 
-    private String calculateHash(String content) throws NoSuchAlgorithmException {
-        MessageDigest digest = MessageDigest.getInstance(HASH_ALGORITHM);
-        byte[] encodedhash = digest.digest(content.getBytes(StandardCharsets.UTF_8));
-        return bytesToHex(encodedhash);
+    private boolean isChecked(String fileId) {
+        if (fileHashIndex.isReady() && !fileHashIndex.mightContainFileId(fileId)) {
+            return false;
+        }
+        return fileHashRepository.existsByFileId(fileId);
     }
 
-    private static String bytesToHex(byte[] hash) {
-        StringBuilder hexString = new StringBuilder(2 * hash.length);
-        for (byte b : hash) {
-            String hex = Integer.toHexString(0xff & b);
-            if (hex.length() == 1) {
-                hexString.append('0');
-            }
-            hexString.append(hex);
+    @Transactional(readOnly = true)
+    public Optional<String> findFirstFileWithDigest(byte[] digest) {
+        if (fileHashIndex.isReady()) {
+            return fileHashIndex.findFileId(digest);
         }
-        return hexString.toString();
+        return fileHashRepository.findFirstByHashAlgorithmAndDigestOrderByIdAsc(HASH_ALGORITHM, digest)
+                .map(FileHash::getFileId);
+    }
+
+    private static FileHash newFileHash(byte[] digest, PlagiarismCheckResultEvent result) {
+        FileHash fileHash = new FileHash(result.getFileId(), HASH_ALGORITHM, digest);
+        fileHash.setPlagiarized(result.isPlagiarized());
+        fileHash.setMatchedFileId(result.getMatchedFileId());
+        fileHash.setSimilarityPercentage(result.getSimilarityPercentage());
+        return fileHash;
+    }
+
+    private PlagiarismCheckResultEvent toResult(String fileId, String exactMatchFileId,
+                                                SimilarityIndexService.Match nearestMatch) {
+        if (exactMatchFileId != null) {
+            log.info("Plagiarism detected for fileId: {}. Matches with fileId: {}", fileId, exactMatchFileId);
+            return new PlagiarismCheckResultEvent(fileId, true, exactMatchFileId, 100.0);
+        }
+        if (nearestMatch == null) {
+            return new PlagiarismCheckResultEvent(fileId, false, null, 0.0);
+        }
+
+        double similarityPercentage = Math.round(nearestMatch.getSimilarity() * 10000) / 100.0;
+        if (nearestMatch.getSimilarity() >= similarityThreshold) {
+            log.info("Plagiarism detected for fileId: {}. Similar to fileId: {} ({}%)",
+                    fileId, nearestMatch.getFileId(), similarityPercentage);
+            return new PlagiarismCheckResultEvent(fileId, true, nearestMatch.getFileId(), similarityPercentage);
+        }
+        return new PlagiarismCheckResultEvent(fileId, false, null, similarityPercentage);
+    }
+
+    private static Map<String, long[]> signatureOf(String fileId, ContentScanner scan) {
+        return scan.getSignature() != null ? Map.of(fileId, scan.getSignature()) : Map.of();
     }
 }
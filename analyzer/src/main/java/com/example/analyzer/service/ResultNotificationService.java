@@ -0,0 +1,194 @@
+package com.example.analyzer.service;
+
+import com.example.analyzer.dto.FileAnalysisResultDTO;
+import com.example.analyzer.dto.event.FileStatsCalculatedEvent;
+import com.example.analyzer.dto.event.PlagiarismCheckResultEvent;
+import com.example.analyzer.exception.BadRequestException;
+import com.example.analyzer.exception.SubscriptionLimitExceededException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Pushes analysis results to clients over Server-Sent Events.
+ * <p>
+ * A client subscribes to a set of files and first receives a {@code result} event for every file that already has
+ * results, then {@code stats} and {@code plagiarism} events as they are produced. The stream is completed once both
+ * parts are known for all subscribed files. The subscription is registered before the current results are read,
+ * so a result produced in between is delivered at least once rather than lost.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ResultNotificationService {
+
+    private final AnalysisResultService analysisResultService;
+
+    private final Set<Subscription> subscriptions = ConcurrentHashMap.newKeySet();
+    private final Map<String, Set<Subscription>> subscriptionsByFileId = new ConcurrentHashMap<>();
+
+    @Value("${app.analysis.notifications.max-subscriptions:10000}")
+    private int maxSubscriptions;
+
+    @Value("${app.analysis.results.max-batch-size:500}")
+    private int maxFilesPerSubscription;
+
+    @Value("${app.analysis.notifications.timeout:30m}")
+    private Duration timeout;
+
+    public SseEmitter subscribe(Collection<String> fileIds) {
+        Set<String> uniqueFileIds = new LinkedHashSet<>(fileIds);
+        if (uniqueFileIds.isEmpty()) {
+            throw new BadRequestException("At least one file id is required");
+        }
+        if (uniqueFileIds.size() > maxFilesPerSubscription) {
+            throw new BadRequestException("At most " + maxFilesPerSubscription + " files can be watched at once");
+        }
+        if (subscriptions.size() >= maxSubscriptions) {
+            throw new SubscriptionLimitExceededException("Too many open result streams, retry later");
+        }
+
+        Subscription subscription = new Subscription(new SseEmitter(timeout.toMillis()), uniqueFileIds);
+        subscription.emitter.onCompletion(() -> unregister(subscription));
+        subscription.emitter.onTimeout(() -> unregister(subscription));
+        subscription.emitter.onError(e -> unregister(subscription));
+        register(subscription);
+
+        for (FileAnalysisResultDTO result : analysisResultService.getResults(uniqueFileIds)) {
+            if (result.getParagraphCount() != null) {
+                subscription.statsReceived(result.getFileId());
+            }
+            if (result.getIsPlagiarized() != null) {
+                subscription.plagiarismReceived(result.getFileId());
+            }
+            subscription.send("result", result);
+        }
+        subscription.completeIfDone();
+        log.debug("Opened result stream for {} files, {} streams open", uniqueFileIds.size(), subscriptions.size());
+        return subscription.emitter;
+    }
+
+    public void onStatsCalculated(FileStatsCalculatedEvent event) {
+        for (Subscription subscription : subscriptionsFor(event.getFileId())) {
+            subscription.statsReceived(event.getFileId());
+            subscription.send("stats", event);
+            subscription.completeIfDone();
+        }
+    }
+
+    public void onPlagiarismChecked(PlagiarismCheckResultEvent event) {
+        for (Subscription subscription : subscriptionsFor(event.getFileId())) {
+            subscription.plagiarismReceived(event.getFileId());
+            subscription.send("plagiarism", event);
+            subscription.completeIfDone();
+        }
+    }
+
+    /**
+     * Keeps idle streams from being closed by proxies and detects clients that have gone away.
+     */
+    @Scheduled(fixedDelayString = "${app.analysis.notifications.heartbeat-interval-ms:15000}")
+    public void sendHeartbeats() {
+        for (Subscription subscription : subscriptions) {
+            subscription.heartbeat();
+        }
+    }
+
+    private Set<Subscription> subscriptionsFor(String fileId) {
+        Set<Subscription> subscribed = subscriptionsByFileId.get(fileId);
+        return subscribed != null ? subscribed : Set.of();
+    }
+
+    private void register(Subscription subscription) {
+        subscriptions.add(subscription);
+        for (String fileId : subscription.fileIds) {
+            subscriptionsByFileId.computeIfAbsent(fileId, key -> ConcurrentHashMap.newKeySet()).add(subscription);
+        }
+    }
+
+    private void unregister(Subscription subscription) {
+        if (!subscriptions.remove(subscription)) {
+            return;
+        }
+        for (String fileId : subscription.fileIds) {
+            subscriptionsByFileId.computeIfPresent(fileId, (key, subscribed) -> {
+                subscribed.remove(subscription);
+                return subscribed.isEmpty() ? null : subscribed;
+            });
+        }
+    }
+
+    private final class Subscription {
+
+        private final SseEmitter emitter;
+        private final Set<String> fileIds;
+        private final Set<String> pendingStats;
+        private final Set<String> pendingPlagiarism;
+        private boolean closed;
+
+        private Subscription(SseEmitter emitter, Set<String> fileIds) {
+            this.emitter = emitter;
+            this.fileIds = fileIds;
+            this.pendingStats = new HashSet<>(fileIds);
+            this.pendingPlagiarism = new HashSet<>(fileIds);
+        }
+
+        private synchronized void statsReceived(String fileId) {
+            pendingStats.remove(fileId);
+        }
+
+        private synchronized void plagiarismReceived(String fileId) {
+            pendingPlagiarism.remove(fileId);
+        }
+
+        private synchronized void send(String name, Object data) {
+            if (closed) {
+                return;
+            }
+            try {
+                emitter.send(SseEmitter.event().name(name).data(data, MediaType.APPLICATION_JSON));
+            } catch (IOException | IllegalStateException e) {
+                close(e);
+            }
+        }
+
+        private synchronized void heartbeat() {
+            if (closed) {
+                return;
+            }
+            try {
+                emitter.send(SseEmitter.event().comment("heartbeat"));
+            } catch (IOException | IllegalStateException e) {
+                close(e);
+            }
+        }
+
+        private synchronized void completeIfDone() {
+            if (!closed && pendingStats.isEmpty() && pendingPlagiarism.isEmpty()) {
+                closed = true;
+                emitter.complete();
+                unregister(this);
+            }
+        }
+
+        private void close(Exception cause) {
+            log.debug("Closing result stream: {}", cause.getMessage());
+            closed = true;
+            emitter.completeWithError(cause);
+            unregister(this);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.analyzer.service;
+
+import com.example.analyzer.entity.SimilarityIndexParameters;
+import com.example.analyzer.repository.SimilarityIndexParametersRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Makes sure the similarity index is only ever queried with signatures computed the way the stored ones were.
+ * The parameters are recorded on first start; when the configured shingle size (or the sketch constants) differ
+ * from them later, startup fails instead of silently finding no near duplicates anymore.
+ * <p>
+ * Signatures cannot be recomputed without reading every file again, so with
+ * {@code app.plagiarism.minhash.reset-index-on-change=true} the index is emptied instead and filled again by new
+ * files; exact duplicates are still detected through the file hashes.
+ */
+@Component
+@Slf4j
+public class SimilarityIndexParametersCheck implements SmartInitializingSingleton {
+
+    private final SimilarityIndexParametersRepository parametersRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final SimilarityIndexParameters configured;
+    private final boolean resetOnChange;
+
+    public SimilarityIndexParametersCheck(SimilarityIndexParametersRepository parametersRepository,
+                                          JdbcTemplate jdbcTemplate,
+                                          TransactionTemplate transactionTemplate,
+                                          @Value("${app.plagiarism.minhash.shingle-size:5}") int shingleSize,
+                                          @Value("${app.plagiarism.minhash.reset-index-on-change:false}") boolean resetOnChange) {
+        this.parametersRepository = parametersRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.configured = new SimilarityIndexParameters(shingleSize, MinHashSketcher.SIGNATURE_SIZE, MinHashSketcher.BAND_COUNT);
+        this.resetOnChange = resetOnChange;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        transactionTemplate.executeWithoutResult(status -> {
+            // An index from before the parameters were recorded is assumed to match the configuration
+            SimilarityIndexParameters stored = parametersRepository.findById(SimilarityIndexParameters.SINGLETON_ID)
+                    .orElse(null);
+            if (stored == null) {
+                parametersRepository.save(configured);
+                return;
+            }
+            if (stored.matches(configured)) {
+                return;
+            }
+            if (!resetOnChange) {
+                throw new IllegalStateException("Similarity index was built with " + stored + " but " + configured +
+                        " is configured. Restore the previous setting, or set app.plagiarism.minhash.reset-index-on-change=true" +
+                        " to empty the index");
+            }
+            log.warn("Similarity index was built with {}, emptying it for {}", stored, configured);
+            jdbcTemplate.execute("TRUNCATE lsh_bands, file_signatures");
+            stored.setShingleSize(configured.getShingleSize());
+            stored.setSignatureSize(configured.getSignatureSize());
+            stored.setBandCount(configured.getBandCount());
+            parametersRepository.save(stored);
+        });
+    }
+}
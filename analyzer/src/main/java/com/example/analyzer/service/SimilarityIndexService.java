@@ -0,0 +1,177 @@
+package com.example.analyzer.service;
+
+import com.example.analyzer.entity.FileSignature;
+import com.example.analyzer.repository.FileSignatureRepository;
+import com.example.analyzer.repository.LshBandRepository;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Near-duplicate search over MinHash signatures. Candidates are the files sharing at least one LSH band with the
+ * query, found through the band hash index, so a lookup touches only a handful of rows regardless of how many
+ * files are stored. Only candidates get their full signatures compared.
+ * <p>
+ * Bands shared by more than {@code app.plagiarism.minhash.max-files-per-band} files, such as boilerplate text or
+ * nearly empty files, say little about similarity and are ignored; only that many rows plus one are read per band.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SimilarityIndexService {
+
+    private final FileSignatureRepository fileSignatureRepository;
+    private final LshBandRepository lshBandRepository;
+
+    // Upper bound on candidates compared per file, the ones sharing most bands win
+    @Value("${app.plagiarism.minhash.max-candidates:50}")
+    private int maxCandidates;
+
+    @Value("${app.plagiarism.minhash.max-files-per-band:100}")
+    private int maxFilesPerBand;
+
+    @Getter
+    @RequiredArgsConstructor
+    public static class Match {
+        private final String fileId;
+        private final double similarity;
+    }
+
+    /**
+     * Finds the most similar already indexed file for each signature, using two queries for the whole batch.
+     * Files earlier in the map are candidates for later ones as well, as if they had already been indexed.
+     *
+     * @param signaturesByFileId signatures in processing order
+     * @return best match per file; files without any candidate are absent
+     */
+    @Transactional(readOnly = true)
+    public Map<String, Match> findMostSimilar(Map<String, long[]> signaturesByFileId) {
+        if (signaturesByFileId.isEmpty()) {
+            return Map.of();
+        }
+
+        Map<String, long[]> bandHashesByFileId = new LinkedHashMap<>();
+        Set<Long> allBandHashes = new HashSet<>();
+        signaturesByFileId.forEach((fileId, signature) -> {
+            long[] bandHashes = MinHashSketcher.bandHashes(signature);
+            bandHashesByFileId.put(fileId, bandHashes);
+            for (long bandHash : bandHashes) {
+                allBandHashes.add(bandHash);
+            }
+        });
+
+        Map<Long, List<String>> fileIdsByBandHash = lshBandRepository.findFileIdsByBandHash(allBandHashes, maxFilesPerBand + 1);
+        // Kept apart from the map, otherwise in-batch files would bring a dropped band back with fewer members
+        Set<Long> saturatedBandHashes = new HashSet<>();
+        fileIdsByBandHash.entrySet().removeIf(entry -> {
+            boolean saturated = entry.getValue().size() > maxFilesPerBand;
+            if (saturated) {
+                saturatedBandHashes.add(entry.getKey());
+            }
+            return saturated;
+        });
+
+        Map<String, List<String>> candidatesByFileId = new HashMap<>();
+        Set<String> storedCandidates = new HashSet<>();
+        bandHashesByFileId.forEach((fileId, bandHashes) -> {
+            List<String> candidates = selectCandidates(fileId, bandHashes, fileIdsByBandHash);
+            candidatesByFileId.put(fileId, candidates);
+            storedCandidates.addAll(candidates);
+            for (long bandHash : bandHashes) {
+                if (saturatedBandHashes.contains(bandHash)) {
+                    continue;
+                }
+                List<String> fileIds = fileIdsByBandHash.computeIfAbsent(bandHash, k -> new ArrayList<>());
+                fileIds.add(fileId);
+                if (fileIds.size() > maxFilesPerBand) {
+                    fileIdsByBandHash.remove(bandHash);
+                    saturatedBandHashes.add(bandHash);
+                }
+            }
+        });
+        storedCandidates.removeAll(signaturesByFileId.keySet());
+
+        Map<String, long[]> candidateSignatures = new HashMap<>(signaturesByFileId);
+        if (!storedCandidates.isEmpty()) {
+            for (FileSignature stored : fileSignatureRepository.findByFileIdIn(storedCandidates)) {
+                candidateSignatures.putIfAbsent(stored.getFileId(), fromBytes(stored.getSignature()));
+            }
+        }
+
+        Map<String, Match> matches = new HashMap<>();
+        candidatesByFileId.forEach((fileId, candidates) -> {
+            long[] signature = signaturesByFileId.get(fileId);
+            Match best = null;
+            for (String candidate : candidates) {
+                long[] candidateSignature = candidateSignatures.get(candidate);
+                if (candidateSignature == null) {
+                    continue;
+                }
+                double similarity = MinHashSketcher.similarity(signature, candidateSignature);
+                if (best == null || similarity > best.getSimilarity()) {
+                    best = new Match(candidate, similarity);
+                }
+            }
+            if (best != null) {
+                log.debug("Closest file to {} is {} with estimated similarity {}", fileId, best.getFileId(), best.getSimilarity());
+                matches.put(fileId, best);
+            }
+        });
+        return matches;
+    }
+
+    /**
+     * Adds the signatures and their LSH bands to the index.
+     */
+    @Transactional
+    public void index(Map<String, long[]> signaturesByFileId) {
+        Map<String, byte[]> serialized = new LinkedHashMap<>();
+        Map<String, long[]> bandHashes = new LinkedHashMap<>();
+        signaturesByFileId.forEach((fileId, signature) -> {
+            serialized.put(fileId, toBytes(signature));
+            bandHashes.put(fileId, MinHashSketcher.bandHashes(signature));
+        });
+        fileSignatureRepository.insertAll(serialized, bandHashes);
+        log.debug("Indexed {} signatures", serialized.size());
+    }
+
+    private List<String> selectCandidates(String fileId, long[] bandHashes, Map<Long, List<String>> fileIdsByBandHash) {
+        Map<String, Integer> sharedBands = new HashMap<>();
+        for (long bandHash : bandHashes) {
+            for (String candidate : fileIdsByBandHash.getOrDefault(bandHash, List.of())) {
+                if (!candidate.equals(fileId)) {
+                    sharedBands.merge(candidate, 1, Integer::sum);
+                }
+            }
+        }
+        return sharedBands.entrySet().stream()
+                .sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
+                .limit(maxCandidates)
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+
+    private static byte[] toBytes(long[] signature) {
+        ByteBuffer buffer = ByteBuffer.allocate(signature.length * Long.BYTES);
+        buffer.asLongBuffer().put(signature);
+        return buffer.array();
+    }
+
+    private static long[] fromBytes(byte[] bytes) {
+        long[] signature = new long[bytes.length / Long.BYTES];
+        ByteBuffer.wrap(bytes).asLongBuffer().get(signature);
+        return signature;
+    }
+}
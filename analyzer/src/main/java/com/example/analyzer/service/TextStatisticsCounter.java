@@ -0,0 +1,179 @@
+package com.example.analyzer.service;
+
+import java.nio.CharBuffer;
+
+/**
+ * Single-pass, allocation-free counter of characters, words and paragraphs.
+ * <p>
+ * Text is fed in arbitrary chunks via {@link #accept(CharBuffer)}; chunk boundaries may fall anywhere,
+ * including between {@code \r} and {@code \n}. Results are identical to the former regex-based rules:
+ * <ul>
+ *     <li>characters - number of UTF-16 code units, like {@code String.length()};</li>
+ *     <li>words - {@code content.trim().split("\\s+").length};</li>
+ *     <li>paragraphs - {@code content.split("(\r\n|\r|\n){2,}|(^\n|\n$)|(^\r\n|\r\n$)").length};</li>
+ * </ul>
+ * with both word and paragraph counts forced to zero for blank content.
+ * <p>
+ * Instances are not thread-safe and are meant to be used for exactly one file.
+ */
+public class TextStatisticsCounter {
+
+    private long charCount;
+
+    // --- words ---
+    private long wordCount;
+    private boolean seenSignificant;
+    private boolean inWord;
+    private boolean wordSignificant;
+    // Words made only of control characters (<= U+0020 but not \s) are dropped by trim() at the edges,
+    // so they are counted only once a significant character follows them.
+    private long pendingControlWords;
+
+    // --- paragraphs ---
+    private long separatorCount;
+    private long paragraphCount;
+    private int lineBreakRunLength;
+    private char lineBreakRunFirst;
+    private boolean lineBreakRunAtStart;
+    // A lone '\n' followed by U+0085/U+2028/U+2029 is a separator only if that terminator ends the input.
+    private boolean pendingTerminalNewline;
+
+    private boolean finished;
+
+    public void accept(CharBuffer chunk) {
+        if (finished) {
+            throw new IllegalStateException("Counter has already been finished");
+        }
+        if (chunk.hasArray()) {
+            char[] array = chunk.array();
+            int from = chunk.arrayOffset() + chunk.position();
+            int to = chunk.arrayOffset() + chunk.limit();
+            for (int i = from; i < to; i++) {
+                accept(array[i]);
+            }
+        } else {
+            for (int i = chunk.position(); i < chunk.limit(); i++) {
+                accept(chunk.get(i));
+            }
+        }
+        chunk.position(chunk.limit());
+    }
+
+    public void accept(CharSequence text) {
+        accept(CharBuffer.wrap(text));
+    }
+
+    /**
+     * Completes counting. Must be called once after the last chunk; counts are undefined before that.
+     */
+    public TextStatisticsCounter finish() {
+        if (finished) {
+            return this;
+        }
+        finished = true;
+
+        if (inWord) {
+            endWord();
+        }
+        pendingControlWords = 0;
+
+        if (pendingTerminalNewline) {
+            pendingTerminalNewline = false;
+            separatorCount++;
+            paragraphCount = separatorCount + 1;
+        } else if (lineBreakRunLength > 0) {
+            endLineBreakRun(true);
+        }
+
+        if (!seenSignificant) {
+            wordCount = 0;
+            paragraphCount = 0;
+        }
+        return this;
+    }
+
+    public long getCharCount() {
+        return charCount;
+    }
+
+    public long getWordCount() {
+        return wordCount;
+    }
+
+    public long getParagraphCount() {
+        return paragraphCount;
+    }
+
+    private void accept(char c) {
+        if (pendingTerminalNewline) {
+            // The terminator was not the last character, so neither it nor the '\n' separated anything.
+            pendingTerminalNewline = false;
+            paragraphCount = separatorCount + 1;
+        }
+
+        if (c == '\r' || c == '\n') {
+            if (lineBreakRunLength == 0) {
+                lineBreakRunFirst = c;
+                lineBreakRunAtStart = charCount == 0;
+            }
+            lineBreakRunLength++;
+        } else {
+            if (lineBreakRunLength > 0) {
+                if (lineBreakRunLength == 1 && lineBreakRunFirst == '\n' && !lineBreakRunAtStart
+                        && (c == '\u0085' || c == '\u2028' || c == '\u2029')) {
+                    lineBreakRunLength = 0;
+                    pendingTerminalNewline = true;
+                } else {
+                    endLineBreakRun(false);
+                }
+            }
+            if (!pendingTerminalNewline) {
+                paragraphCount = separatorCount + 1;
+            }
+        }
+
+        if (isWhitespace(c)) {
+            if (inWord) {
+                endWord();
+            }
+        } else {
+            if (!inWord) {
+                inWord = true;
+                wordSignificant = false;
+            }
+            if (c > ' ') {
+                if (!wordSignificant) {
+                    wordSignificant = true;
+                    wordCount++;
+                }
+                seenSignificant = true;
+                wordCount += pendingControlWords;
+                pendingControlWords = 0;
+            }
+        }
+
+        charCount++;
+    }
+
+    private void endWord() {
+        inWord = false;
+        if (!wordSignificant && seenSignificant) {
+            pendingControlWords++;
+        }
+    }
+
+    private void endLineBreakRun(boolean atEnd) {
+        boolean separator = lineBreakRunLength >= 2
+                || (lineBreakRunFirst == '\n' && (lineBreakRunAtStart || atEnd));
+        if (separator) {
+            separatorCount++;
+        } else {
+            paragraphCount = separatorCount + 1;
+        }
+        lineBreakRunLength = 0;
+    }
+
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+}
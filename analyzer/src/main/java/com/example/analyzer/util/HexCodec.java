@@ -0,0 +1,76 @@
+package com.example.analyzer.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Lower-case hex encoding of binary digests. The {@code char[]}/{@code byte[]} overloads write into caller-provided
+ * buffers and allocate nothing; the convenience overloads allocate only their result.
+ */
+public final class HexCodec {
+
+    private static final byte[] DIGITS = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] VALUES = new byte[128];
+
+    static {
+        Arrays.fill(VALUES, (byte) -1);
+        for (int i = 0; i < 10; i++) {
+            VALUES['0' + i] = (byte) i;
+        }
+        for (int i = 0; i < 6; i++) {
+            VALUES['a' + i] = (byte) (10 + i);
+            VALUES['A' + i] = (byte) (10 + i);
+        }
+    }
+
+    private HexCodec() {
+    }
+
+    public static String encode(byte[] bytes) {
+        byte[] out = new byte[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            out[2 * i] = DIGITS[(bytes[i] >> 4) & 0x0f];
+            out[2 * i + 1] = DIGITS[bytes[i] & 0x0f];
+        }
+        return new String(out, StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Writes {@code 2 * bytes.length} hex digits into {@code out} starting at {@code offset}.
+     */
+    public static void encode(byte[] bytes, char[] out, int offset) {
+        for (int i = 0; i < bytes.length; i++) {
+            out[offset + 2 * i] = (char) DIGITS[(bytes[i] >> 4) & 0x0f];
+            out[offset + 2 * i + 1] = (char) DIGITS[bytes[i] & 0x0f];
+        }
+    }
+
+    public static byte[] decode(CharSequence hex) {
+        if ((hex.length() & 1) != 0) {
+            throw new IllegalArgumentException("Hex string must have an even length: " + hex.length());
+        }
+        byte[] out = new byte[hex.length() / 2];
+        decode(hex, out);
+        return out;
+    }
+
+    /**
+     * Decodes {@code hex} into {@code out}, which must be exactly half as long as the input.
+     */
+    public static void decode(CharSequence hex, byte[] out) {
+        if (hex.length() != out.length * 2) {
+            throw new IllegalArgumentException("Expected " + out.length * 2 + " hex digits, got " + hex.length());
+        }
+        for (int i = 0; i < out.length; i++) {
+            out[i] = (byte) ((digit(hex.charAt(2 * i)) << 4) | digit(hex.charAt(2 * i + 1)));
+        }
+    }
+
+    private static int digit(char c) {
+        int value = c < 128 ? VALUES[c] : -1;
+        if (value < 0) {
+            throw new IllegalArgumentException("Invalid hex digit: " + c);
+        }
+        return value;
+    }
+}
@@ -0,0 +1,187 @@
+package com.example.analyzer.consumer;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class KeyOrderedExecutorTest {
+
+    private static final int LANES = 4;
+
+    private final KeyOrderedExecutor executor = new KeyOrderedExecutor("test-lane-", LANES, 8);
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        executor.shutdown();
+    }
+
+    @Test
+    void runsTasksOfEachKeyInSubmissionOrder() throws Exception {
+        int keys = 20;
+        int tasksPerKey = 50;
+        Map<String, List<Integer>> completed = new ConcurrentHashMap<>();
+        Random random = new Random(42);
+
+        // Interleaved the way records of different files arrive on a partition
+        for (int i = 0; i < tasksPerKey; i++) {
+            for (int k = 0; k < keys; k++) {
+                String key = "file-" + k;
+                int sequence = i;
+                boolean slow = random.nextInt(10) == 0;
+                executor.execute(key, () -> {
+                    if (slow) {
+                        sleep(1);
+                    }
+                    completed.computeIfAbsent(key, x -> Collections.synchronizedList(new ArrayList<>())).add(sequence);
+                });
+            }
+        }
+        executor.shutdown();
+
+        List<Integer> expected = IntStream.range(0, tasksPerKey).boxed().toList();
+        assertThat(completed).hasSize(keys);
+        completed.forEach((key, sequences) -> assertThat(sequences).as(key).isEqualTo(expected));
+    }
+
+    @Test
+    void runsDifferentLanesInParallel() throws Exception {
+        String slowKey = keyInLane(0);
+        String fastKey = keyInLane(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch fastDone = new CountDownLatch(1);
+
+        executor.execute(slowKey, () -> await(release));
+        executor.execute(fastKey, fastDone::countDown);
+
+        assertThat(fastDone.await(10, TimeUnit.SECONDS)).isTrue();
+        release.countDown();
+    }
+
+    @Test
+    void acksPartitionOffsetsOnlyAfterAllEarlierRecordsCompleted() throws Exception {
+        String slowKey = keyInLane(0);
+        String fastKey = keyInLane(1);
+        AsyncAcks acks = new AsyncAcks();
+        AtomicBoolean[] done = new AtomicBoolean[6];
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch fastDone = new CountDownLatch(4);
+        String[] keys = {slowKey, fastKey, fastKey, slowKey, fastKey, fastKey};
+
+        for (int offset = 0; offset < keys.length; offset++) {
+            int recordOffset = offset;
+            done[offset] = new AtomicBoolean();
+            boolean slow = keys[offset].equals(slowKey);
+            // Same shape as FileUploadWorkerPoolConsumer: process, then acknowledge
+            executor.execute(keys[offset], () -> {
+                if (slow && recordOffset == 0) {
+                    await(release);
+                }
+                done[recordOffset].set(true);
+                acks.acknowledge(recordOffset, done);
+                if (!slow) {
+                    fastDone.countDown();
+                }
+            });
+        }
+
+        assertThat(fastDone.await(10, TimeUnit.SECONDS)).isTrue();
+        // Later records of the other key are done, but offset 0 holds the partition back
+        assertThat(done[0]).isFalse();
+        assertThat(acks.committed()).isZero();
+
+        release.countDown();
+        executor.shutdown();
+
+        assertThat(acks.committed()).isEqualTo(keys.length);
+        assertThat(acks.violations).isEmpty();
+    }
+
+    @Test
+    void blocksSubmitterWhileLaneIsFull() throws Exception {
+        KeyOrderedExecutor small = new KeyOrderedExecutor("small-lane-", 1, 1);
+        try {
+            CountDownLatch release = new CountDownLatch(1);
+            small.execute("a", () -> await(release));
+
+            Thread submitter = new Thread(() -> {
+                try {
+                    small.execute("b", () -> {
+                    });
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            submitter.start();
+            submitter.join(200);
+            assertThat(submitter.isAlive()).isTrue();
+
+            release.countDown();
+            submitter.join(10_000);
+            assertThat(submitter.isAlive()).isFalse();
+        } finally {
+            small.shutdown();
+        }
+    }
+
+    private static String keyInLane(int lane) {
+        for (int i = 0; ; i++) {
+            String key = "file-" + i;
+            if (Math.floorMod(key.hashCode(), LANES) == lane) {
+                return key;
+            }
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertThat(latch.await(10, TimeUnit.SECONDS)).isTrue();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Commit rule of the listener container with async acks: the committed offset of a partition only moves past
+     * offsets that have all been acknowledged. Records a violation if it ever moves past an unfinished record.
+     */
+    private static class AsyncAcks {
+
+        private final boolean[] acked = new boolean[64];
+        private final List<Integer> violations = Collections.synchronizedList(new ArrayList<>());
+        private int committed;
+
+        synchronized void acknowledge(int offset, AtomicBoolean[] done) {
+            acked[offset] = true;
+            while (acked[committed]) {
+                if (!done[committed].get()) {
+                    violations.add(committed);
+                }
+                committed++;
+            }
+        }
+
+        synchronized int committed() {
+            return committed;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.analyzer.index;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BloomFilterTest {
+
+    @Test
+    void hasNoFalseNegatives() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        SplittableRandom random = new SplittableRandom(7);
+        long[] hashes = random.longs(10_000).toArray();
+        for (long hash : hashes) {
+            filter.add(hash);
+        }
+
+        for (long hash : hashes) {
+            assertThat(filter.mightContain(hash)).isTrue();
+        }
+    }
+
+    @Test
+    void keepsFalsePositiveRateNearTarget() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        SplittableRandom random = new SplittableRandom(11);
+        random.longs(10_000).forEach(filter::add);
+
+        long falsePositives = random.longs(100_000).filter(filter::mightContain).count();
+
+        assertThat(falsePositives).isLessThan(2_000);
+    }
+
+    @Test
+    void emptyFilterContainsNothing() {
+        BloomFilter filter = new BloomFilter(0, 0.01);
+
+        assertThat(filter.mightContain(0)).isFalse();
+        assertThat(filter.mightContain(-1)).isFalse();
+    }
+}
@@ -0,0 +1,187 @@
+package com.example.analyzer.index;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Runs {@link FileHashIndex} against an in-memory {@code file_hashes} table served through a stubbed
+ * {@link JdbcTemplate}.
+ */
+class FileHashIndexTest {
+
+    private static final Duration OVERLAP = Duration.ofMinutes(1);
+
+    private final List<Row> table = new ArrayList<>();
+    private final List<Long> queriedFromIds = new ArrayList<>();
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        doAnswer(invocation -> {
+            PreparedStatementCreator creator = invocation.getArgument(0);
+            RowCallbackHandler handler = invocation.getArgument(1);
+            long fromId = fromId(creator);
+            queriedFromIds.add(fromId);
+
+            AtomicReference<Row> current = new AtomicReference<>();
+            ResultSet rs = mock(ResultSet.class);
+            when(rs.getLong("id")).thenAnswer(call -> current.get().id());
+            when(rs.getString("file_id")).thenAnswer(call -> current.get().fileId());
+            when(rs.getBytes("digest")).thenAnswer(call -> current.get().digest());
+            when(rs.getTimestamp("created_at")).thenAnswer(call -> current.get().createdAt());
+            List<Row> visible = table.stream()
+                    .filter(row -> row.id() > fromId)
+                    .sorted(Comparator.comparingLong(Row::id))
+                    .toList();
+            for (Row row : visible) {
+                current.set(row);
+                handler.processRow(rs);
+            }
+            return null;
+        }).when(jdbcTemplate).query(any(PreparedStatementCreator.class), any(RowCallbackHandler.class));
+    }
+
+    @Test
+    void warmUpLoadsAllRows() throws Exception {
+        table.add(new Row(1, "file-1", digest("one"), minutesAgo(10)));
+        table.add(new Row(2, "file-2", digest("two"), minutesAgo(10)));
+        FileHashIndex index = readyIndex(1000);
+
+        assertThat(index.findFileId(digest("one"))).contains("file-1");
+        assertThat(index.findFileId(digest("two"))).contains("file-2");
+        assertThat(index.findFileId(digest("three"))).isEmpty();
+        assertThat(index.mightContainFileId("file-1")).isTrue();
+    }
+
+    @Test
+    void firstFileWithDigestWins() throws Exception {
+        table.add(new Row(1, "original", digest("same"), minutesAgo(10)));
+        table.add(new Row(2, "copy", digest("same"), minutesAgo(10)));
+        FileHashIndex index = readyIndex(1000);
+
+        assertThat(index.findFileId(digest("same"))).contains("original");
+    }
+
+    @Test
+    void refreshPicksUpRowsCommittedAfterHigherIds() throws Exception {
+        table.add(new Row(1, "old", digest("old"), minutesAgo(10)));
+        table.add(new Row(3, "fast", digest("fast"), LocalDateTime.now()));
+        FileHashIndex index = readyIndex(1000);
+
+        // Row 2 was inserted before row 3 but its transaction commits only now
+        table.add(new Row(2, "slow", digest("slow"), LocalDateTime.now()));
+        index.refresh();
+
+        assertThat(queriedFromIds).containsExactly(0L, 1L);
+        assertThat(index.findFileId(digest("slow"))).contains("slow");
+        assertThat(index.findFileId(digest("fast"))).contains("fast");
+    }
+
+    @Test
+    void refreshStartsAfterRowsOlderThanOverlap() throws Exception {
+        table.add(new Row(1, "a", digest("a"), minutesAgo(10)));
+        table.add(new Row(2, "b", digest("b"), minutesAgo(5)));
+        FileHashIndex index = readyIndex(1000);
+
+        table.add(new Row(3, "c", digest("c"), LocalDateTime.now()));
+        index.refresh();
+        index.refresh();
+
+        assertThat(queriedFromIds).containsExactly(0L, 2L, 2L);
+        assertThat(index.findFileId(digest("c"))).contains("c");
+    }
+
+    @Test
+    void hasNoFalseNegativesAfterGrowing() throws Exception {
+        int files = 5_000;
+        for (int i = 1; i <= files; i++) {
+            table.add(new Row(i, "file-" + i, digest("content-" + i), minutesAgo(10)));
+        }
+        FileHashIndex index = readyIndex(1);
+        for (int i = files + 1; i <= 2 * files; i++) {
+            index.add("file-" + i, digest("content-" + i));
+        }
+
+        for (int i = 1; i <= 2 * files; i++) {
+            assertThat(index.findFileId(digest("content-" + i))).contains("file-" + i);
+            assertThat(index.mightContainFileId("file-" + i)).isTrue();
+        }
+    }
+
+    @Test
+    void ignoresDigestsOfUnexpectedLength() throws Exception {
+        table.add(new Row(1, "md5", new byte[16], minutesAgo(10)));
+        FileHashIndex index = readyIndex(1000);
+
+        index.add("short", new byte[8]);
+
+        assertThat(index.mightContainFileId("md5")).isFalse();
+        assertThat(index.mightContainFileId("short")).isFalse();
+    }
+
+    private FileHashIndex readyIndex(long expectedEntries) throws InterruptedException {
+        FileHashIndex index = new FileHashIndex(jdbcTemplate, true, expectedEntries, 0.01, OVERLAP);
+        index.warmUp();
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (!index.isReady()) {
+            assertThat(System.nanoTime()).as("index warm-up").isLessThan(deadline);
+            Thread.sleep(10);
+        }
+        return index;
+    }
+
+    private static long fromId(PreparedStatementCreator creator) throws Exception {
+        AtomicLong fromId = new AtomicLong();
+        PreparedStatement statement = mock(PreparedStatement.class);
+        doAnswer(invocation -> {
+            fromId.set(invocation.getArgument(1));
+            return null;
+        }).when(statement).setLong(anyInt(), anyLong());
+        Connection connection = mock(Connection.class);
+        when(connection.prepareStatement(anyString())).thenReturn(statement);
+        creator.createPreparedStatement(connection);
+        return fromId.get();
+    }
+
+    private static byte[] digest(String content) throws Exception {
+        return MessageDigest.getInstance("SHA-256").digest(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Timestamp minutesAgo(long minutes) {
+        return Timestamp.valueOf(LocalDateTime.now().minusMinutes(minutes));
+    }
+
+    private record Row(long id, String fileId, byte[] digest, Timestamp createdAt) {
+
+        Row(long id, String fileId, byte[] digest, LocalDateTime createdAt) {
+            this(id, fileId, digest, Timestamp.valueOf(createdAt));
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.example.analyzer.serialization;
+
+import com.example.analyzer.dto.event.FileStatsCalculatedEvent;
+import com.example.analyzer.dto.event.FileUploadedEvent;
+import com.example.analyzer.dto.event.PlagiarismCheckResultEvent;
+import org.apache.kafka.common.errors.SerializationException;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BinaryEventCodecTest {
+
+    private static final String DIGEST = "9f86d081884c7d659a2feaa0c55ad015a3bf4f1b2b0b822cd15d6c15b0f00a08";
+
+    @Test
+    void roundTripsFileUploadedEvent() {
+        FileUploadedEvent event = new FileUploadedEvent("file-1", "отчёт.txt", "text/plain", 5_000_000_000L,
+                "ab/cd/file-1", "user-7", DIGEST);
+
+        assertThat(roundTrip(event, FileUploadedEvent.class)).isEqualTo(event);
+    }
+
+    @Test
+    void roundTripsFileStatsCalculatedEvent() {
+        FileStatsCalculatedEvent event = new FileStatsCalculatedEvent("file-1", 3, 120, Integer.MAX_VALUE);
+
+        assertThat(roundTrip(event, FileStatsCalculatedEvent.class)).isEqualTo(event);
+    }
+
+    @Test
+    void roundTripsPlagiarismCheckResultEvent() {
+        PlagiarismCheckResultEvent event = new PlagiarismCheckResultEvent("file-2", true, "file-1", 87.5);
+
+        assertThat(roundTrip(event, PlagiarismCheckResultEvent.class)).isEqualTo(event);
+    }
+
+    @Test
+    void leavesDefaultFieldsOut() {
+        FileUploadedEvent event = new FileUploadedEvent("file-1", null, null, 0, null, null, null);
+
+        byte[] encoded = BinaryEventCodec.encode(event);
+
+        assertThat(encoded).containsExactly(0xB1, 1, 1, 0x0A, 6, 'f', 'i', 'l', 'e', '-', '1');
+        assertThat(BinaryEventCodec.decode(encoded, FileUploadedEvent.class)).isEqualTo(event);
+    }
+
+    @Test
+    void decodesLayoutWrittenByStorage() {
+        // magic, version, type 1; field 1 "f"; field 4 zigzag(5); field 7 bytes 0xab
+        byte[] encoded = bytes(0xB1, 1, 1, 0x0A, 1, 'f', 0x20, 10, 0x3A, 1, 0xAB);
+
+        FileUploadedEvent event = BinaryEventCodec.decode(encoded, FileUploadedEvent.class);
+
+        assertThat(event).isEqualTo(new FileUploadedEvent("f", null, null, 5, null, null, "ab"));
+    }
+
+    @Test
+    void skipsUnknownFieldsOfEveryWireType() {
+        byte[] encoded = new EventWriter(3)
+                .string(1, "file-2")
+                .integer(15, -42)
+                .bool(2, true)
+                .decimal(16, 1.5)
+                .string(3, "file-1")
+                .bytes(17, new byte[]{1, 2, 3})
+                .decimal(4, 12.25)
+                .toByteArray();
+
+        PlagiarismCheckResultEvent event = BinaryEventCodec.decode(encoded, PlagiarismCheckResultEvent.class);
+
+        assertThat(event).isEqualTo(new PlagiarismCheckResultEvent("file-2", true, "file-1", 12.25));
+    }
+
+    @Test
+    void detectsBinaryPayloads() {
+        assertThat(BinaryEventCodec.isBinary(BinaryEventCodec.encode(new FileStatsCalculatedEvent("f", 1, 1, 1))))
+                .isTrue();
+        assertThat(BinaryEventCodec.isBinary("{\"fileId\":\"f\"}".getBytes())).isFalse();
+        assertThat(BinaryEventCodec.isBinary(new byte[0])).isFalse();
+        assertThat(BinaryEventCodec.isBinary(null)).isFalse();
+    }
+
+    @Test
+    void rejectsEventOfAnotherType() {
+        byte[] encoded = BinaryEventCodec.encode(new FileStatsCalculatedEvent("f", 1, 1, 1));
+
+        assertThatThrownBy(() -> BinaryEventCodec.decode(encoded, FileUploadedEvent.class))
+                .isInstanceOf(SerializationException.class);
+    }
+
+    @Test
+    void rejectsUnknownEventType() {
+        assertThatThrownBy(() -> BinaryEventCodec.decode(bytes(0xB1, 1, 99), Object.class))
+                .isInstanceOf(SerializationException.class)
+                .hasMessageContaining("99");
+    }
+
+    @Test
+    void rejectsNewerVersion() {
+        assertThatThrownBy(() -> BinaryEventCodec.decode(bytes(0xB1, 2, 1), FileUploadedEvent.class))
+                .isInstanceOf(SerializationException.class)
+                .hasMessageContaining("version");
+    }
+
+    @Test
+    void rejectsTruncatedEvent() {
+        byte[] encoded = BinaryEventCodec.encode(new FileUploadedEvent("file-1", "a.txt", null, 1, null, null, DIGEST));
+        byte[] truncated = Arrays.copyOf(encoded, encoded.length - 1);
+
+        assertThatThrownBy(() -> BinaryEventCodec.decode(truncated, FileUploadedEvent.class))
+                .isInstanceOf(SerializationException.class);
+    }
+
+    @Test
+    void rejectsStatsCountOutsideIntRange() {
+        byte[] encoded = new EventWriter(2).integer(2, Integer.MAX_VALUE + 1L).toByteArray();
+
+        assertThatThrownBy(() -> BinaryEventCodec.decode(encoded, FileStatsCalculatedEvent.class))
+                .isInstanceOf(SerializationException.class);
+    }
+
+    private static <T> T roundTrip(Object event, Class<T> type) {
+        byte[] encoded = BinaryEventCodec.encode(event);
+        assertThat(BinaryEventCodec.isBinary(encoded)).isTrue();
+        return BinaryEventCodec.decode(encoded, type);
+    }
+
+    private static byte[] bytes(int... values) {
+        byte[] bytes = new byte[values.length];
+        for (int i = 0; i < values.length; i++) {
+            bytes[i] = (byte) values[i];
+        }
+        return bytes;
+    }
+}
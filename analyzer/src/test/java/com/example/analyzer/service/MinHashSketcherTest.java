@@ -0,0 +1,111 @@
+package com.example.analyzer.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.CharBuffer;
+import java.util.Arrays;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class MinHashSketcherTest {
+
+    @Test
+    void estimatesJaccardSimilarityOfKnownSets() {
+        // Single-word shingles, so the shingle sets are exactly the word ranges
+        assertThat(similarity(words(0, 1000), words(0, 1000))).isEqualTo(1.0);
+        assertThat(similarity(words(0, 1200), words(400, 1600))).isCloseTo(0.5, within(0.15));
+        assertThat(similarity(words(0, 1000), words(500, 1500))).isCloseTo(1.0 / 3, within(0.15));
+        assertThat(similarity(words(0, 1000), words(900, 1900))).isCloseTo(100.0 / 1900, within(0.1));
+        assertThat(similarity(words(0, 1000), words(1000, 2000))).isLessThan(0.05);
+    }
+
+    @Test
+    void ignoresCaseAndPunctuation() {
+        assertThat(sketch(3, "The quick brown fox, jumps over the lazy dog."))
+                .isEqualTo(sketch(3, "the QUICK brown fox jumps -- over the lazy dog"));
+    }
+
+    @Test
+    void dependsOnWordOrderWithinShingles() {
+        assertThat(sketch(2, "alpha beta gamma")).isNotEqualTo(sketch(2, "gamma beta alpha"));
+    }
+
+    @Test
+    void treatsSupplementaryLettersAsWordCharacters() {
+        // U+10400 DESERET CAPITAL LETTER LONG I and its lower case U+10428
+        String upper = "ab𐐀cd";
+        String lower = "ab𐐨cd";
+
+        assertThat(sketch(1, upper)).isEqualTo(sketch(1, lower));
+        assertThat(sketch(1, upper)).isNotEqualTo(sketch(1, "ab cd"));
+    }
+
+    @Test
+    void treatsUnpairedSurrogatesAsSeparators() {
+        assertThat(sketch(1, "ab\uD801cd")).isEqualTo(sketch(1, "ab cd"));
+        assertThat(sketch(1, "ab\uDC00cd")).isEqualTo(sketch(1, "ab cd"));
+        assertThat(sketch(1, "ab cd\uD801")).isEqualTo(sketch(1, "ab cd"));
+    }
+
+    @Test
+    void chunkBoundariesDoNotChangeSignature() {
+        String content = "one 𐐀two\uD801 three,😀 four𐐨 five";
+        long[] expected = sketch(2, content);
+        for (int split = 0; split <= content.length(); split++) {
+            MinHashSketcher sketcher = new MinHashSketcher(2);
+            sketcher.accept(CharBuffer.wrap(content, 0, split));
+            sketcher.accept(CharBuffer.wrap(content, split, content.length()));
+            assertThat(sketcher.finish()).as("split at %d", split).isEqualTo(expected);
+        }
+    }
+
+    @Test
+    void densifiesEmptyBinsFromFilledOnes() {
+        long[] single = sketch(3, "hello");
+        assertThat(single).hasSize(MinHashSketcher.SIGNATURE_SIZE);
+        assertThat(Arrays.stream(single).distinct().count()).isOne();
+
+        // Ten shingles reach at most ten bins, every other bin copies one of them
+        long[] few = sketch(1, words(0, 10));
+        assertThat(few).doesNotContain(Long.MAX_VALUE);
+        assertThat(Arrays.stream(few).distinct().count()).isBetween(2L, 10L);
+    }
+
+    @Test
+    void sketchesTextShorterThanOneShingle() {
+        assertThat(sketch(3, "two words")).isNotNull().isNotEqualTo(sketch(3, "two"));
+    }
+
+    @Test
+    void returnsNullWithoutWords() {
+        assertThat(sketch(3, "")).isNull();
+        assertThat(sketch(3, " ,.- \n")).isNull();
+    }
+
+    @Test
+    void bandHashesDependOnBandPosition() {
+        long[] signature = new long[MinHashSketcher.SIGNATURE_SIZE];
+
+        long[] bandHashes = MinHashSketcher.bandHashes(signature);
+
+        assertThat(bandHashes).hasSize(MinHashSketcher.BAND_COUNT);
+        assertThat(Arrays.stream(bandHashes).distinct().count()).isEqualTo(MinHashSketcher.BAND_COUNT);
+    }
+
+    private static double similarity(String a, String b) {
+        return MinHashSketcher.similarity(sketch(1, a), sketch(1, b));
+    }
+
+    private static long[] sketch(int shingleSize, String content) {
+        MinHashSketcher sketcher = new MinHashSketcher(shingleSize);
+        sketcher.accept(CharBuffer.wrap(content));
+        return sketcher.finish();
+    }
+
+    private static String words(int from, int to) {
+        return IntStream.range(from, to).mapToObj(i -> "w" + i).collect(Collectors.joining(" "));
+    }
+}
@@ -0,0 +1,173 @@
+package com.example.analyzer.service;
+
+import com.example.analyzer.entity.FileSignature;
+import com.example.analyzer.repository.FileSignatureRepository;
+import com.example.analyzer.repository.LshBandRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Runs candidate selection of {@link SimilarityIndexService} against in-memory band and signature tables.
+ */
+class SimilarityIndexServiceTest {
+
+    private static final int ROWS = MinHashSketcher.ROWS_PER_BAND;
+
+    private final Random random = new Random(42);
+    private final Map<Long, List<String>> bandTable = new HashMap<>();
+    private final Map<String, long[]> signatureTable = new HashMap<>();
+    private SimilarityIndexService service;
+
+    @BeforeEach
+    void setUp() {
+        LshBandRepository lshBandRepository = mock(LshBandRepository.class);
+        when(lshBandRepository.findFileIdsByBandHash(anyCollection(), anyInt())).thenAnswer(invocation -> {
+            Collection<Long> bandHashes = invocation.getArgument(0);
+            int limitPerBand = invocation.getArgument(1);
+            Map<Long, List<String>> result = new HashMap<>();
+            for (Long bandHash : bandHashes) {
+                List<String> fileIds = bandTable.getOrDefault(bandHash, List.of());
+                if (!fileIds.isEmpty()) {
+                    result.put(bandHash, new ArrayList<>(fileIds.subList(0, Math.min(limitPerBand, fileIds.size()))));
+                }
+            }
+            return result;
+        });
+        FileSignatureRepository fileSignatureRepository = mock(FileSignatureRepository.class);
+        when(fileSignatureRepository.findByFileIdIn(any())).thenAnswer(invocation -> {
+            Collection<String> fileIds = invocation.getArgument(0);
+            return fileIds.stream()
+                    .filter(signatureTable::containsKey)
+                    .map(fileId -> new FileSignature(fileId, toBytes(signatureTable.get(fileId))))
+                    .toList();
+        });
+
+        service = new SimilarityIndexService(fileSignatureRepository, lshBandRepository);
+        ReflectionTestUtils.setField(service, "maxCandidates", 50);
+        ReflectionTestUtils.setField(service, "maxFilesPerBand", 3);
+    }
+
+    @Test
+    void findsStoredFileSharingBand() {
+        long[] stored = randomSignature();
+        store("stored", stored);
+        store("unrelated", randomSignature());
+
+        long[] query = sharingBands(stored, 0, 1);
+        Map<String, SimilarityIndexService.Match> matches = service.findMostSimilar(Map.of("query", query));
+
+        assertThat(matches.get("query").getFileId()).isEqualTo("stored");
+        assertThat(matches.get("query").getSimilarity()).isEqualTo(MinHashSketcher.similarity(query, stored));
+    }
+
+    @Test
+    void leavesFileWithoutSharedBandUnmatched() {
+        store("stored", randomSignature());
+
+        assertThat(service.findMostSimilar(Map.of("query", randomSignature()))).isEmpty();
+    }
+
+    @Test
+    void earlierFilesOfBatchAreCandidatesForLaterOnes() {
+        long[] first = randomSignature();
+        Map<String, long[]> batch = new LinkedHashMap<>();
+        batch.put("first", first);
+        batch.put("second", sharingBands(first, 2));
+
+        Map<String, SimilarityIndexService.Match> matches = service.findMostSimilar(batch);
+
+        assertThat(matches).doesNotContainKey("first");
+        assertThat(matches.get("second").getFileId()).isEqualTo("first");
+    }
+
+    @Test
+    void ignoresSaturatedStoredBandForBatchFiles() {
+        long[] common = randomSignature();
+        for (int i = 0; i < 4; i++) {
+            store("boilerplate-" + i, sharingBands(common, 0));
+        }
+        Map<String, long[]> batch = new LinkedHashMap<>();
+        batch.put("first", sharingBands(common, 0));
+        batch.put("second", sharingBands(common, 0));
+
+        assertThat(service.findMostSimilar(batch)).isEmpty();
+    }
+
+    @Test
+    void ignoresBandSaturatedWithinBatch() {
+        long[] common = randomSignature();
+        store("stored", sharingBands(common, 0));
+        Map<String, long[]> batch = new LinkedHashMap<>();
+        for (int i = 1; i <= 4; i++) {
+            batch.put("file-" + i, sharingBands(common, 0));
+        }
+
+        Map<String, SimilarityIndexService.Match> matches = service.findMostSimilar(batch);
+
+        // The band holds the stored file and file-1 and file-2, file-3 fills it beyond the limit
+        assertThat(matches).containsOnlyKeys("file-1", "file-2", "file-3");
+    }
+
+    @Test
+    void prefersCandidatesSharingMoreBands() {
+        ReflectionTestUtils.setField(service, "maxCandidates", 1);
+        long[] query = randomSignature();
+        // Shares one band, but its remaining values are closer to the query than those of the other candidate
+        long[] oneBand = sharingBands(query, 0);
+        for (int band = 1; band < MinHashSketcher.BAND_COUNT; band++) {
+            System.arraycopy(query, band * ROWS, oneBand, band * ROWS, ROWS - 1);
+        }
+        store("one-band", oneBand);
+        store("two-bands", sharingBands(query, 3, 4));
+
+        Map<String, SimilarityIndexService.Match> matches = service.findMostSimilar(Map.of("query", query));
+
+        assertThat(matches.get("query").getFileId()).isEqualTo("two-bands");
+    }
+
+    private void store(String fileId, long[] signature) {
+        signatureTable.put(fileId, signature);
+        for (long bandHash : MinHashSketcher.bandHashes(signature)) {
+            bandTable.computeIfAbsent(bandHash, k -> new ArrayList<>()).add(fileId);
+        }
+    }
+
+    private long[] randomSignature() {
+        long[] signature = new long[MinHashSketcher.SIGNATURE_SIZE];
+        for (int i = 0; i < signature.length; i++) {
+            signature[i] = random.nextLong();
+        }
+        return signature;
+    }
+
+    private long[] sharingBands(long[] other, int... bands) {
+        long[] signature = randomSignature();
+        for (int band : bands) {
+            System.arraycopy(other, band * ROWS, signature, band * ROWS, ROWS);
+        }
+        return signature;
+    }
+
+    private static byte[] toBytes(long[] signature) {
+        ByteBuffer buffer = ByteBuffer.allocate(signature.length * Long.BYTES);
+        buffer.asLongBuffer().put(signature);
+        return buffer.array();
+    }
+}
@@ -0,0 +1,134 @@
+package com.example.analyzer.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.nio.CharBuffer;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Pins {@link TextStatisticsCounter} against the regex/split rules it replaced.
+ */
+class TextStatisticsCounterTest {
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "",
+            " ",
+            "\n",
+            "\r\n",
+            "\n\n\n",
+            " \t\r\n ",
+            "word",
+            "two words",
+            "  leading and trailing  ",
+            "line one\nline two",
+            "paragraph one\n\nparagraph two",
+            "paragraph one\r\n\r\nparagraph two\r\n",
+            "crlf line\r\nnext line\r\n",
+            "trailing newline\n",
+            "\nleading newline",
+            "\r\nleading crlf",
+            "lone\rcarriage\r\rreturns",
+            "mixed\r\n\nbreaks\n\r\nhere",
+            "tabs\tand\u000Bvertical\ffeeds",
+            "control\u0001chars \u0001 between\u0002",
+            "\u0001 only control at start",
+            "end with control \u0001",
+            "next line\n\u0085",
+            "next line\n\u0085more",
+            "separators\n\u2028\n\u2029",
+            "Привет, мир!\n\nВторой абзац",
+            "日本語のテキスト 二語",
+            "emoji \uD83D\uDE00 and \uD83D\uDC4D\uD83C\uDFFD\n",
+            "non\u00A0breaking\u2003spaces"
+    })
+    void matchesFormerRegexRules(String content) {
+        assertMatchesReference(content, count(content));
+    }
+
+    @Test
+    void emptyInputHasNoWordsOrParagraphs() {
+        TextStatisticsCounter counter = count("");
+
+        assertThat(counter.getCharCount()).isZero();
+        assertThat(counter.getWordCount()).isZero();
+        assertThat(counter.getParagraphCount()).isZero();
+    }
+
+    @Test
+    void crlfParagraphsAndTrailingNewline() {
+        TextStatisticsCounter counter = count("first para\r\n\r\nsecond para\r\n");
+
+        assertThat(counter.getWordCount()).isEqualTo(4);
+        assertThat(counter.getParagraphCount()).isEqualTo(2);
+        assertThat(counter.getCharCount()).isEqualTo(27);
+    }
+
+    @Test
+    void countsUtf16CodeUnitsForMultiByteText() {
+        TextStatisticsCounter counter = count("héllo wörld \uD83D\uDE00");
+
+        assertThat(counter.getCharCount()).isEqualTo(14);
+        assertThat(counter.getWordCount()).isEqualTo(3);
+        assertThat(counter.getParagraphCount()).isEqualTo(1);
+    }
+
+    @Test
+    void chunkBoundariesDoNotChangeCounts() {
+        String content = "a\r\n\r\nb c\r\n\u00e9\uD83D\uDE00\n\u0085\n";
+        for (int split = 0; split <= content.length(); split++) {
+            TextStatisticsCounter counter = new TextStatisticsCounter();
+            counter.accept(CharBuffer.wrap(content, 0, split));
+            counter.accept(CharBuffer.wrap(content, split, content.length()));
+            assertMatchesReference(content, counter.finish());
+        }
+    }
+
+    @Test
+    void matchesFormerRegexRulesOnRandomText() {
+        char[] alphabet = {'a', 'b', ' ', '\t', '\r', '\n', '\u0001', '\u0085', '\u2028', '\u00e9', '\uD83D', '\uDE00'};
+        Random random = new Random(42);
+        for (int i = 0; i < 20_000; i++) {
+            char[] content = new char[random.nextInt(12)];
+            for (int j = 0; j < content.length; j++) {
+                content[j] = alphabet[random.nextInt(alphabet.length)];
+            }
+            String text = new String(content);
+            assertMatchesReference(text, count(text));
+        }
+    }
+
+    private static TextStatisticsCounter count(String content) {
+        TextStatisticsCounter counter = new TextStatisticsCounter();
+        counter.accept(content);
+        return counter.finish();
+    }
+
+    private static void assertMatchesReference(String content, TextStatisticsCounter counter) {
+        String description = "content \"" + content.replace("\r", "\\r").replace("\n", "\\n") + "\"";
+        assertThat(counter.getCharCount()).as(description).isEqualTo(content.length());
+        assertThat(counter.getWordCount()).as(description).isEqualTo(referenceWordCount(content));
+        assertThat(counter.getParagraphCount()).as(description).isEqualTo(referenceParagraphCount(content));
+    }
+
+    // The implementation used by AnalysisService before the single-pass counter.
+
+    private static int referenceWordCount(String content) {
+        if (content.trim().isEmpty()) {
+            return 0;
+        }
+        return content.trim().split("\\s+").length;
+    }
+
+    private static int referenceParagraphCount(String content) {
+        if (content.trim().isEmpty()) {
+            return 0;
+        }
+        int paragraphCount = content.split("(\r\n|\r|\n){2,}|(^\n|\n$)|(^\r\n|\r\n$)").length;
+        return paragraphCount == 0 ? 1 : paragraphCount;
+    }
+}
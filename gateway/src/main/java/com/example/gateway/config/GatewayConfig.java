@@ -1,11 +1,23 @@
 package com.example.gateway.config;
 
+import com.example.gateway.filter.ConcurrencyLimitGatewayFilter;
+import com.example.gateway.filter.RateLimitGatewayFilter;
+import com.example.gateway.filter.ResponseCache;
+import com.example.gateway.filter.ResponseCacheGatewayFilter;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.filter.factory.RetryGatewayFilterFactory;
+import org.springframework.cloud.gateway.filter.factory.SpringCloudCircuitBreakerFilterFactory;
 import org.springframework.cloud.gateway.route.RouteLocator;
 import org.springframework.cloud.gateway.route.builder.RouteLocatorBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.function.Consumer;
 
 @Configuration
 public class GatewayConfig {
@@ -16,8 +28,22 @@ public class GatewayConfig {
      @Value("${app.services.file-analyzer.url}")
      private String fileAnalyzerServiceUrl;
 
+    @Value("${app.gateway.retry.retries:2}")
+    private int retries;
+
+    // Файлы и метаданные не меняются после загрузки, поэтому их можно кэшировать без инвалидации
     @Bean
-    public RouteLocator customRouteLocator(RouteLocatorBuilder builder) {
+    public ResponseCacheGatewayFilter storageResponseCacheFilter(
+            @Value("${app.gateway.cache.max-size:256MB}") DataSize maxSize,
+            @Value("${app.gateway.cache.max-entry-size:16MB}") DataSize maxEntrySize) {
+        return new ResponseCacheGatewayFilter(new ResponseCache(maxSize.toBytes()), maxEntrySize.toBytes());
+    }
+
+    @Bean
+    public RouteLocator customRouteLocator(RouteLocatorBuilder builder,
+                                           ResponseCacheGatewayFilter storageResponseCacheFilter,
+                                           RateLimitGatewayFilter uploadRateLimitFilter,
+                                           ConcurrencyLimitGatewayFilter uploadConcurrencyLimitFilter) {
         return builder.routes()
                 // --- Маршруты для File Storage Service ---
                 .route("file_storage_upload", r -> r.path("/api/v1/gateway/storage/upload") // Путь, который слушает Gateway
@@ -25,23 +51,84 @@ public class GatewayConfig {
                         .filters(f -> f.rewritePath("/api/v1/gateway/storage/(?<segment>.*)", "/api/v1/files/${segment}")
                                 // Можно добавить другие фильтры, например, для изменения размера запроса, если нужно
                                 // f.requestSize(10 * 1024 * 1024) // Пример: 10MB
+                                .filter(uploadRateLimitFilter)
+                                .filter(uploadConcurrencyLimitFilter)
+                                .circuitBreaker(circuitBreaker("file-storage"))
                         )
                         .uri(fileStorageServiceUrl)) // URI сервиса, куда перенаправлять
 
+                // Сырое тело запроса без multipart, передаётся в хранилище потоком
+                .route("file_storage_stream_upload", r -> r.path("/api/v1/gateway/storage/upload/stream")
+                        .and().method(HttpMethod.POST)
+                        .filters(f -> f.rewritePath("/api/v1/gateway/storage/(?<segment>.*)", "/api/v1/files/${segment}")
+                                .filter(uploadRateLimitFilter)
+                                .filter(uploadConcurrencyLimitFilter)
+                                .circuitBreaker(circuitBreaker("file-storage")))
+                        .uri(fileStorageServiceUrl))
+
+                // Возобновляемая загрузка по частям: лимит запросов считается по инициациям, а не по частям
+                .route("file_storage_chunked_upload_initiate", r -> r.path("/api/v1/gateway/storage/uploads")
+                        .and().method(HttpMethod.POST)
+                        .filters(f -> f.rewritePath("/api/v1/gateway/storage/(?<segment>.*)", "/api/v1/files/${segment}")
+                                .filter(uploadRateLimitFilter)
+                                .circuitBreaker(circuitBreaker("file-storage")))
+                        .uri(fileStorageServiceUrl))
+
+                // Возобновляемая загрузка по частям: части, статус, завершение, отмена
+                .route("file_storage_chunked_upload", r -> r.path("/api/v1/gateway/storage/uploads/**")
+                        .filters(f -> f.rewritePath("/api/v1/gateway/storage/(?<segment>.*)", "/api/v1/files/${segment}")
+                                .filter(uploadConcurrencyLimitFilter)
+                                .circuitBreaker(circuitBreaker("file-storage")))
+                        .uri(fileStorageServiceUrl))
+
                 .route("file_storage_download", r -> r.path("/api/v1/gateway/storage/{fileId}")
                         .and().method(HttpMethod.GET)
-                        .filters(f -> f.rewritePath("/api/v1/gateway/storage/(?<segment>.*)", "/api/v1/files/${segment}"))
+                        .filters(f -> f.rewritePath("/api/v1/gateway/storage/(?<segment>.*)", "/api/v1/files/${segment}")
+                                .filter(storageResponseCacheFilter)
+                                .circuitBreaker(circuitBreaker("file-storage"))
+                                .retry(this::retryIdempotent))
                         .uri(fileStorageServiceUrl))
 
                 .route("file_storage_metadata", r -> r.path("/api/v1/gateway/storage/{fileId}/metadata")
                         .and().method(HttpMethod.GET)
-                        .filters(f -> f.rewritePath("/api/v1/gateway/storage/(?<segment>.*)", "/api/v1/files/${segment}"))
+                        .filters(f -> f.rewritePath("/api/v1/gateway/storage/(?<segment>.*)", "/api/v1/files/${segment}")
+                                .filter(storageResponseCacheFilter)
+                                .circuitBreaker(circuitBreaker("file-storage"))
+                                .retry(this::retryIdempotent))
                         .uri(fileStorageServiceUrl))
 
+                // Declared before file_analyzer_results, whose {fileId} pattern would match "stream" as well
+                .route("file_analyzer_results_stream", r -> r.path("/api/v1/gateway/analyzer/results/stream")
+                        .and().method(HttpMethod.GET)
+                        .filters(f -> f.rewritePath("/api/v1/gateway/analyzer/(?<segment>.*)", "/api/v1/analysis/${segment}"))
+                        .uri(fileAnalyzerServiceUrl))
+
                 .route("file_analyzer_results", r -> r.path("/api/v1/gateway/analyzer/results/{fileId}")
                         .and().method(HttpMethod.GET)
-                        .filters(f -> f.rewritePath("/api/v1/gateway/analyzer/(?<segment>.*)", "/api/v1/analysis/${segment}")) // Предполагаемый путь на анализаторе
+                        .filters(f -> f.rewritePath("/api/v1/gateway/analyzer/(?<segment>.*)", "/api/v1/analysis/${segment}") // Предполагаемый путь на анализаторе
+                                .circuitBreaker(circuitBreaker("file-analyzer"))
+                                .retry(this::retryIdempotent))
+                        .uri(fileAnalyzerServiceUrl))
+
+                .route("file_analyzer_results_batch", r -> r.path("/api/v1/gateway/analyzer/results/batch")
+                        .and().method(HttpMethod.POST)
+                        .filters(f -> f.rewritePath("/api/v1/gateway/analyzer/(?<segment>.*)", "/api/v1/analysis/${segment}")
+                                .circuitBreaker(circuitBreaker("file-analyzer")))
                         .uri(fileAnalyzerServiceUrl))
                 .build();
     }
+
+    // Один автомат на сервис; ошибки клиента (4xx) на него не влияют
+    private static Consumer<SpringCloudCircuitBreakerFilterFactory.Config> circuitBreaker(String name) {
+        return config -> config.setName(name).setStatusCodes(Set.of("502", "503", "504"));
+    }
+
+    // Повторяются только идемпотентные GET; балансировщик выбирает для повтора другой экземпляр
+    private void retryIdempotent(RetryGatewayFilterFactory.RetryConfig config) {
+        config.setRetries(retries)
+                .setMethods(HttpMethod.GET)
+                .setSeries()
+                .setStatuses(HttpStatus.BAD_GATEWAY, HttpStatus.SERVICE_UNAVAILABLE, HttpStatus.GATEWAY_TIMEOUT)
+                .setBackoff(Duration.ofMillis(50), Duration.ofMillis(500), 2, true);
+    }
 }
@@ -0,0 +1,25 @@
+package com.example.gateway.config;
+
+import com.example.gateway.loadbalancer.InFlightRequestFilter;
+import com.example.gateway.loadbalancer.InFlightRequestTracker;
+import com.example.gateway.loadbalancer.LeastOutstandingRequestsLoadBalancerConfiguration;
+import org.springframework.cloud.loadbalancer.annotation.LoadBalancerClients;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+// Экземпляры сервисов задаются статически в spring.cloud.discovery.client.simple.instances
+@Configuration
+@LoadBalancerClients(defaultConfiguration = LeastOutstandingRequestsLoadBalancerConfiguration.class)
+public class LoadBalancerConfig {
+
+    // Общий для балансировщиков всех сервисов, которые создаются в дочерних контекстах
+    @Bean
+    public InFlightRequestTracker inFlightRequestTracker() {
+        return new InFlightRequestTracker();
+    }
+
+    @Bean
+    public InFlightRequestFilter inFlightRequestFilter(InFlightRequestTracker inFlightRequestTracker) {
+        return new InFlightRequestFilter(inFlightRequestTracker);
+    }
+}
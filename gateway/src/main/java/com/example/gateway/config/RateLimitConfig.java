@@ -0,0 +1,50 @@
+package com.example.gateway.config;
+
+import com.example.gateway.filter.ConcurrencyLimitGatewayFilter;
+import com.example.gateway.filter.RateLimitGatewayFilter;
+import com.example.gateway.ratelimit.InMemoryTokenBucketStore;
+import com.example.gateway.ratelimit.RateLimitBackend;
+import com.example.gateway.ratelimit.RedisTokenBucketStore;
+import com.example.gateway.ratelimit.TokenBucketStore;
+import com.example.gateway.ratelimit.TokenBucketStore.Limits;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+
+@Configuration
+public class RateLimitConfig {
+
+    @Bean
+    public TokenBucketStore tokenBucketStore(
+            @Value("${app.gateway.rate-limit.backend:MEMORY}") RateLimitBackend backend,
+            @Value("${app.gateway.rate-limit.max-tracked-keys:100000}") int maxTrackedKeys,
+            @Value("${app.gateway.rate-limit.redis-key-prefix:gateway:rate-limit:}") String redisKeyPrefix,
+            ObjectProvider<ReactiveStringRedisTemplate> redisTemplate) {
+        if (backend == RateLimitBackend.REDIS) {
+            return new RedisTokenBucketStore(redisTemplate.getObject(), redisKeyPrefix);
+        }
+        return new InMemoryTokenBucketStore(maxTrackedKeys);
+    }
+
+    // Лимит на загрузки: отдельно для каждого пользователя и общий для всех
+    @Bean
+    public RateLimitGatewayFilter uploadRateLimitFilter(
+            TokenBucketStore tokenBucketStore,
+            @Value("${app.gateway.rate-limit.upload.user.replenish-rate:5}") double userReplenishRate,
+            @Value("${app.gateway.rate-limit.upload.user.burst-capacity:20}") long userBurstCapacity,
+            @Value("${app.gateway.rate-limit.upload.global.replenish-rate:200}") double globalReplenishRate,
+            @Value("${app.gateway.rate-limit.upload.global.burst-capacity:400}") long globalBurstCapacity) {
+        return new RateLimitGatewayFilter(tokenBucketStore, "upload",
+                new Limits(userReplenishRate, userBurstCapacity),
+                new Limits(globalReplenishRate, globalBurstCapacity));
+    }
+
+    @Bean
+    public ConcurrencyLimitGatewayFilter uploadConcurrencyLimitFilter(
+            @Value("${app.gateway.upload.max-in-flight:64}") int maxInFlight,
+            @Value("${app.gateway.upload.retry-after-seconds:1}") long retryAfterSeconds) {
+        return new ConcurrencyLimitGatewayFilter("upload", maxInFlight, retryAfterSeconds);
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.gateway.config;
+
+import io.opentelemetry.exporter.logging.otlp.OtlpJsonLoggingSpanExporter;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class TracingConfig {
+
+    // Спаны в формате OTLP JSON пишутся в лог, когда коллектора нет; OTLP-экспорт включается через management.otlp.tracing.endpoint
+    @Bean
+    @ConditionalOnProperty(name = "app.tracing.logging-exporter.enabled", havingValue = "true")
+    public SpanExporter loggingSpanExporter() {
+        return OtlpJsonLoggingSpanExporter.create();
+    }
+}
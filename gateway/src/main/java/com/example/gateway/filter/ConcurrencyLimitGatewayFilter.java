@@ -0,0 +1,51 @@
+package com.example.gateway.filter;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Admission control: at most {@code maxInFlight} requests are proxied at a time, the rest are rejected right away
+ * with {@code 503 Service Unavailable} and {@code Retry-After} instead of being queued. Queueing would only add
+ * waiting time to every request once the upstream is saturated; rejecting keeps the latency of admitted requests
+ * bounded and lets clients back off.
+ */
+@Slf4j
+public class ConcurrencyLimitGatewayFilter implements GatewayFilter {
+
+    private final String name;
+    private final int maxInFlight;
+    private final long retryAfterSeconds;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    public ConcurrencyLimitGatewayFilter(String name, int maxInFlight, long retryAfterSeconds) {
+        this.name = name;
+        this.maxInFlight = maxInFlight;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        if (inFlight.incrementAndGet() > maxInFlight) {
+            inFlight.decrementAndGet();
+            log.debug("Rejected {} request, {} already in flight", name, maxInFlight);
+            ServerHttpResponse response = exchange.getResponse();
+            response.setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+            response.getHeaders().set(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+            return response.setComplete();
+        }
+        // Released once on completion, error or client cancellation
+        return chain.filter(exchange).doFinally(signal -> inFlight.decrementAndGet());
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.gateway.filter;
+
+import com.example.gateway.ratelimit.TokenBucketStore;
+import com.example.gateway.ratelimit.TokenBucketStore.Limits;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.net.InetSocketAddress;
+
+/**
+ * Token-bucket rate limiting per user and for all users together. The user is taken from the {@code userId}
+ * query parameter, then from the {@code X-User-Id} header; requests carrying neither are limited per client
+ * address. The user's bucket is checked first, so a user who is over their own limit does not use up the
+ * global budget. Rejected requests get {@code 429 Too Many Requests} with {@code Retry-After}.
+ */
+@Slf4j
+public class RateLimitGatewayFilter implements GatewayFilter {
+
+    public static final String USER_ID_HEADER = "X-User-Id";
+    public static final String REMAINING_HEADER = "X-RateLimit-Remaining";
+
+    private static final String GLOBAL_KEY = "global";
+
+    private final TokenBucketStore store;
+    private final String name;
+    private final Limits userLimits;
+    private final Limits globalLimits;
+
+    public RateLimitGatewayFilter(TokenBucketStore store, String name, Limits userLimits, Limits globalLimits) {
+        this.store = store;
+        this.name = name;
+        this.userLimits = userLimits;
+        this.globalLimits = globalLimits;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        String userKey = name + ":user:" + resolveUser(exchange.getRequest());
+        return store.tryConsume(userKey, userLimits).flatMap(user -> {
+            if (!user.allowed()) {
+                return reject(exchange, userLimits, "user " + userKey);
+            }
+            return store.tryConsume(name + ":" + GLOBAL_KEY, globalLimits).flatMap(global -> {
+                if (!global.allowed()) {
+                    return reject(exchange, globalLimits, "all users");
+                }
+                if (user.remainingTokens() >= 0) {
+                    exchange.getResponse().getHeaders().set(REMAINING_HEADER, Long.toString(user.remainingTokens()));
+                }
+                return chain.filter(exchange);
+            });
+        });
+    }
+
+    private String resolveUser(ServerHttpRequest request) {
+        String userId = request.getQueryParams().getFirst("userId");
+        if (userId == null || userId.isBlank()) {
+            userId = request.getHeaders().getFirst(USER_ID_HEADER);
+        }
+        if (userId != null && !userId.isBlank()) {
+            return userId;
+        }
+        InetSocketAddress remoteAddress = request.getRemoteAddress();
+        return "address:" + (remoteAddress != null ? remoteAddress.getAddress().getHostAddress() : "unknown");
+    }
+
+    private Mono<Void> reject(ServerWebExchange exchange, Limits limits, String limited) {
+        log.debug("Rate limit of {} exceeded for {}", name, limited);
+        ServerHttpResponse response = exchange.getResponse();
+        response.setStatusCode(HttpStatus.TOO_MANY_REQUESTS);
+        response.getHeaders().set(REMAINING_HEADER, "0");
+        // Time until the next token; at least one second, the resolution of Retry-After
+        response.getHeaders().set(HttpHeaders.RETRY_AFTER,
+                Long.toString(Math.max(1, (long) Math.ceil(1 / limits.replenishRate()))));
+        return response.setComplete();
+    }
+}
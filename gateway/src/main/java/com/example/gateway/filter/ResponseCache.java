@@ -0,0 +1,51 @@
+package com.example.gateway.filter;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatusCode;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * LRU cache of complete responses, bounded by the total size of the cached bodies rather than the entry count,
+ * since bodies range from a few hundred bytes of metadata to whole files.
+ */
+public class ResponseCache {
+
+    private final long maxBytes;
+    private final Map<String, CachedResponse> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes;
+
+    public ResponseCache(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    public synchronized CachedResponse get(String key) {
+        return entries.get(key);
+    }
+
+    public synchronized void put(String key, CachedResponse response) {
+        if (response.body().length > maxBytes) {
+            return;
+        }
+        CachedResponse previous = entries.put(key, response);
+        if (previous != null) {
+            totalBytes -= previous.body().length;
+        }
+        totalBytes += response.body().length;
+
+        Iterator<CachedResponse> eldest = entries.values().iterator();
+        while (totalBytes > maxBytes && eldest.hasNext()) {
+            totalBytes -= eldest.next().body().length;
+            eldest.remove();
+        }
+    }
+
+    public synchronized long size() {
+        return totalBytes;
+    }
+
+    public record CachedResponse(HttpStatusCode status, HttpHeaders headers, byte[] body) {
+    }
+}
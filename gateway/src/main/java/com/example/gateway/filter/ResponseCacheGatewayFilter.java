@@ -0,0 +1,171 @@
+package com.example.gateway.filter;
+
+import com.example.gateway.filter.ResponseCache.CachedResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.reactivestreams.Publisher;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Caches responses of routes whose content never changes once created, such as stored files and their metadata.
+ * <p>
+ * A hit is answered without calling the upstream service, including {@code 304 Not Modified} for a matching
+ * {@code If-None-Match}. Concurrent misses for the same key are coalesced: the first request goes upstream and
+ * streams the body to its client while capturing it, the others wait and are answered from the captured copy.
+ * If the leader's response turns out not to be cacheable (an error status, a body above the entry limit or an
+ * aborted transfer), the waiting requests go upstream themselves.
+ * <p>
+ * Range requests are always passed through unchanged, so the storage service answers them with partial content;
+ * conditional requests that miss the cache are passed through as well.
+ */
+@Slf4j
+public class ResponseCacheGatewayFilter implements GatewayFilter {
+
+    public static final String CACHE_STATUS_HEADER = "X-Cache";
+
+    // Connection-specific headers of the upstream response that must not be replayed
+    private static final List<String> EXCLUDED_HEADERS = List.of(
+            HttpHeaders.TRANSFER_ENCODING, HttpHeaders.CONNECTION, "Keep-Alive");
+
+    private final ResponseCache cache;
+    private final long maxEntryBytes;
+    private final Map<String, Sinks.One<Optional<CachedResponse>>> inFlight = new ConcurrentHashMap<>();
+
+    public ResponseCacheGatewayFilter(ResponseCache cache, long maxEntryBytes) {
+        this.cache = cache;
+        this.maxEntryBytes = maxEntryBytes;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        ServerHttpRequest request = exchange.getRequest();
+        if (request.getMethod() != HttpMethod.GET) {
+            return chain.filter(exchange);
+        }
+        HttpHeaders requestHeaders = request.getHeaders();
+        if (requestHeaders.containsKey(HttpHeaders.RANGE)) {
+            return chain.filter(exchange);
+        }
+        String key = request.getURI().getRawPath()
+                + (request.getURI().getRawQuery() != null ? "?" + request.getURI().getRawQuery() : "");
+
+        CachedResponse cached = cache.get(key);
+        if (cached != null) {
+            return writeCached(exchange, cached, "HIT");
+        }
+
+        if (requestHeaders.containsKey(HttpHeaders.IF_NONE_MATCH)
+                || requestHeaders.containsKey(HttpHeaders.IF_MODIFIED_SINCE)) {
+            return chain.filter(exchange);
+        }
+
+        Sinks.One<Optional<CachedResponse>> sink = Sinks.one();
+        Sinks.One<Optional<CachedResponse>> leader = inFlight.putIfAbsent(key, sink);
+        if (leader != null) {
+            return leader.asMono().flatMap(response -> response
+                    .map(shared -> writeCached(exchange, shared, "COALESCED"))
+                    .orElseGet(() -> chain.filter(exchange)));
+        }
+
+        exchange.getResponse().getHeaders().set(CACHE_STATUS_HEADER, "MISS");
+        CapturingResponse capturingResponse = new CapturingResponse(exchange.getResponse(), key, sink);
+        return chain.filter(exchange.mutate().response(capturingResponse).build())
+                .doFinally(signal -> {
+                    // Releases the waiting requests if the body was never written or its capture did not complete
+                    inFlight.remove(key, sink);
+                    sink.tryEmitValue(Optional.empty());
+                });
+    }
+
+    private Mono<Void> writeCached(ServerWebExchange exchange, CachedResponse cached, String cacheStatus) {
+        ServerHttpResponse response = exchange.getResponse();
+        response.getHeaders().putAll(cached.headers());
+        response.getHeaders().set(CACHE_STATUS_HEADER, cacheStatus);
+
+        String etag = cached.headers().getETag();
+        if (etag != null && exchange.checkNotModified(etag)) {
+            return response.setComplete();
+        }
+        response.setStatusCode(cached.status());
+        return response.writeWith(Mono.fromSupplier(() -> response.bufferFactory().wrap(cached.body())));
+    }
+
+    /**
+     * Streams the upstream body to the client and keeps a copy of it, which is cached once the transfer completes.
+     */
+    private class CapturingResponse extends ServerHttpResponseDecorator {
+
+        private final String key;
+        private final Sinks.One<Optional<CachedResponse>> sink;
+
+        CapturingResponse(ServerHttpResponse delegate, String key, Sinks.One<Optional<CachedResponse>> sink) {
+            super(delegate);
+            this.key = key;
+            this.sink = sink;
+        }
+
+        @Override
+        public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+            long contentLength = getHeaders().getContentLength();
+            if (getStatusCode() != HttpStatus.OK || contentLength > maxEntryBytes) {
+                return super.writeWith(body);
+            }
+
+            ByteArrayOutputStream captured = new ByteArrayOutputStream(contentLength > 0 ? (int) contentLength : 1024);
+            boolean[] overflow = {false};
+            Flux<? extends DataBuffer> capturingBody = Flux.from(body)
+                    .doOnNext(buffer -> {
+                        if (overflow[0]) {
+                            return;
+                        }
+                        if (captured.size() + buffer.readableByteCount() > maxEntryBytes) {
+                            overflow[0] = true;
+                            captured.reset();
+                            return;
+                        }
+                        try (DataBuffer.ByteBufferIterator iterator = buffer.readableByteBuffers()) {
+                            while (iterator.hasNext()) {
+                                ByteBuffer chunk = iterator.next();
+                                byte[] bytes = new byte[chunk.remaining()];
+                                chunk.get(bytes);
+                                captured.writeBytes(bytes);
+                            }
+                        }
+                    });
+
+            return super.writeWith(capturingBody)
+                    .doOnSuccess(done -> {
+                        if (overflow[0]) {
+                            return;
+                        }
+                        HttpHeaders headers = new HttpHeaders();
+                        headers.putAll(getHeaders());
+                        EXCLUDED_HEADERS.forEach(headers::remove);
+                        headers.remove(CACHE_STATUS_HEADER);
+                        CachedResponse response = new CachedResponse(HttpStatus.OK, HttpHeaders.readOnlyHttpHeaders(headers),
+                                captured.toByteArray());
+                        cache.put(key, response);
+                        sink.tryEmitValue(Optional.of(response));
+                        log.debug("Cached {} bytes for {}", response.body().length, key);
+                    });
+        }
+    }
+}
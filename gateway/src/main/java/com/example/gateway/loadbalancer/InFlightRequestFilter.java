@@ -0,0 +1,45 @@
+package com.example.gateway.loadbalancer;
+
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.ReactiveLoadBalancerClientFilter;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+/**
+ * Counts each proxied request against the instance the load balancer chose for it, from right after the choice
+ * until the exchange ends. Unlike the load balancer lifecycle callbacks, {@code doFinally} also runs when the
+ * client goes away mid-response, as it does for event streams and aborted downloads.
+ * <p>
+ * Runs once per attempt when the route retries, since the retry filter replays the rest of the chain.
+ */
+public class InFlightRequestFilter implements GlobalFilter, Ordered {
+
+    private final InFlightRequestTracker tracker;
+
+    public InFlightRequestFilter(InFlightRequestTracker tracker) {
+        this.tracker = tracker;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        Response<ServiceInstance> lbResponse = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_LOADBALANCER_RESPONSE_ATTR);
+        if (lbResponse == null || !lbResponse.hasServer()) {
+            return chain.filter(exchange);
+        }
+        ServiceInstance instance = lbResponse.getServer();
+        return Mono.defer(() -> {
+            tracker.started(instance);
+            return chain.filter(exchange).doFinally(signal -> tracker.finished(instance));
+        });
+    }
+
+    @Override
+    public int getOrder() {
+        return ReactiveLoadBalancerClientFilter.LOAD_BALANCER_CLIENT_FILTER_ORDER + 1;
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.gateway.loadbalancer;
+
+import org.springframework.cloud.client.ServiceInstance;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Requests in flight from this gateway per service instance, shared by the load balancers of all services.
+ * Counted by {@link InFlightRequestFilter}, read by {@link LeastOutstandingRequestsLoadBalancer}.
+ */
+public class InFlightRequestTracker {
+
+    private final Map<String, AtomicInteger> counts = new ConcurrentHashMap<>();
+
+    public void started(ServiceInstance instance) {
+        count(instance).incrementAndGet();
+    }
+
+    public void finished(ServiceInstance instance) {
+        count(instance).decrementAndGet();
+    }
+
+    public int inFlight(ServiceInstance instance) {
+        AtomicInteger count = counts.get(key(instance));
+        return count != null ? count.get() : 0;
+    }
+
+    private AtomicInteger count(ServiceInstance instance) {
+        return counts.computeIfAbsent(key(instance), key -> new AtomicInteger());
+    }
+
+    private static String key(ServiceInstance instance) {
+        return instance.getHost() + ":" + instance.getPort();
+    }
+}
@@ -0,0 +1,169 @@
+package com.example.gateway.loadbalancer;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.CompletionContext;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.client.loadbalancer.EmptyResponse;
+import org.springframework.cloud.client.loadbalancer.LoadBalancerLifecycle;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.client.loadbalancer.ResponseData;
+import org.springframework.cloud.loadbalancer.core.NoopServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.core.ReactorServiceInstanceLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+/**
+ * Sends each request to the instance with the fewest requests in flight from this gateway, picking randomly
+ * among equally loaded ones. Unlike round robin this adapts to slow instances, which matters when requests range
+ * from metadata lookups to multi-gigabyte transfers.
+ * <p>
+ * Instances that fail {@code maxConsecutiveFailures} requests in a row are ejected for {@code ejectionDuration},
+ * in addition to the active health checks of the instance list supplier. Only connection errors and 502/504
+ * responses count as failures: a 503 is what a healthy instance answers when it sheds load on purpose.
+ * If every instance is ejected, they are all used again rather than failing every request.
+ * <p>
+ * Requests in flight are counted by {@link InFlightRequestFilter}; failures are observed through the
+ * {@link LoadBalancerLifecycle} callbacks of the gateway load balancer filter.
+ */
+@Slf4j
+public class LeastOutstandingRequestsLoadBalancer
+        implements ReactorServiceInstanceLoadBalancer, LoadBalancerLifecycle<Object, Object, ServiceInstance> {
+
+    private final ObjectProvider<ServiceInstanceListSupplier> supplierProvider;
+    private final InFlightRequestTracker inFlightRequests;
+    private final String serviceId;
+    private final int maxConsecutiveFailures;
+    private final long ejectionNanos;
+    private final LongSupplier nanoClock;
+    private final Map<String, InstanceState> states = new ConcurrentHashMap<>();
+
+    public LeastOutstandingRequestsLoadBalancer(ObjectProvider<ServiceInstanceListSupplier> supplierProvider,
+                                                InFlightRequestTracker inFlightRequests, String serviceId,
+                                                int maxConsecutiveFailures, Duration ejectionDuration) {
+        this(supplierProvider, inFlightRequests, serviceId, maxConsecutiveFailures, ejectionDuration, System::nanoTime);
+    }
+
+    /**
+     * @param nanoClock monotonic time in nanoseconds, {@link System#nanoTime()} outside of tests
+     */
+    LeastOutstandingRequestsLoadBalancer(ObjectProvider<ServiceInstanceListSupplier> supplierProvider,
+                                         InFlightRequestTracker inFlightRequests, String serviceId,
+                                         int maxConsecutiveFailures, Duration ejectionDuration, LongSupplier nanoClock) {
+        this.supplierProvider = supplierProvider;
+        this.inFlightRequests = inFlightRequests;
+        this.serviceId = serviceId;
+        this.maxConsecutiveFailures = maxConsecutiveFailures;
+        this.ejectionNanos = ejectionDuration.toNanos();
+        this.nanoClock = nanoClock;
+    }
+
+    @Override
+    public Mono<Response<ServiceInstance>> choose(Request request) {
+        ServiceInstanceListSupplier supplier = supplierProvider.getIfAvailable(NoopServiceInstanceListSupplier::new);
+        return supplier.get(request).next().map(this::choose);
+    }
+
+    private Response<ServiceInstance> choose(List<ServiceInstance> instances) {
+        if (instances.isEmpty()) {
+            log.warn("No instances available for service {}", serviceId);
+            return new EmptyResponse();
+        }
+        long now = nanoClock.getAsLong();
+        List<ServiceInstance> candidates = new ArrayList<>(instances.size());
+        for (ServiceInstance instance : instances) {
+            if (!state(instance).isEjected(now)) {
+                candidates.add(instance);
+            }
+        }
+        if (candidates.isEmpty()) {
+            candidates = instances;
+        }
+
+        ServiceInstance chosen = null;
+        int fewest = Integer.MAX_VALUE;
+        int ties = 0;
+        for (ServiceInstance instance : candidates) {
+            int outstanding = inFlightRequests.inFlight(instance);
+            if (outstanding < fewest) {
+                chosen = instance;
+                fewest = outstanding;
+                ties = 1;
+            } else if (outstanding == fewest && ThreadLocalRandom.current().nextInt(++ties) == 0) {
+                // Reservoir sampling keeps the choice uniform among all equally loaded instances
+                chosen = instance;
+            }
+        }
+        return new DefaultResponse(chosen);
+    }
+
+    @Override
+    public boolean supports(Class requestContextClass, Class responseClass, Class serverTypeClass) {
+        return ServiceInstance.class.isAssignableFrom(serverTypeClass);
+    }
+
+    @Override
+    public void onStart(Request<Object> request) {
+    }
+
+    @Override
+    public void onStartRequest(Request<Object> request, Response<ServiceInstance> lbResponse) {
+    }
+
+    @Override
+    public void onComplete(CompletionContext<Object, ServiceInstance, Object> completionContext) {
+        Response<ServiceInstance> lbResponse = completionContext.getLoadBalancerResponse();
+        if (lbResponse == null || !lbResponse.hasServer()) {
+            return;
+        }
+        InstanceState state = state(lbResponse.getServer());
+
+        boolean failed = completionContext.status() == CompletionContext.Status.FAILED
+                || completionContext.getClientResponse() instanceof ResponseData response
+                && isUpstreamFailure(response.getHttpStatus());
+        if (!failed) {
+            state.consecutiveFailures.set(0);
+        } else if (state.consecutiveFailures.incrementAndGet() >= maxConsecutiveFailures) {
+            state.consecutiveFailures.set(0);
+            state.ejectedUntil = nanoClock.getAsLong() + ejectionNanos;
+            log.warn("Ejecting instance {} of service {} after {} consecutive failures",
+                    lbResponse.getServer().getUri(), serviceId, maxConsecutiveFailures);
+        }
+    }
+
+    private static boolean isUpstreamFailure(HttpStatusCode status) {
+        return status != null && (status.value() == HttpStatus.BAD_GATEWAY.value()
+                || status.value() == HttpStatus.GATEWAY_TIMEOUT.value());
+    }
+
+    private InstanceState state(ServiceInstance instance) {
+        return states.computeIfAbsent(instance.getHost() + ":" + instance.getPort(), key -> new InstanceState(nanoClock.getAsLong()));
+    }
+
+    private static final class InstanceState {
+
+        private final AtomicInteger consecutiveFailures = new AtomicInteger();
+        private volatile long ejectedUntil;
+
+        InstanceState(long now) {
+            this.ejectedUntil = now;
+        }
+
+        boolean isEjected(long now) {
+            return now - ejectedUntil < 0;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.gateway.loadbalancer;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.loadbalancer.core.ReactorLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.support.LoadBalancerClientFactory;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.env.Environment;
+
+import java.time.Duration;
+
+/**
+ * Load balancer configuration of every service, created in the child context of each one. Deliberately not
+ * a {@code @Configuration}, so it is only picked up through {@code @LoadBalancerClients}.
+ */
+public class LeastOutstandingRequestsLoadBalancerConfiguration {
+
+    // Instances from the static list, minus the ones whose health endpoint does not answer
+    @Bean
+    public ServiceInstanceListSupplier serviceInstanceListSupplier(ConfigurableApplicationContext context) {
+        return ServiceInstanceListSupplier.builder()
+                .withDiscoveryClient()
+                .withHealthChecks()
+                .build(context);
+    }
+
+    @Bean
+    public ReactorLoadBalancer<ServiceInstance> leastOutstandingRequestsLoadBalancer(
+            Environment environment,
+            LoadBalancerClientFactory loadBalancerClientFactory,
+            InFlightRequestTracker inFlightRequestTracker,
+            @Value("${app.gateway.load-balancer.max-consecutive-failures:3}") int maxConsecutiveFailures,
+            @Value("${app.gateway.load-balancer.ejection-duration:10s}") Duration ejectionDuration) {
+        String serviceId = environment.getProperty(LoadBalancerClientFactory.PROPERTY_NAME);
+        return new LeastOutstandingRequestsLoadBalancer(
+                loadBalancerClientFactory.getLazyProvider(serviceId, ServiceInstanceListSupplier.class),
+                inFlightRequestTracker, serviceId, maxConsecutiveFailures, ejectionDuration);
+    }
+}
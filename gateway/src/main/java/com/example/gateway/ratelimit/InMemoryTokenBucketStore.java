@@ -0,0 +1,96 @@
+package com.example.gateway.ratelimit;
+
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Token buckets in the memory of this instance. Buckets are refilled lazily on access, so idle keys cost nothing
+ * but their entry; once more than {@code maxKeys} keys are tracked, buckets that have refilled completely are
+ * dropped, at most once per second, since a full bucket is the same as a missing one.
+ */
+public class InMemoryTokenBucketStore implements TokenBucketStore {
+
+    private static final long PRUNE_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final int maxKeys;
+    private final LongSupplier nanoClock;
+    private final Map<String, Bucket> buckets = new ConcurrentHashMap<>();
+    private final AtomicLong lastPrune;
+
+    public InMemoryTokenBucketStore(int maxKeys) {
+        this(maxKeys, System::nanoTime);
+    }
+
+    /**
+     * @param nanoClock monotonic time in nanoseconds, {@link System#nanoTime()} outside of tests
+     */
+    InMemoryTokenBucketStore(int maxKeys, LongSupplier nanoClock) {
+        this.maxKeys = maxKeys;
+        this.nanoClock = nanoClock;
+        this.lastPrune = new AtomicLong(nanoClock.getAsLong());
+    }
+
+    @Override
+    public Mono<Result> tryConsume(String key, Limits limits) {
+        long now = nanoClock.getAsLong();
+        Bucket bucket = buckets.computeIfAbsent(key, k -> new Bucket(limits.burstCapacity(), now));
+        Result result = bucket.tryConsume(limits, now);
+        if (buckets.size() > maxKeys) {
+            prune(now);
+        }
+        return Mono.just(result);
+    }
+
+    int size() {
+        return buckets.size();
+    }
+
+    private void prune(long now) {
+        long last = lastPrune.get();
+        if (now - last < PRUNE_INTERVAL_NANOS || !lastPrune.compareAndSet(last, now)) {
+            return;
+        }
+        buckets.values().removeIf(bucket -> bucket.isFull(now));
+    }
+
+    private static final class Bucket {
+
+        private double tokens;
+        private long refilledAt;
+        private double replenishRate;
+        private long burstCapacity;
+
+        Bucket(long burstCapacity, long now) {
+            this.tokens = burstCapacity;
+            this.burstCapacity = burstCapacity;
+            this.refilledAt = now;
+        }
+
+        synchronized Result tryConsume(Limits limits, long now) {
+            replenishRate = limits.replenishRate();
+            burstCapacity = limits.burstCapacity();
+            refill(now);
+            if (tokens >= 1) {
+                tokens -= 1;
+                return new Result(true, (long) tokens);
+            }
+            return new Result(false, 0);
+        }
+
+        synchronized boolean isFull(long now) {
+            refill(now);
+            return tokens >= burstCapacity;
+        }
+
+        private void refill(long now) {
+            double elapsedSeconds = (now - refilledAt) / 1e9;
+            tokens = Math.min(burstCapacity, tokens + elapsedSeconds * replenishRate);
+            refilledAt = now;
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package com.example.gateway.ratelimit;
+
+public enum RateLimitBackend {
+    // Buckets of this gateway instance only; limits apply per instance
+    MEMORY,
+    // Buckets shared by all gateway instances through Redis or a compatible server
+    REDIS
+}
@@ -0,0 +1,41 @@
+package com.example.gateway.ratelimit;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Token buckets shared by all gateway instances, updated atomically by a Lua script. If Redis is unavailable,
+ * requests are allowed rather than rejected, so the limiter never becomes an outage of its own.
+ */
+@Slf4j
+public class RedisTokenBucketStore implements TokenBucketStore {
+
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/token_bucket.lua"), List.class);
+
+    private final ReactiveStringRedisTemplate redisTemplate;
+    private final String keyPrefix;
+
+    public RedisTokenBucketStore(ReactiveStringRedisTemplate redisTemplate, String keyPrefix) {
+        this.redisTemplate = redisTemplate;
+        this.keyPrefix = keyPrefix;
+    }
+
+    @Override
+    public Mono<Result> tryConsume(String key, Limits limits) {
+        return redisTemplate.execute(SCRIPT, List.of(keyPrefix + key),
+                        List.of(Double.toString(limits.replenishRate()), Long.toString(limits.burstCapacity())))
+                .next()
+                .map(reply -> new Result(((Number) reply.get(0)).longValue() == 1, ((Number) reply.get(1)).longValue()))
+                .onErrorResume(e -> {
+                    log.warn("Rate limiter backend is unavailable, allowing request: {}", e.getMessage());
+                    return Mono.just(new Result(true, -1));
+                });
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.gateway.ratelimit;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Storage of token buckets. A bucket starts full, holds at most {@code burstCapacity} tokens and is refilled
+ * continuously at {@code replenishRate} tokens per second; every request takes one token.
+ */
+public interface TokenBucketStore {
+
+    Mono<Result> tryConsume(String key, Limits limits);
+
+    record Limits(double replenishRate, long burstCapacity) {
+
+        public Limits {
+            if (replenishRate <= 0 || burstCapacity < 1) {
+                throw new IllegalArgumentException("Replenish rate and burst capacity must be positive");
+            }
+        }
+    }
+
+    record Result(boolean allowed, long remainingTokens) {
+    }
+}
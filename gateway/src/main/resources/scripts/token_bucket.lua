@@ -0,0 +1,22 @@
+-- KEYS[1] - bucket key; ARGV[1] - tokens per second; ARGV[2] - burst capacity
+-- Returns {allowed (0/1), remaining whole tokens}. Uses the server clock, so all gateway instances agree.
+local rate = tonumber(ARGV[1])
+local capacity = tonumber(ARGV[2])
+local time = redis.call('TIME')
+local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)
+
+local state = redis.call('HMGET', KEYS[1], 'tokens', 'ts')
+local tokens = tonumber(state[1]) or capacity
+local refilled_at = tonumber(state[2]) or now
+tokens = math.min(capacity, tokens + math.max(0, now - refilled_at) * rate / 1000)
+
+local allowed = 0
+if tokens >= 1 then
+    tokens = tokens - 1
+    allowed = 1
+end
+
+redis.call('HSET', KEYS[1], 'tokens', tostring(tokens), 'ts', now)
+-- A bucket that has been idle long enough to refill is the same as a missing one
+redis.call('PEXPIRE', KEYS[1], math.ceil(capacity / rate * 1000) + 1000)
+return {allowed, math.floor(tokens)}
@@ -0,0 +1,273 @@
+package com.example.gateway.filter;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.http.server.reactive.MockServerHttpResponse;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ResponseCacheGatewayFilterTest {
+
+    private static final String PATH = "/api/v1/files/file-1";
+    private static final String ETAG = "\"d1g3st\"";
+    private static final String BODY = "0123456789abcdefghij";
+
+    private final ResponseCache cache = new ResponseCache(1024);
+    private final ResponseCacheGatewayFilter filter = new ResponseCacheGatewayFilter(cache, 64);
+    private final AtomicInteger upstreamCalls = new AtomicInteger();
+
+    // Answers with BODY, split into two chunks and with Content-Length
+    private final GatewayFilterChain upstream = exchange -> {
+        upstreamCalls.incrementAndGet();
+        return respond(exchange.getResponse(), HttpStatus.OK, true, BODY.substring(0, 10), BODY.substring(10));
+    };
+
+    @Test
+    void cachesOkResponseAndAnswersHitsWithoutUpstream() {
+        MockServerWebExchange miss = get();
+        filter.filter(miss, upstream).block();
+        MockServerWebExchange hit = get();
+        filter.filter(hit, upstream).block();
+
+        assertThat(upstreamCalls).hasValue(1);
+        assertThat(bodyOf(miss)).isEqualTo(BODY);
+        assertThat(cacheStatus(miss)).isEqualTo("MISS");
+        assertThat(hit.getResponse().getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(hit.getResponse().getHeaders().getETag()).isEqualTo(ETAG);
+        assertThat(cacheStatus(hit)).isEqualTo("HIT");
+        assertThat(bodyOf(hit)).isEqualTo(BODY);
+        assertThat(cache.size()).isEqualTo(BODY.length());
+    }
+
+    @Test
+    void keyIncludesQuery() {
+        filter.filter(get(), upstream).block();
+        filter.filter(MockServerWebExchange.from(MockServerHttpRequest.get(PATH + "?download=true")), upstream).block();
+
+        assertThat(upstreamCalls).hasValue(2);
+    }
+
+    @Test
+    void answersMatchingIfNoneMatchOnHitWithNotModified() {
+        filter.filter(get(), upstream).block();
+
+        MockServerWebExchange conditional = MockServerWebExchange.from(
+                MockServerHttpRequest.get(PATH).header(HttpHeaders.IF_NONE_MATCH, ETAG));
+        filter.filter(conditional, upstream).block();
+
+        assertThat(upstreamCalls).hasValue(1);
+        assertThat(conditional.getResponse().getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(cacheStatus(conditional)).isEqualTo("HIT");
+        assertThat(bodyOf(conditional)).isEmpty();
+    }
+
+    @Test
+    void coalescesConcurrentMissesIntoOneUpstreamCall() throws Exception {
+        int requests = 8;
+        Sinks.Empty<Void> release = Sinks.empty();
+        GatewayFilterChain slowUpstream = exchange -> {
+            upstreamCalls.incrementAndGet();
+            return release.asMono().then(respond(exchange.getResponse(), HttpStatus.OK, true, BODY));
+        };
+
+        List<MockServerWebExchange> exchanges = new ArrayList<>();
+        List<CompletableFuture<Void>> responses = startConcurrently(requests, slowUpstream, exchanges);
+        release.tryEmitEmpty();
+        for (CompletableFuture<Void> response : responses) {
+            response.get(10, TimeUnit.SECONDS);
+        }
+
+        assertThat(upstreamCalls).hasValue(1);
+        assertThat(exchanges).allSatisfy(exchange -> {
+            assertThat(exchange.getResponse().getStatusCode()).isEqualTo(HttpStatus.OK);
+            assertThat(bodyOf(exchange)).isEqualTo(BODY);
+        });
+        assertThat(exchanges).map(ResponseCacheGatewayFilterTest::cacheStatus)
+                .containsOnly("MISS", "COALESCED")
+                .containsOnlyOnce("MISS");
+    }
+
+    @Test
+    void waitingRequestsGoUpstreamWhenLeaderResponseIsNotCacheable() throws Exception {
+        int requests = 4;
+        Sinks.Empty<Void> release = Sinks.empty();
+        GatewayFilterChain failingOnce = exchange -> {
+            HttpStatus status = upstreamCalls.getAndIncrement() == 0 ? HttpStatus.INTERNAL_SERVER_ERROR : HttpStatus.OK;
+            return release.asMono().then(respond(exchange.getResponse(), status, true, BODY));
+        };
+
+        List<MockServerWebExchange> exchanges = new ArrayList<>();
+        List<CompletableFuture<Void>> responses = startConcurrently(requests, failingOnce, exchanges);
+        release.tryEmitEmpty();
+        for (CompletableFuture<Void> response : responses) {
+            response.get(10, TimeUnit.SECONDS);
+        }
+
+        assertThat(upstreamCalls).hasValue(requests);
+        assertThat(exchanges).map(exchange -> exchange.getResponse().getStatusCode())
+                .containsOnlyOnce(HttpStatus.INTERNAL_SERVER_ERROR);
+        assertThat(exchanges).filteredOn(exchange -> exchange.getResponse().getStatusCode() == HttpStatus.OK)
+                .hasSize(requests - 1)
+                .allSatisfy(exchange -> assertThat(bodyOf(exchange)).isEqualTo(BODY));
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    void doesNotCacheErrorResponse() {
+        GatewayFilterChain notFound = exchange -> {
+            upstreamCalls.incrementAndGet();
+            return respond(exchange.getResponse(), HttpStatus.NOT_FOUND, true, "missing");
+        };
+
+        filter.filter(get(), notFound).block();
+        filter.filter(get(), notFound).block();
+
+        assertThat(upstreamCalls).hasValue(2);
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    void abortsCaptureOfBodyAboveEntryLimitWithoutContentLength() {
+        String large = "x".repeat(40);
+        GatewayFilterChain chunked = exchange -> {
+            upstreamCalls.incrementAndGet();
+            return respond(exchange.getResponse(), HttpStatus.OK, false, large, large);
+        };
+
+        MockServerWebExchange first = get();
+        filter.filter(first, chunked).block();
+        filter.filter(get(), chunked).block();
+
+        assertThat(bodyOf(first)).isEqualTo(large + large);
+        assertThat(upstreamCalls).hasValue(2);
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    void skipsCaptureWhenContentLengthIsAboveEntryLimit() {
+        String large = "x".repeat(65);
+        GatewayFilterChain sized = exchange -> {
+            upstreamCalls.incrementAndGet();
+            return respond(exchange.getResponse(), HttpStatus.OK, true, large);
+        };
+
+        MockServerWebExchange first = get();
+        filter.filter(first, sized).block();
+        filter.filter(get(), sized).block();
+
+        assertThat(bodyOf(first)).isEqualTo(large);
+        assertThat(upstreamCalls).hasValue(2);
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    void passesRangeRequestsThroughEvenWhenCached() {
+        filter.filter(get(), upstream).block();
+
+        MockServerWebExchange range = MockServerWebExchange.from(
+                MockServerHttpRequest.get(PATH).header(HttpHeaders.RANGE, "bytes=0-3"));
+        filter.filter(range, upstream).block();
+
+        assertThat(upstreamCalls).hasValue(2);
+        assertThat(cacheStatus(range)).isNull();
+    }
+
+    @Test
+    void passesConditionalMissThroughWithoutCaching() {
+        MockServerWebExchange conditional = MockServerWebExchange.from(
+                MockServerHttpRequest.get(PATH).header(HttpHeaders.IF_NONE_MATCH, "\"other\""));
+        filter.filter(conditional, upstream).block();
+
+        assertThat(cacheStatus(conditional)).isNull();
+        assertThat(cache.size()).isZero();
+
+        filter.filter(get(), upstream).block();
+        assertThat(upstreamCalls).hasValue(2);
+    }
+
+    @Test
+    void passesOtherMethodsThrough() {
+        filter.filter(get(), upstream).block();
+
+        MockServerWebExchange head = MockServerWebExchange.from(MockServerHttpRequest.head(PATH));
+        filter.filter(head, upstream).block();
+
+        assertThat(upstreamCalls).hasValue(2);
+        assertThat(cacheStatus(head)).isNull();
+    }
+
+    /**
+     * Runs the filter for {@code requests} identical requests from separate threads and returns once every
+     * request has reached the filter, so all of them are either leading or waiting for the upstream response.
+     */
+    private List<CompletableFuture<Void>> startConcurrently(int requests, GatewayFilterChain chain,
+                                                            List<MockServerWebExchange> exchanges) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(requests);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<CompletableFuture<Void>>> started = new ArrayList<>();
+            for (int i = 0; i < requests; i++) {
+                MockServerWebExchange exchange = get();
+                exchanges.add(exchange);
+                started.add(executor.submit(() -> {
+                    start.await();
+                    return filter.filter(exchange, chain).toFuture();
+                }));
+            }
+            start.countDown();
+
+            List<CompletableFuture<Void>> responses = new ArrayList<>();
+            for (Future<CompletableFuture<Void>> future : started) {
+                responses.add(future.get(10, TimeUnit.SECONDS));
+            }
+            return responses;
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static Mono<Void> respond(ServerHttpResponse response, HttpStatus status, boolean withContentLength,
+                                      String... chunks) {
+        response.setStatusCode(status);
+        response.getHeaders().setETag(ETAG);
+        if (withContentLength) {
+            response.getHeaders().setContentLength(String.join("", chunks).length());
+        }
+        DataBufferFactory bufferFactory = response.bufferFactory();
+        return response.writeWith(Flux.just(chunks)
+                .map(chunk -> bufferFactory.wrap(chunk.getBytes(StandardCharsets.US_ASCII))));
+    }
+
+    private static MockServerWebExchange get() {
+        return MockServerWebExchange.from(MockServerHttpRequest.get(PATH));
+    }
+
+    private static String bodyOf(MockServerWebExchange exchange) {
+        MockServerHttpResponse response = exchange.getResponse();
+        return response.getBodyAsString().defaultIfEmpty("").block();
+    }
+
+    private static String cacheStatus(MockServerWebExchange exchange) {
+        return exchange.getResponse().getHeaders().getFirst(ResponseCacheGatewayFilter.CACHE_STATUS_HEADER);
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.gateway.filter;
+
+import com.example.gateway.filter.ResponseCache.CachedResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ResponseCacheTest {
+
+    private final ResponseCache cache = new ResponseCache(25);
+
+    @Test
+    void evictsEldestEntriesOnceOverByteLimit() {
+        cache.put("a", response(10));
+        cache.put("b", response(10));
+        cache.put("c", response(10));
+
+        assertThat(cache.get("a")).isNull();
+        assertThat(cache.get("b")).isNotNull();
+        assertThat(cache.get("c")).isNotNull();
+        assertThat(cache.size()).isEqualTo(20);
+    }
+
+    @Test
+    void readsRefreshRecency() {
+        cache.put("a", response(10));
+        cache.put("b", response(10));
+        cache.get("a");
+
+        cache.put("c", response(10));
+
+        assertThat(cache.get("a")).isNotNull();
+        assertThat(cache.get("b")).isNull();
+    }
+
+    @Test
+    void evictsAsManyEntriesAsNeededForLargeOne() {
+        cache.put("a", response(8));
+        cache.put("b", response(8));
+        cache.put("c", response(8));
+
+        cache.put("large", response(20));
+
+        assertThat(cache.get("a")).isNull();
+        assertThat(cache.get("b")).isNull();
+        assertThat(cache.get("c")).isNull();
+        assertThat(cache.size()).isEqualTo(20);
+    }
+
+    @Test
+    void replacingEntryAccountsForItsNewSize() {
+        cache.put("a", response(20));
+        cache.put("a", response(5));
+        cache.put("b", response(20));
+
+        assertThat(cache.get("a")).isNotNull();
+        assertThat(cache.size()).isEqualTo(25);
+    }
+
+    @Test
+    void ignoresEntryLargerThanWholeCache() {
+        cache.put("a", response(10));
+
+        cache.put("huge", response(26));
+
+        assertThat(cache.get("huge")).isNull();
+        assertThat(cache.get("a")).isNotNull();
+        assertThat(cache.size()).isEqualTo(10);
+    }
+
+    private static CachedResponse response(int bodyBytes) {
+        return new CachedResponse(HttpStatus.OK, HttpHeaders.EMPTY, new byte[bodyBytes]);
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.gateway.loadbalancer;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.client.loadbalancer.EmptyResponse;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+
+class InFlightRequestFilterTest {
+
+    private final ServiceInstance instance = new DefaultServiceInstance("a", "storage-service", "a", 8080, false);
+    private final InFlightRequestTracker tracker = new InFlightRequestTracker();
+    private final InFlightRequestFilter filter = new InFlightRequestFilter(tracker);
+
+    @Test
+    void countsRequestUntilChainCompletes() {
+        AtomicInteger seenByChain = new AtomicInteger(-1);
+
+        filter.filter(exchangeFor(instance), exchange -> {
+            seenByChain.set(tracker.inFlight(instance));
+            return Mono.empty();
+        }).block();
+
+        assertThat(seenByChain).hasValue(1);
+        assertThat(tracker.inFlight(instance)).isZero();
+    }
+
+    @Test
+    void decrementsWhenChainFails() {
+        Mono<Void> result = filter.filter(exchangeFor(instance), exchange -> Mono.error(new IllegalStateException("reset")));
+
+        assertThatIllegalStateException().isThrownBy(result::block);
+        assertThat(tracker.inFlight(instance)).isZero();
+    }
+
+    @Test
+    void decrementsWhenClientCancels() {
+        Disposable subscription = filter.filter(exchangeFor(instance), exchange -> Mono.never()).subscribe();
+        assertThat(tracker.inFlight(instance)).isEqualTo(1);
+
+        subscription.dispose();
+
+        assertThat(tracker.inFlight(instance)).isZero();
+    }
+
+    @Test
+    void countsEachSubscriptionSeparately() {
+        List<Integer> seenByChain = new ArrayList<>();
+        Mono<Void> result = filter.filter(exchangeFor(instance), exchange -> {
+            seenByChain.add(tracker.inFlight(instance));
+            return Mono.empty();
+        });
+        assertThat(tracker.inFlight(instance)).isZero();
+
+        // A retry resubscribes to the rest of the chain
+        result.repeat(2).blockLast();
+
+        assertThat(seenByChain).containsExactly(1, 1, 1);
+        assertThat(tracker.inFlight(instance)).isZero();
+    }
+
+    @Test
+    void ignoresExchangeWithoutChosenInstance() {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/api/v1/files"));
+        exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_LOADBALANCER_RESPONSE_ATTR, new EmptyResponse());
+        AtomicInteger calls = new AtomicInteger();
+
+        filter.filter(exchange, e -> {
+            calls.incrementAndGet();
+            return Mono.empty();
+        }).block();
+
+        assertThat(calls).hasValue(1);
+        assertThat(tracker.inFlight(instance)).isZero();
+    }
+
+    private static MockServerWebExchange exchangeFor(ServiceInstance instance) {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/api/v1/files"));
+        exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_LOADBALANCER_RESPONSE_ATTR, new DefaultResponse(instance));
+        return exchange;
+    }
+}
@@ -0,0 +1,170 @@
+package com.example.gateway.loadbalancer;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.CompletionContext;
+import org.springframework.cloud.client.loadbalancer.CompletionContext.Status;
+import org.springframework.cloud.client.loadbalancer.DefaultRequest;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.client.loadbalancer.ResponseData;
+import org.springframework.cloud.loadbalancer.support.ServiceInstanceListSuppliers;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+
+import java.net.ConnectException;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LeastOutstandingRequestsLoadBalancerTest {
+
+    private static final String SERVICE_ID = "storage-service";
+    private static final Duration EJECTION = Duration.ofSeconds(10);
+    private static final Request<Object> REQUEST = new DefaultRequest<>();
+
+    private final ServiceInstance a = instance("a");
+    private final ServiceInstance b = instance("b");
+    private final ServiceInstance c = instance("c");
+    private final AtomicLong nanos = new AtomicLong(1_000_000_000L);
+    private final InFlightRequestTracker tracker = new InFlightRequestTracker();
+
+    @Test
+    void choosesInstanceWithFewestRequestsInFlight() {
+        LeastOutstandingRequestsLoadBalancer loadBalancer = loadBalancer(a, b, c);
+        start(a, 2);
+        start(b, 1);
+
+        assertThat(choose(loadBalancer)).isEqualTo(c);
+
+        start(c, 3);
+        assertThat(choose(loadBalancer)).isEqualTo(b);
+    }
+
+    @Test
+    void spreadsRequestsOverEquallyLoadedInstances() {
+        LeastOutstandingRequestsLoadBalancer loadBalancer = loadBalancer(a, b, c);
+        start(b, 1);
+
+        Set<ServiceInstance> chosen = new HashSet<>();
+        for (int i = 0; i < 200; i++) {
+            chosen.add(choose(loadBalancer));
+        }
+
+        assertThat(chosen).containsExactlyInAnyOrder(a, c);
+    }
+
+    @Test
+    void returnsEmptyResponseWithoutInstances() {
+        Response<ServiceInstance> response = loadBalancer().choose(REQUEST).block();
+
+        assertThat(response.hasServer()).isFalse();
+    }
+
+    @Test
+    void ejectsInstanceAfterConsecutiveFailures() {
+        LeastOutstandingRequestsLoadBalancer loadBalancer = loadBalancer(a, b);
+        start(b, 5);
+
+        complete(loadBalancer, a, HttpStatus.BAD_GATEWAY);
+        complete(loadBalancer, a, HttpStatus.GATEWAY_TIMEOUT);
+        assertThat(choose(loadBalancer)).isEqualTo(a);
+
+        loadBalancer.onComplete(new CompletionContext<>(Status.FAILED, new ConnectException("refused"),
+                REQUEST, new DefaultResponse(a)));
+        assertThat(choose(loadBalancer)).isEqualTo(b);
+    }
+
+    @Test
+    void readmitsInstanceAfterEjectionDuration() {
+        LeastOutstandingRequestsLoadBalancer loadBalancer = loadBalancer(a, b);
+        start(b, 5);
+        for (int i = 0; i < 3; i++) {
+            complete(loadBalancer, a, HttpStatus.BAD_GATEWAY);
+        }
+
+        advance(EJECTION.toMillis() - 1);
+        assertThat(choose(loadBalancer)).isEqualTo(b);
+
+        advance(1);
+        assertThat(choose(loadBalancer)).isEqualTo(a);
+    }
+
+    @Test
+    void successResetsFailureCount() {
+        LeastOutstandingRequestsLoadBalancer loadBalancer = loadBalancer(a, b);
+        start(b, 5);
+
+        complete(loadBalancer, a, HttpStatus.BAD_GATEWAY);
+        complete(loadBalancer, a, HttpStatus.BAD_GATEWAY);
+        complete(loadBalancer, a, HttpStatus.OK);
+        complete(loadBalancer, a, HttpStatus.BAD_GATEWAY);
+        complete(loadBalancer, a, HttpStatus.BAD_GATEWAY);
+
+        assertThat(choose(loadBalancer)).isEqualTo(a);
+    }
+
+    @Test
+    void serviceUnavailableIsNotFailure() {
+        LeastOutstandingRequestsLoadBalancer loadBalancer = loadBalancer(a, b);
+        start(b, 5);
+
+        for (int i = 0; i < 10; i++) {
+            complete(loadBalancer, a, HttpStatus.SERVICE_UNAVAILABLE);
+        }
+
+        assertThat(choose(loadBalancer)).isEqualTo(a);
+    }
+
+    @Test
+    void usesAllInstancesWhenEveryOneIsEjected() {
+        LeastOutstandingRequestsLoadBalancer loadBalancer = loadBalancer(a, b);
+        for (int i = 0; i < 3; i++) {
+            complete(loadBalancer, a, HttpStatus.BAD_GATEWAY);
+            complete(loadBalancer, b, HttpStatus.BAD_GATEWAY);
+        }
+        start(a, 1);
+
+        assertThat(choose(loadBalancer)).isEqualTo(b);
+
+        start(b, 2);
+        assertThat(choose(loadBalancer)).isEqualTo(a);
+    }
+
+    private LeastOutstandingRequestsLoadBalancer loadBalancer(ServiceInstance... instances) {
+        return new LeastOutstandingRequestsLoadBalancer(ServiceInstanceListSuppliers.toProvider(SERVICE_ID, instances),
+                tracker, SERVICE_ID, 3, EJECTION, nanos::get);
+    }
+
+    private ServiceInstance choose(LeastOutstandingRequestsLoadBalancer loadBalancer) {
+        Response<ServiceInstance> response = loadBalancer.choose(REQUEST).block();
+        assertThat(response.hasServer()).isTrue();
+        return response.getServer();
+    }
+
+    private static void complete(LeastOutstandingRequestsLoadBalancer loadBalancer, ServiceInstance instance,
+                                 HttpStatus status) {
+        ResponseData response = new ResponseData(status, HttpHeaders.EMPTY, null, null);
+        loadBalancer.onComplete(new CompletionContext<>(Status.SUCCESS, REQUEST, new DefaultResponse(instance), response));
+    }
+
+    private void start(ServiceInstance instance, int requests) {
+        for (int i = 0; i < requests; i++) {
+            tracker.started(instance);
+        }
+    }
+
+    private void advance(long millis) {
+        nanos.addAndGet(TimeUnit.MILLISECONDS.toNanos(millis));
+    }
+
+    private static ServiceInstance instance(String host) {
+        return new DefaultServiceInstance(host, SERVICE_ID, host, 8080, false);
+    }
+}
@@ -0,0 +1,159 @@
+package com.example.gateway.ratelimit;
+
+import com.example.gateway.ratelimit.TokenBucketStore.Limits;
+import com.example.gateway.ratelimit.TokenBucketStore.Result;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InMemoryTokenBucketStoreTest {
+
+    private static final Limits LIMITS = new Limits(2, 5);
+
+    private final AtomicLong nanos = new AtomicLong(1_000_000_000L);
+    private final InMemoryTokenBucketStore store = new InMemoryTokenBucketStore(1000, nanos::get);
+
+    @Test
+    void newBucketAllowsFullBurst() {
+        for (int i = 4; i >= 0; i--) {
+            assertThat(consume("client")).isEqualTo(new Result(true, i));
+        }
+        assertThat(consume("client")).isEqualTo(new Result(false, 0));
+    }
+
+    @Test
+    void refillsAtReplenishRate() {
+        drain("client");
+
+        advance(250);
+        assertThat(consume("client").allowed()).isFalse();
+
+        advance(250);
+        assertThat(consume("client")).isEqualTo(new Result(true, 0));
+        assertThat(consume("client").allowed()).isFalse();
+
+        advance(1000);
+        assertThat(consume("client")).isEqualTo(new Result(true, 1));
+        assertThat(consume("client")).isEqualTo(new Result(true, 0));
+        assertThat(consume("client").allowed()).isFalse();
+    }
+
+    @Test
+    void refillIsCappedAtBurstCapacity() {
+        drain("client");
+
+        advance(60_000);
+
+        assertThat(drain("client")).isEqualTo(5);
+    }
+
+    @Test
+    void keysHaveSeparateBuckets() {
+        drain("a");
+
+        assertThat(consume("b")).isEqualTo(new Result(true, 4));
+        assertThat(consume("a").allowed()).isFalse();
+    }
+
+    @Test
+    void appliesChangedLimitsToExistingBucket() {
+        drain("client");
+
+        advance(1000);
+        Limits faster = new Limits(10, 20);
+
+        assertThat(store.tryConsume("client", faster).block()).isEqualTo(new Result(true, 9));
+    }
+
+    @Test
+    void concurrentRequestsNeverTakeMoreThanBurst() throws Exception {
+        int threads = 16;
+        int attemptsPerThread = 100;
+        Limits limits = new Limits(1, 50);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Callable<Integer>> tasks = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                tasks.add(() -> {
+                    start.await();
+                    int allowed = 0;
+                    for (int i = 0; i < attemptsPerThread; i++) {
+                        if (store.tryConsume("shared", limits).block().allowed()) {
+                            allowed++;
+                        }
+                    }
+                    return allowed;
+                });
+            }
+            List<Future<Integer>> futures = new ArrayList<>();
+            for (Callable<Integer> task : tasks) {
+                futures.add(executor.submit(task));
+            }
+            start.countDown();
+
+            int allowed = 0;
+            for (Future<Integer> future : futures) {
+                allowed += future.get(10, TimeUnit.SECONDS);
+            }
+            assertThat(allowed).isEqualTo(50);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void prunesRefilledBucketsOnceOverKeyLimit() {
+        InMemoryTokenBucketStore small = new InMemoryTokenBucketStore(2, nanos::get);
+        small.tryConsume("a", LIMITS).block();
+        small.tryConsume("b", LIMITS).block();
+
+        advance(10_000);
+        small.tryConsume("c", LIMITS).block();
+
+        // a and b have refilled completely, c has just taken a token
+        assertThat(small.size()).isEqualTo(1);
+        assertThat(small.tryConsume("c", LIMITS).block()).isEqualTo(new Result(true, 3));
+    }
+
+    @Test
+    void prunesAtMostOncePerSecond() {
+        InMemoryTokenBucketStore small = new InMemoryTokenBucketStore(1, nanos::get);
+        small.tryConsume("a", LIMITS).block();
+        advance(10_000);
+        small.tryConsume("b", LIMITS).block();
+        assertThat(small.size()).isEqualTo(1);
+
+        advance(500);
+        small.tryConsume("c", LIMITS).block();
+        small.tryConsume("d", LIMITS).block();
+
+        assertThat(small.size()).isEqualTo(3);
+    }
+
+    private Result consume(String key) {
+        return store.tryConsume(key, LIMITS).block();
+    }
+
+    private int drain(String key) {
+        int taken = 0;
+        while (consume(key).allowed()) {
+            taken++;
+        }
+        return taken;
+    }
+
+    private void advance(long millis) {
+        nanos.addAndGet(TimeUnit.MILLISECONDS.toNanos(millis));
+    }
+}
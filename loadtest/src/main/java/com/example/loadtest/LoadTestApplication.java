@@ -0,0 +1,17 @@
+package com.example.loadtest;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+
+/**
+ * Drives uploads through the gateway at a fixed rate and measures how long the files take to be stored and analyzed.
+ * The process exits once the run is over; see {@code application.properties} for the workload settings.
+ */
+@SpringBootApplication
+public class LoadTestApplication {
+
+    public static void main(String[] args) {
+        System.exit(SpringApplication.exit(SpringApplication.run(LoadTestApplication.class, args)));
+    }
+
+}
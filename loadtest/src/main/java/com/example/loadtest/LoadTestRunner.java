@@ -0,0 +1,74 @@
+package com.example.loadtest;
+
+import com.example.loadtest.report.LoadTestReport;
+import com.example.loadtest.service.LoadGenerator;
+import com.example.loadtest.service.ResultTracker;
+import com.example.loadtest.service.UploadClient;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.ExitCodeGenerator;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Runs one load test: waits for the services, sends the uploads, waits for their analysis and reports.
+ * The exit code is non-zero if any upload failed or was not analyzed within {@code loadtest.drain-timeout}.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class LoadTestRunner implements ApplicationRunner, ExitCodeGenerator {
+
+    private final ResultTracker resultTracker;
+    private final LoadGenerator loadGenerator;
+    private final UploadClient uploadClient;
+    private final ObjectMapper objectMapper;
+
+    @Value("${loadtest.startup-timeout:5m}")
+    private Duration startupTimeout;
+
+    @Value("${loadtest.drain-timeout:2m}")
+    private Duration drainTimeout;
+
+    @Value("${loadtest.report-file:}")
+    private String reportFile;
+
+    private int exitCode;
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        resultTracker.start();
+        uploadClient.awaitGateway(startupTimeout);
+
+        LoadTestReport report = new LoadTestReport();
+        loadGenerator.run(report);
+
+        long deadline = System.nanoTime() + drainTimeout.toNanos();
+        long pending;
+        while ((pending = resultTracker.countPending()) > 0 && System.nanoTime() - deadline < 0) {
+            log.info("Waiting for the analysis of {} files", pending);
+            Thread.sleep(1000);
+        }
+
+        report.collect(resultTracker.getTimelines());
+        report.log();
+        if (!reportFile.isBlank()) {
+            Files.writeString(Path.of(reportFile),
+                    objectMapper.writerWithDefaultPrettyPrinter().writeValueAsString(report.toMap()));
+            log.info("Report written to {}", reportFile);
+        }
+        exitCode = report.isSuccessful() ? 0 : 1;
+    }
+
+    @Override
+    public int getExitCode() {
+        return exitCode;
+    }
+}
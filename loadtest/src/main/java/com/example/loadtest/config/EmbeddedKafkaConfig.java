@@ -0,0 +1,32 @@
+package com.example.loadtest.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.EmbeddedKafkaZKBroker;
+
+/**
+ * Single-node broker started inside the harness. It listens on the host port of the compose Kafka, so
+ * services run locally with {@code spring.kafka.bootstrap-servers=localhost:29092} need no other changes.
+ * Disable it to run against the compose stack's own broker.
+ * <p>
+ * The ZooKeeper-based broker is used because the KRaft one ignores fixed ports.
+ */
+@Configuration
+@ConditionalOnProperty(name = "loadtest.embedded-kafka.enabled", havingValue = "true", matchIfMissing = true)
+public class EmbeddedKafkaConfig {
+
+    @Bean
+    public EmbeddedKafkaBroker embeddedKafkaBroker(@Value("${loadtest.embedded-kafka.port:29092}") int port,
+                                                   @Value("${kafka.default-topic.partitions:12}") int partitions,
+                                                   @Value("${kafka.topic.files.uploaded}") String filesUploadedTopic,
+                                                   @Value("${kafka.topic.stats.calculated}") String statsCalculatedTopic,
+                                                   @Value("${kafka.topic.plagiarism.checked}") String plagiarismCheckedTopic) {
+        // Created up front so that the result tracker can be assigned their partitions before the services start
+        return new EmbeddedKafkaZKBroker(1, false, partitions,
+                filesUploadedTopic, statsCalculatedTopic, plagiarismCheckedTopic)
+                .kafkaPorts(port);
+    }
+}
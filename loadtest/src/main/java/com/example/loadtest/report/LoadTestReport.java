@@ -0,0 +1,176 @@
+package com.example.loadtest.report;
+
+import com.example.loadtest.service.FileTimeline;
+import com.example.loadtest.workload.PreparedUpload;
+import lombok.extern.slf4j.Slf4j;
+import org.HdrHistogram.AbstractHistogram;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters and latency distributions of one run. Only uploads scheduled after the warmup are counted.
+ * <ul>
+ *     <li>upload latency - from the scheduled send time to the gateway's response;</li>
+ *     <li>publish lag - from the upload response to the {@code files.uploaded} record, i.e. the outbox relay delay;</li>
+ *     <li>analysis lag - from the {@code files.uploaded} record to the later of the two result records, i.e. the
+ *     time spent queued in Kafka and being analyzed;</li>
+ *     <li>end to end - from the scheduled send time until the harness has received both results.</li>
+ * </ul>
+ */
+@Slf4j
+public class LoadTestReport {
+
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+    private static final String[] PERCENTILE_NAMES = {"p50", "p90", "p99", "p99.9"};
+
+    private final AtomicLong succeeded = new AtomicLong();
+    private final AtomicLong duplicates = new AtomicLong();
+    private final AtomicLong bytes = new AtomicLong();
+    private final AtomicLong rateLimited = new AtomicLong();
+    private final AtomicLong overloaded = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong skipped = new AtomicLong();
+    private final AtomicLong generatorBehind = new AtomicLong();
+    private final ConcurrentHistogram uploadLatencyMicros = new ConcurrentHistogram(3);
+    private final Histogram publishLagMillis = new Histogram(3);
+    private final Histogram analysisLagMillis = new Histogram(3);
+    private final Histogram endToEndMillis = new Histogram(3);
+
+    private long startedAt;
+    private long finishedAt;
+    private long analyzed;
+    private long incomplete;
+
+    public void started(long measuredFrom) {
+        this.startedAt = measuredFrom;
+    }
+
+    public void finished(long finishedAt) {
+        this.finishedAt = finishedAt;
+    }
+
+    public void succeeded(PreparedUpload upload, long latencyNanos) {
+        succeeded.incrementAndGet();
+        bytes.addAndGet(upload.content().length);
+        if (upload.duplicate()) {
+            duplicates.incrementAndGet();
+        }
+        uploadLatencyMicros.recordValue(TimeUnit.NANOSECONDS.toMicros(latencyNanos));
+    }
+
+    public void rejected(int status) {
+        (status == 429 ? rateLimited : overloaded).incrementAndGet();
+    }
+
+    public void failed() {
+        failed.incrementAndGet();
+    }
+
+    public void skipped() {
+        skipped.incrementAndGet();
+    }
+
+    public void generatorBehind() {
+        generatorBehind.incrementAndGet();
+    }
+
+    /**
+     * Collects the pipeline timings of the files uploaded during the measured part of the run.
+     */
+    public void collect(Collection<FileTimeline> timelines) {
+        for (FileTimeline timeline : timelines) {
+            if (!timeline.isUploaded() || !timeline.isMeasured()) {
+                continue;
+            }
+            if (!timeline.isCompleted()) {
+                incomplete++;
+                continue;
+            }
+            analyzed++;
+            endToEndMillis.recordValue(Math.max(0, timeline.getCompletedAt() - timeline.getUploadStartedAt()));
+            if (timeline.getUploadedEventAt() != 0) {
+                // The event is written before the response is sent, so it may well be earlier
+                publishLagMillis.recordValue(Math.max(0, timeline.getUploadedEventAt() - timeline.getUploadCompletedAt()));
+                analysisLagMillis.recordValue(Math.max(0, timeline.getAnalyzedAt() - timeline.getUploadedEventAt()));
+            }
+        }
+    }
+
+    /**
+     * Whether every measured upload was accepted, or deliberately rejected, and then analyzed.
+     */
+    public boolean isSuccessful() {
+        return failed.get() == 0 && incomplete == 0;
+    }
+
+    public void log() {
+        double seconds = Math.max(1, finishedAt - startedAt) / 1000.0;
+        log.info("Uploads: {} succeeded ({} duplicates), {} rate limited, {} overloaded, {} failed, {} skipped",
+                succeeded, duplicates, rateLimited, overloaded, failed, skipped);
+        log.info("Throughput: {} uploads/s, {} MB/s", String.format("%.1f", succeeded.get() / seconds),
+                String.format("%.2f", bytes.get() / seconds / (1024 * 1024)));
+        log.info("Analyzed: {}, not analyzed in time: {}", analyzed, incomplete);
+        if (generatorBehind.get() > 0) {
+            log.warn("Content generation fell behind {} times, add loadtest.generator-threads", generatorBehind);
+        }
+        log.info(String.format("%-18s %9s %9s %9s %9s %9s", "(ms)", "p50", "p90", "p99", "p99.9", "max"));
+        logDistribution("upload latency", uploadLatencyMicros, 1000.0);
+        logDistribution("publish lag", publishLagMillis, 1);
+        logDistribution("analysis lag", analysisLagMillis, 1);
+        logDistribution("end to end", endToEndMillis, 1);
+    }
+
+    public Map<String, Object> toMap() {
+        Map<String, Object> counts = new LinkedHashMap<>();
+        counts.put("succeeded", succeeded.get());
+        counts.put("duplicates", duplicates.get());
+        counts.put("rateLimited", rateLimited.get());
+        counts.put("overloaded", overloaded.get());
+        counts.put("failed", failed.get());
+        counts.put("skipped", skipped.get());
+        counts.put("analyzed", analyzed);
+        counts.put("incomplete", incomplete);
+        counts.put("bytes", bytes.get());
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("startedAt", startedAt);
+        report.put("finishedAt", finishedAt);
+        report.put("counts", counts);
+        report.put("uploadLatencyMs", distribution(uploadLatencyMicros, 1000.0));
+        report.put("publishLagMs", distribution(publishLagMillis, 1));
+        report.put("analysisLagMs", distribution(analysisLagMillis, 1));
+        report.put("endToEndMs", distribution(endToEndMillis, 1));
+        return report;
+    }
+
+    private void logDistribution(String name, AbstractHistogram histogram, double unitsPerMillisecond) {
+        if (histogram.getTotalCount() == 0) {
+            log.info(String.format("%-18s %9s", name, "-"));
+            return;
+        }
+        StringBuilder line = new StringBuilder(String.format("%-18s", name));
+        for (double percentile : PERCENTILES) {
+            line.append(String.format(" %9.1f", histogram.getValueAtPercentile(percentile) / unitsPerMillisecond));
+        }
+        line.append(String.format(" %9.1f", histogram.getMaxValue() / unitsPerMillisecond));
+        log.info(line.toString());
+    }
+
+    private static Map<String, Object> distribution(AbstractHistogram histogram, double unitsPerMillisecond) {
+        Map<String, Object> distribution = new LinkedHashMap<>();
+        distribution.put("count", histogram.getTotalCount());
+        if (histogram.getTotalCount() > 0) {
+            for (int i = 0; i < PERCENTILES.length; i++) {
+                distribution.put(PERCENTILE_NAMES[i], histogram.getValueAtPercentile(PERCENTILES[i]) / unitsPerMillisecond);
+            }
+            distribution.put("max", histogram.getMaxValue() / unitsPerMillisecond);
+        }
+        return distribution;
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.loadtest.service;
+
+/**
+ * Wall-clock milliseconds of the milestones of one uploaded file; zero until reached. The Kafka milestones are
+ * record timestamps set by the producing service, so all of them are comparable as long as the clocks of the
+ * hosts involved are in sync, which they trivially are when everything runs on one machine.
+ */
+public class FileTimeline {
+
+    private volatile long uploadStartedAt;
+    private volatile long uploadCompletedAt;
+    private volatile boolean measured;
+    private volatile long uploadedEventAt;
+    private volatile long statsAt;
+    private volatile long plagiarismAt;
+    private volatile long completedAt;
+
+    void uploaded(long startedAt, long completedAt, boolean measured) {
+        this.uploadStartedAt = startedAt;
+        this.uploadCompletedAt = completedAt;
+        this.measured = measured;
+    }
+
+    void uploadedEvent(long timestamp) {
+        if (uploadedEventAt == 0) {
+            uploadedEventAt = timestamp;
+        }
+    }
+
+    synchronized void stats(long timestamp, long receivedAt) {
+        if (statsAt == 0) {
+            statsAt = timestamp;
+            completeIfDone(receivedAt);
+        }
+    }
+
+    synchronized void plagiarism(long timestamp, long receivedAt) {
+        if (plagiarismAt == 0) {
+            plagiarismAt = timestamp;
+            completeIfDone(receivedAt);
+        }
+    }
+
+    private void completeIfDone(long receivedAt) {
+        if (statsAt != 0 && plagiarismAt != 0) {
+            completedAt = receivedAt;
+        }
+    }
+
+    public boolean isUploaded() {
+        return uploadStartedAt != 0;
+    }
+
+    public boolean isMeasured() {
+        return measured;
+    }
+
+    public boolean isCompleted() {
+        return completedAt != 0;
+    }
+
+    public long getUploadStartedAt() {
+        return uploadStartedAt;
+    }
+
+    public long getUploadCompletedAt() {
+        return uploadCompletedAt;
+    }
+
+    public long getUploadedEventAt() {
+        return uploadedEventAt;
+    }
+
+    /**
+     * Timestamp of the later of the two analysis results.
+     */
+    public long getAnalyzedAt() {
+        return Math.max(statsAt, plagiarismAt);
+    }
+
+    /**
+     * When the harness received the last analysis result.
+     */
+    public long getCompletedAt() {
+        return completedAt;
+    }
+}
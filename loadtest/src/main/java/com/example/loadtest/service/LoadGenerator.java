@@ -0,0 +1,158 @@
+package com.example.loadtest.service;
+
+import com.example.loadtest.report.LoadTestReport;
+import com.example.loadtest.workload.ContentGenerator;
+import com.example.loadtest.workload.PreparedUpload;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Sends uploads on a fixed schedule, independently of how fast earlier ones complete (an open workload, like
+ * real users). Latency is measured from the moment a request was scheduled to be sent, so a stalled client or
+ * server shows up in the percentiles instead of silently lowering the request rate.
+ * <p>
+ * File contents are generated by background threads into a bounded queue ahead of the schedule. Uploads that
+ * would exceed {@code loadtest.max-in-flight} are not sent and are reported as skipped.
+ */
+@Service
+@Slf4j
+public class LoadGenerator {
+
+    private final ContentGenerator contentGenerator;
+    private final UploadClient uploadClient;
+    private final ResultTracker resultTracker;
+
+    @Value("${loadtest.rate:20}")
+    private double rate;
+
+    @Value("${loadtest.warmup:10s}")
+    private Duration warmup;
+
+    @Value("${loadtest.duration:60s}")
+    private Duration duration;
+
+    @Value("${loadtest.users:50}")
+    private int users;
+
+    @Value("${loadtest.max-in-flight:256}")
+    private int maxInFlight;
+
+    @Value("${loadtest.generator-threads:2}")
+    private int generatorThreads;
+
+    @Value("${loadtest.prepared-queue-size:64}")
+    private int preparedQueueSize;
+
+    public LoadGenerator(ContentGenerator contentGenerator, UploadClient uploadClient, ResultTracker resultTracker) {
+        this.contentGenerator = contentGenerator;
+        this.uploadClient = uploadClient;
+        this.resultTracker = resultTracker;
+    }
+
+    public void run(LoadTestReport report) throws InterruptedException {
+        BlockingQueue<PreparedUpload> prepared = new ArrayBlockingQueue<>(preparedQueueSize);
+        AtomicInteger generatorId = new AtomicInteger();
+        ExecutorService generators = Executors.newFixedThreadPool(generatorThreads, task -> {
+            Thread thread = new Thread(task, "content-generator-" + generatorId.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (int i = 0; i < generatorThreads; i++) {
+            generators.execute(() -> {
+                try {
+                    while (!Thread.currentThread().isInterrupted()) {
+                        prepared.put(contentGenerator.next());
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+
+        while (prepared.remainingCapacity() > 0) {
+            Thread.sleep(10);
+        }
+
+        long intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / rate);
+        long total = (long) (rate * (warmup.toMillis() + duration.toMillis()) / 1000);
+        Semaphore inFlight = new Semaphore(maxInFlight);
+        log.info("Sending {} uploads at {}/s: {} warmup, {} measured", total, rate, warmup, duration);
+
+        long startNanos = System.nanoTime();
+        long startMillis = System.currentTimeMillis();
+        long measuredFromNanos = startNanos + warmup.toNanos();
+        report.started(startMillis + warmup.toMillis());
+        try {
+            for (long i = 0; i < total; i++) {
+                long scheduledNanos = startNanos + i * intervalNanos;
+                long delay;
+                while ((delay = scheduledNanos - System.nanoTime()) > 0) {
+                    LockSupport.parkNanos(delay);
+                }
+                boolean measured = scheduledNanos - measuredFromNanos >= 0;
+
+                PreparedUpload upload = prepared.poll();
+                if (upload == null) {
+                    report.generatorBehind();
+                    upload = prepared.take();
+                }
+                if (!inFlight.tryAcquire()) {
+                    if (measured) {
+                        report.skipped();
+                    }
+                    continue;
+                }
+                long scheduledMillis = startMillis + TimeUnit.NANOSECONDS.toMillis(scheduledNanos - startNanos);
+                send(upload, scheduledNanos, scheduledMillis, measured, report, inFlight);
+            }
+        } finally {
+            generators.shutdownNow();
+        }
+
+        if (!inFlight.tryAcquire(maxInFlight, 2, TimeUnit.MINUTES)) {
+            log.warn("{} uploads still in flight, not waiting for them", maxInFlight - inFlight.availablePermits());
+        }
+        report.finished(System.currentTimeMillis());
+    }
+
+    private void send(PreparedUpload upload, long scheduledNanos, long scheduledMillis, boolean measured,
+                      LoadTestReport report, Semaphore inFlight) {
+        String userId = "loadtest-user-" + ThreadLocalRandom.current().nextInt(users);
+        uploadClient.upload(upload, userId).whenComplete((result, error) -> {
+            try {
+                long latencyNanos = System.nanoTime() - scheduledNanos;
+                if (error == null && result.fileId() != null) {
+                    resultTracker.uploaded(result.fileId(), scheduledMillis, System.currentTimeMillis(), measured);
+                }
+                if (!measured) {
+                    return;
+                }
+                if (error != null) {
+                    log.debug("Upload of {} failed", upload.filename(), error);
+                    report.failed();
+                } else if (result.fileId() != null) {
+                    report.succeeded(upload, latencyNanos);
+                } else if (result.status() == 429 || result.status() == 503) {
+                    report.rejected(result.status());
+                } else {
+                    log.debug("Upload of {} returned {}", upload.filename(), result.status());
+                    report.failed();
+                }
+            } finally {
+                inFlight.release();
+            }
+        });
+    }
+}
@@ -0,0 +1,170 @@
+package com.example.loadtest.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.WakeupException;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Follows the upload and result topics and records when each file reached every stage. Files are matched by the
+ * record key, which is the file id on all three topics, so the payload format does not matter.
+ * <p>
+ * The consumer is assigned all partitions directly instead of joining a group and starts at their end, so only
+ * files uploaded during the run are seen and no rebalance delays the start.
+ */
+@Service
+@Slf4j
+public class ResultTracker implements DisposableBean {
+
+    private final KafkaProperties kafkaProperties;
+    // Not used directly: requesting it makes sure the embedded broker is up before the consumer connects
+    private final ObjectProvider<EmbeddedKafkaBroker> embeddedKafkaBroker;
+    private final Map<String, FileTimeline> timelines = new ConcurrentHashMap<>();
+
+    @Value("${kafka.topic.files.uploaded}")
+    private String filesUploadedTopic;
+
+    @Value("${kafka.topic.stats.calculated}")
+    private String statsCalculatedTopic;
+
+    @Value("${kafka.topic.plagiarism.checked}")
+    private String plagiarismCheckedTopic;
+
+    @Value("${loadtest.startup-timeout:5m}")
+    private Duration startupTimeout;
+
+    private KafkaConsumer<String, byte[]> consumer;
+    private Thread pollThread;
+    private volatile boolean running;
+
+    public ResultTracker(KafkaProperties kafkaProperties, ObjectProvider<EmbeddedKafkaBroker> embeddedKafkaBroker) {
+        this.kafkaProperties = kafkaProperties;
+        this.embeddedKafkaBroker = embeddedKafkaBroker;
+    }
+
+    /**
+     * Waits until all three topics exist, which also means the services have started, then starts following them.
+     */
+    public void start() throws InterruptedException {
+        EmbeddedKafkaBroker broker = embeddedKafkaBroker.getIfAvailable();
+        if (broker != null) {
+            log.info("Embedded Kafka broker listening on {}", broker.getBrokersAsString());
+        }
+
+        Map<String, Object> properties = kafkaProperties.buildConsumerProperties(null);
+        properties.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        properties.remove(ConsumerConfig.GROUP_ID_CONFIG);
+        consumer = new KafkaConsumer<>(properties, new StringDeserializer(), new ByteArrayDeserializer());
+
+        List<TopicPartition> partitions = awaitPartitions(List.of(filesUploadedTopic, statsCalculatedTopic,
+                plagiarismCheckedTopic));
+        consumer.assign(partitions);
+        consumer.seekToEnd(partitions);
+        // Resolves the end offsets now rather than on the first poll, which may only happen after the first upload
+        partitions.forEach(consumer::position);
+        log.info("Following {} partitions of the upload and result topics", partitions.size());
+
+        running = true;
+        pollThread = new Thread(this::poll, "result-tracker");
+        pollThread.setDaemon(true);
+        pollThread.start();
+    }
+
+    public void uploaded(String fileId, long startedAt, long completedAt, boolean measured) {
+        timeline(fileId).uploaded(startedAt, completedAt, measured);
+    }
+
+    public Collection<FileTimeline> getTimelines() {
+        return timelines.values();
+    }
+
+    /**
+     * Number of files uploaded during the measured part of the run that have not been fully analyzed yet.
+     */
+    public long countPending() {
+        return timelines.values().stream()
+                .filter(timeline -> timeline.isUploaded() && timeline.isMeasured() && !timeline.isCompleted())
+                .count();
+    }
+
+    private List<TopicPartition> awaitPartitions(List<String> topics) throws InterruptedException {
+        long deadline = System.nanoTime() + startupTimeout.toNanos();
+        while (true) {
+            List<TopicPartition> partitions = new ArrayList<>();
+            Map<String, List<PartitionInfo>> existing = consumer.listTopics();
+            for (String topic : topics) {
+                for (PartitionInfo partition : existing.getOrDefault(topic, List.of())) {
+                    partitions.add(new TopicPartition(partition.topic(), partition.partition()));
+                }
+            }
+            if (topics.stream().allMatch(existing::containsKey)) {
+                return partitions;
+            }
+            if (System.nanoTime() - deadline > 0) {
+                throw new IllegalStateException("Topics " + topics + " did not appear within " + startupTimeout
+                        + ", are the services running and connected to the same broker?");
+            }
+            log.info("Waiting for the services to create topics {}", topics);
+            Thread.sleep(5000);
+        }
+    }
+
+    private void poll() {
+        try {
+            while (running) {
+                for (ConsumerRecord<String, byte[]> record : consumer.poll(Duration.ofMillis(500))) {
+                    if (record.key() != null) {
+                        track(record);
+                    }
+                }
+            }
+        } catch (WakeupException e) {
+            // Shutdown
+        } finally {
+            consumer.close();
+        }
+    }
+
+    private void track(ConsumerRecord<String, byte[]> record) {
+        long receivedAt = System.currentTimeMillis();
+        FileTimeline timeline = timeline(record.key());
+        if (record.topic().equals(filesUploadedTopic)) {
+            timeline.uploadedEvent(record.timestamp());
+        } else if (record.topic().equals(statsCalculatedTopic)) {
+            timeline.stats(record.timestamp(), receivedAt);
+        } else if (record.topic().equals(plagiarismCheckedTopic)) {
+            timeline.plagiarism(record.timestamp(), receivedAt);
+        }
+    }
+
+    private FileTimeline timeline(String fileId) {
+        return timelines.computeIfAbsent(fileId, key -> new FileTimeline());
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        if (pollThread != null) {
+            running = false;
+            consumer.wakeup();
+            pollThread.join(5000);
+        }
+    }
+}
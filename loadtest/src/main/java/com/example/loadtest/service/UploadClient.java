@@ -0,0 +1,99 @@
+package com.example.loadtest.service;
+
+import com.example.loadtest.workload.PreparedUpload;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Uploads files through the gateway's streaming upload route, as a raw request body.
+ */
+@Component
+@Slf4j
+public class UploadClient {
+
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper;
+    private final String healthUrl;
+    private final String uploadUrl;
+    private final Duration requestTimeout;
+
+    public UploadClient(ObjectMapper objectMapper,
+                        @Value("${loadtest.gateway-url}") String gatewayUrl,
+                        @Value("${loadtest.request-timeout:60s}") Duration requestTimeout) {
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        this.objectMapper = objectMapper;
+        this.healthUrl = gatewayUrl + "/actuator/health";
+        this.uploadUrl = gatewayUrl + "/api/v1/gateway/storage/upload/stream";
+        this.requestTimeout = requestTimeout;
+    }
+
+    /**
+     * Waits until the gateway reports itself healthy.
+     */
+    public void awaitGateway(Duration timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        HttpRequest request = HttpRequest.newBuilder(URI.create(healthUrl)).timeout(Duration.ofSeconds(5)).build();
+        while (true) {
+            try {
+                if (httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                    return;
+                }
+            } catch (IOException e) {
+                // Not started yet
+            }
+            if (System.nanoTime() - deadline > 0) {
+                throw new IllegalStateException("Gateway at " + healthUrl + " is not healthy after " + timeout);
+            }
+            log.info("Waiting for the gateway at {}", healthUrl);
+            Thread.sleep(5000);
+        }
+    }
+
+    public CompletableFuture<UploadResult> upload(PreparedUpload upload, String userId) {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(uploadUrl
+                        + "?filename=" + URLEncoder.encode(upload.filename(), StandardCharsets.UTF_8)
+                        + "&userId=" + URLEncoder.encode(userId, StandardCharsets.UTF_8)))
+                .timeout(requestTimeout)
+                .header("Content-Type", "text/plain; charset=UTF-8")
+                .header("X-User-Id", userId)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(upload.content()))
+                .build();
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+                .thenApply(response -> new UploadResult(response.statusCode(), fileId(response)));
+    }
+
+    private String fileId(HttpResponse<String> response) {
+        if (response.statusCode() / 100 != 2) {
+            return null;
+        }
+        try {
+            JsonNode fileId = objectMapper.readTree(response.body()).get("fileId");
+            return fileId != null ? fileId.asText() : null;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unexpected upload response: " + response.body(), e);
+        }
+    }
+
+    /**
+     * @param fileId id of the stored file, {@code null} unless the upload succeeded
+     */
+    public record UploadResult(int status, String fileId) {
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.loadtest.workload;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Generates text files of the configured size mix from a random vocabulary of Latin and Cyrillic words, with
+ * paragraph breaks every few lines. Independently generated files share no word shingles in practice, so they are
+ * neither exact nor near duplicates; the configured share of uploads repeats a recent file instead, which
+ * exercises the duplicate shortcut of the analyzer.
+ * <p>
+ * Thread-safe; meant to be called from several generator threads at once.
+ */
+@Component
+public class ContentGenerator {
+
+    private static final int VOCABULARY_SIZE = 50_000;
+    private static final int RECENT_FILES = 64;
+
+    private final FileSizeMix sizeMix;
+    private final double duplicateRatio;
+    private final byte[][] vocabulary;
+    private final AtomicReferenceArray<byte[]> recentFiles = new AtomicReferenceArray<>(RECENT_FILES);
+    private final AtomicLong sequence = new AtomicLong();
+
+    public ContentGenerator(@Value("${loadtest.file-sizes}") String fileSizes,
+                            @Value("${loadtest.duplicate-ratio:0.05}") double duplicateRatio) {
+        this.sizeMix = FileSizeMix.parse(fileSizes);
+        this.duplicateRatio = duplicateRatio;
+        this.vocabulary = buildVocabulary(new SplittableRandom(42));
+    }
+
+    public PreparedUpload next() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long number = sequence.incrementAndGet();
+        String filename = "loadtest-" + number + ".txt";
+
+        if (random.nextDouble() < duplicateRatio) {
+            byte[] recent = recentFiles.get(random.nextInt(RECENT_FILES));
+            if (recent != null) {
+                return new PreparedUpload(filename, recent, true);
+            }
+        }
+
+        byte[] content = generate((int) sizeMix.next(random), random);
+        recentFiles.set((int) (number % RECENT_FILES), content);
+        return new PreparedUpload(filename, content, false);
+    }
+
+    public FileSizeMix getSizeMix() {
+        return sizeMix;
+    }
+
+    private byte[] generate(int size, ThreadLocalRandom random) {
+        byte[] content = new byte[size];
+        int position = 0;
+        int wordsInLine = 0;
+        int linesInParagraph = 0;
+        while (true) {
+            byte[] word = vocabulary[random.nextInt(vocabulary.length)];
+            if (position + word.length + 2 > size) {
+                break;
+            }
+            System.arraycopy(word, 0, content, position, word.length);
+            position += word.length;
+
+            if (++wordsInLine < 12) {
+                content[position++] = ' ';
+            } else {
+                wordsInLine = 0;
+                content[position++] = '\n';
+                if (++linesInParagraph == 6) {
+                    linesInParagraph = 0;
+                    content[position++] = '\n';
+                }
+            }
+        }
+        // Pads to the exact size with ASCII so that no multi-byte sequence is cut
+        while (position < size) {
+            content[position++] = '.';
+        }
+        return content;
+    }
+
+    private static byte[][] buildVocabulary(SplittableRandom random) {
+        byte[][] words = new byte[VOCABULARY_SIZE][];
+        StringBuilder word = new StringBuilder();
+        for (int i = 0; i < words.length; i++) {
+            word.setLength(0);
+            boolean cyrillic = random.nextBoolean();
+            int length = 2 + random.nextInt(10);
+            for (int j = 0; j < length; j++) {
+                word.append(cyrillic ? (char) ('а' + random.nextInt(32)) : (char) ('a' + random.nextInt(26)));
+            }
+            words[i] = word.toString().getBytes(StandardCharsets.UTF_8);
+        }
+        return words;
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.loadtest.workload;
+
+import org.springframework.util.unit.DataSize;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.random.RandomGenerator;
+
+/**
+ * Weighted distribution of file sizes, written as {@code size:weight} pairs such as {@code 4KB:70,64KB:25,1MB:5}.
+ */
+public final class FileSizeMix {
+
+    private final long[] sizes;
+    private final long[] cumulativeWeights;
+
+    private FileSizeMix(long[] sizes, long[] cumulativeWeights) {
+        this.sizes = sizes;
+        this.cumulativeWeights = cumulativeWeights;
+    }
+
+    public static FileSizeMix parse(String spec) {
+        List<long[]> entries = new ArrayList<>();
+        for (String entry : spec.split(",")) {
+            String[] parts = entry.trim().split(":");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Expected size:weight, got '" + entry + "'");
+            }
+            long size = DataSize.parse(parts[0].trim()).toBytes();
+            long weight = Long.parseLong(parts[1].trim());
+            if (size <= 0 || weight <= 0) {
+                throw new IllegalArgumentException("Size and weight must be positive in '" + entry + "'");
+            }
+            entries.add(new long[]{size, weight});
+        }
+
+        long[] sizes = new long[entries.size()];
+        long[] cumulativeWeights = new long[entries.size()];
+        long total = 0;
+        for (int i = 0; i < sizes.length; i++) {
+            sizes[i] = entries.get(i)[0];
+            total += entries.get(i)[1];
+            cumulativeWeights[i] = total;
+        }
+        return new FileSizeMix(sizes, cumulativeWeights);
+    }
+
+    public long next(RandomGenerator random) {
+        long point = random.nextLong(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (point < cumulativeWeights[i]) {
+                return sizes[i];
+            }
+        }
+        return sizes[sizes.length - 1];
+    }
+
+    public long maxSize() {
+        long max = 0;
+        for (long size : sizes) {
+            max = Math.max(max, size);
+        }
+        return max;
+    }
+}
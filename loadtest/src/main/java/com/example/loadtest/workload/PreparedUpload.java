@@ -0,0 +1,9 @@
+package com.example.loadtest.workload;
+
+/**
+ * File content generated ahead of its upload, so that generation time does not skew the request schedule.
+ *
+ * @param duplicate whether the content repeats an earlier upload byte for byte
+ */
+public record PreparedUpload(String filename, byte[] content, boolean duplicate) {
+}
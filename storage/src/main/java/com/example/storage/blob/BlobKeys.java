@@ -0,0 +1,30 @@
+package com.example.storage.blob;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+final class BlobKeys {
+
+    private BlobKeys() {
+    }
+
+    /**
+     * Prefixes the key with two levels of 256 shards taken from its SHA-256, e.g. {@code 3f/a0/<key>}.
+     * Hashing the key rather than using its first characters keeps the shards even for keys that share a prefix.
+     */
+    static String shardedPath(String key) {
+        if (key.isEmpty() || key.contains("/") || key.contains("\\") || key.equals(".") || key.equals("..")) {
+            throw new IllegalArgumentException("Invalid blob key: " + key);
+        }
+        byte[] hash;
+        try {
+            hash = MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not supported", e);
+        }
+        HexFormat hex = HexFormat.of();
+        return hex.toHexDigits(hash[0]) + "/" + hex.toHexDigits(hash[1]) + "/" + key;
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.storage.blob;
+
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Holds file contents by key. Keys are spread over a fixed two-level prefix derived from their hash
+ * (see {@link BlobKeys#shardedPath(String)}), so no directory or prefix grows with the total number of files.
+ * <p>
+ * Blobs are located by the location string returned from {@link #put(String, Path)}, which is what
+ * {@code FileMetadata.storagePath} holds.
+ */
+public interface BlobStore {
+
+    /**
+     * Moves a fully written staged file into the store. If a blob with this key already exists it is kept
+     * and the staged file is left in place for the caller to delete.
+     *
+     * @return location of the blob
+     */
+    String put(String key, Path stagedFile) throws IOException;
+
+    boolean exists(String key) throws IOException;
+
+    /**
+     * Opens the blob at a location returned by {@link #put(String, Path)}.
+     *
+     * @throws java.io.FileNotFoundException if there is no such blob
+     */
+    Resource load(String location) throws IOException;
+}
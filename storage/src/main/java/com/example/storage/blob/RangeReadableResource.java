@@ -0,0 +1,18 @@
+package com.example.storage.blob;
+
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Resource that can read a part of its content without reading what comes before it, such as an object store
+ * blob read with a ranged GET.
+ */
+public interface RangeReadableResource extends Resource {
+
+    /**
+     * Opens a stream of {@code count} bytes starting at {@code start}.
+     */
+    InputStream getInputStream(long start, long count) throws IOException;
+}
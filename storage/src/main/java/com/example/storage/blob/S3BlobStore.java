@@ -0,0 +1,151 @@
+package com.example.storage.blob;
+
+import com.example.storage.config.StorageProperties;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.AbstractResource;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.NoSuchBucketException;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.Optional;
+
+/**
+ * Stores blobs in an S3-compatible bucket under the same sharded key layout as the file system store, which
+ * spreads the requests over key prefixes. Locations have the form {@code s3://<bucket>/<sharded key>}.
+ */
+@Component
+@ConditionalOnProperty(name = "file.blob-store", havingValue = "S3")
+@Slf4j
+public class S3BlobStore implements BlobStore {
+
+    private static final String SCHEME = "s3://";
+
+    private final S3Client s3Client;
+    private final String bucket;
+
+    public S3BlobStore(S3Client s3Client, StorageProperties storageProperties) {
+        this.s3Client = s3Client;
+        this.bucket = storageProperties.getS3().getBucket();
+    }
+
+    @PostConstruct
+    public void init() {
+        try {
+            s3Client.headBucket(request -> request.bucket(bucket));
+        } catch (NoSuchBucketException ex) {
+            s3Client.createBucket(request -> request.bucket(bucket));
+            log.info("Created bucket {}", bucket);
+        }
+    }
+
+    @Override
+    public String put(String key, Path stagedFile) throws IOException {
+        String objectKey = BlobKeys.shardedPath(key);
+        try {
+            if (head(objectKey).isEmpty()) {
+                s3Client.putObject(request -> request.bucket(bucket).key(objectKey), RequestBody.fromFile(stagedFile));
+            }
+        } catch (S3Exception ex) {
+            throw new IOException("Could not store blob " + key, ex);
+        }
+        return SCHEME + bucket + "/" + objectKey;
+    }
+
+    @Override
+    public boolean exists(String key) throws IOException {
+        try {
+            return head(BlobKeys.shardedPath(key)).isPresent();
+        } catch (S3Exception ex) {
+            throw new IOException("Could not look up blob " + key, ex);
+        }
+    }
+
+    @Override
+    public Resource load(String location) throws IOException {
+        String prefix = SCHEME + bucket + "/";
+        if (!location.startsWith(prefix)) {
+            throw new FileNotFoundException("No blob at " + location);
+        }
+        String objectKey = location.substring(prefix.length());
+        try {
+            HeadObjectResponse head = head(objectKey)
+                    .orElseThrow(() -> new FileNotFoundException("No blob at " + location));
+            return new S3ObjectResource(objectKey, head.contentLength());
+        } catch (S3Exception ex) {
+            throw new IOException("Could not look up blob " + location, ex);
+        }
+    }
+
+    private Optional<HeadObjectResponse> head(String objectKey) {
+        try {
+            return Optional.of(s3Client.headObject(request -> request.bucket(bucket).key(objectKey)));
+        } catch (NoSuchKeyException ex) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Object whose existence and size are already known, so serving it takes a single GET, or one ranged GET
+     * per requested range.
+     */
+    private class S3ObjectResource extends AbstractResource implements RangeReadableResource {
+
+        private final String objectKey;
+        private final long contentLength;
+
+        S3ObjectResource(String objectKey, long contentLength) {
+            this.objectKey = objectKey;
+            this.contentLength = contentLength;
+        }
+
+        @Override
+        public InputStream getInputStream() throws IOException {
+            try {
+                return s3Client.getObject(request -> request.bucket(bucket).key(objectKey));
+            } catch (S3Exception ex) {
+                throw new IOException("Could not read blob " + objectKey, ex);
+            }
+        }
+
+        @Override
+        public InputStream getInputStream(long start, long count) throws IOException {
+            String range = "bytes=" + start + "-" + (start + count - 1);
+            try {
+                return s3Client.getObject(request -> request.bucket(bucket).key(objectKey).range(range));
+            } catch (S3Exception ex) {
+                throw new IOException("Could not read blob " + objectKey, ex);
+            }
+        }
+
+        @Override
+        public boolean exists() {
+            return true;
+        }
+
+        @Override
+        public long contentLength() {
+            return contentLength;
+        }
+
+        @Override
+        public String getFilename() {
+            return objectKey.substring(objectKey.lastIndexOf('/') + 1);
+        }
+
+        @Override
+        public String getDescription() {
+            return "S3 object [" + SCHEME + bucket + "/" + objectKey + "]";
+        }
+    }
+}
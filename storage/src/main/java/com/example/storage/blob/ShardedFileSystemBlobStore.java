@@ -0,0 +1,65 @@
+package com.example.storage.blob;
+
+import com.example.storage.config.StorageProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Stores blobs under {@code <upload-dir>/blobs/xx/yy/<key>}. Locations are absolute paths, so files written
+ * by earlier versions directly into the upload directory can still be loaded.
+ */
+@Component
+@ConditionalOnProperty(name = "file.blob-store", havingValue = "FILESYSTEM", matchIfMissing = true)
+@Slf4j
+public class ShardedFileSystemBlobStore implements BlobStore {
+
+    private final Path root;
+
+    public ShardedFileSystemBlobStore(StorageProperties storageProperties) throws IOException {
+        this.root = Paths.get(storageProperties.getUploadDir()).toAbsolutePath().normalize().resolve("blobs");
+        Files.createDirectories(root);
+    }
+
+    @Override
+    public String put(String key, Path stagedFile) throws IOException {
+        Path target = resolve(key);
+        if (Files.notExists(target)) {
+            Files.createDirectories(target.getParent());
+            try {
+                Files.move(stagedFile, target, StandardCopyOption.ATOMIC_MOVE);
+            } catch (FileAlreadyExistsException ex) {
+                log.debug("Blob {} was stored concurrently", key);
+            }
+        }
+        return target.toString();
+    }
+
+    @Override
+    public boolean exists(String key) {
+        return Files.exists(resolve(key));
+    }
+
+    @Override
+    public Resource load(String location) throws IOException {
+        Path path = Paths.get(location);
+        if (!Files.isRegularFile(path)) {
+            throw new FileNotFoundException("No blob at " + location);
+        }
+        return new FileSystemResource(path);
+    }
+
+    private Path resolve(String key) {
+        return root.resolve(BlobKeys.shardedPath(key));
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.storage.config;
+
+/**
+ * Backend that holds the file contents, see {@code file.blob-store}.
+ */
+public enum BlobStoreType {
+    FILESYSTEM,
+    S3
+}
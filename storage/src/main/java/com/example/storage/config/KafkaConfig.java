@@ -1,6 +1,7 @@
 package com.example.storage.config;
 
 import com.example.storage.dto.event.FileUploadedEvent;
+import com.example.storage.serialization.BinaryEventSerializer;
 import org.apache.kafka.clients.producer.ProducerConfig;
 import org.apache.kafka.common.serialization.StringSerializer;
 import org.springframework.beans.factory.annotation.Value;
@@ -20,13 +21,40 @@ public class KafkaConfig {
     @Value("${spring.kafka.bootstrap-servers}")
     private String bootstrapServers;
 
+    // JSON - readable by any consumer; BINARY - compact codec, switch only once all consumers understand it
+    @Value("${kafka.producer.value-format:JSON}")
+    private ValueFormat valueFormat;
+
+    // Time to wait for more records of the same partition before sending a batch
+    @Value("${kafka.producer.linger-ms:10}")
+    private int lingerMs;
+
+    @Value("${kafka.producer.batch-size:65536}")
+    private int batchSize;
+
+    @Value("${kafka.producer.compression-type:lz4}")
+    private String compressionType;
+
+    @Value("${kafka.producer.enable-idempotence:true}")
+    private boolean enableIdempotence;
+
     @Bean
     public ProducerFactory<String, FileUploadedEvent> producerFactory() {
         Map<String, Object> configProps = new HashMap<>();
         configProps.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
         configProps.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
         // Используем JsonSerializer для значения (нашего FileUploadedEvent)
-        configProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JsonSerializer.class);
+        configProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG,
+                valueFormat == ValueFormat.BINARY ? BinaryEventSerializer.class : JsonSerializer.class);
+        configProps.put(ProducerConfig.LINGER_MS_CONFIG, lingerMs);
+        configProps.put(ProducerConfig.BATCH_SIZE_CONFIG, batchSize);
+        configProps.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, compressionType);
+        // The outbox relay retries until acknowledged; idempotence keeps the producer's own retries from duplicating
+        configProps.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, enableIdempotence);
+        if (enableIdempotence) {
+            configProps.put(ProducerConfig.ACKS_CONFIG, "all");
+            configProps.put(ProducerConfig.MAX_IN_FLIGHT_REQUESTS_PER_CONNECTION, 5);
+        }
 
         // Опционально: если у вас проблемы с десериализацией на стороне консьюмера из-за отсутствия информации о типе
         // configProps.put(JsonSerializer.ADD_TYPE_INFO_HEADERS, false); // По умолчанию false для Spring Kafka 3.x+
@@ -36,6 +64,9 @@ public class KafkaConfig {
 
     @Bean
     public KafkaTemplate<String, FileUploadedEvent> kafkaTemplate() {
-        return new KafkaTemplate<>(producerFactory());
+        KafkaTemplate<String, FileUploadedEvent> kafkaTemplate = new KafkaTemplate<>(producerFactory());
+        // Кладёт контекст трассировки в заголовки сообщения
+        kafkaTemplate.setObservationEnabled(true);
+        return kafkaTemplate;
     }
 }
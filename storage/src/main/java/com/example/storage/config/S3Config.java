@@ -0,0 +1,37 @@
+package com.example.storage.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.StringUtils;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3ClientBuilder;
+
+import java.net.URI;
+
+@Configuration
+@ConditionalOnProperty(name = "file.blob-store", havingValue = "S3")
+public class S3Config {
+
+    @Bean(destroyMethod = "close")
+    public S3Client s3Client(StorageProperties storageProperties) {
+        StorageProperties.S3 s3 = storageProperties.getS3();
+        S3ClientBuilder builder = S3Client.builder()
+                .region(Region.of(s3.getRegion()))
+                .forcePathStyle(s3.isPathStyleAccess());
+        if (StringUtils.hasText(s3.getEndpoint())) {
+            builder.endpointOverride(URI.create(s3.getEndpoint()));
+        }
+        if (StringUtils.hasText(s3.getAccessKey())) {
+            builder.credentialsProvider(StaticCredentialsProvider.create(
+                    AwsBasicCredentials.create(s3.getAccessKey(), s3.getSecretKey())));
+        } else {
+            builder.credentialsProvider(DefaultCredentialsProvider.create());
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.storage.config;
+
+/**
+ * Defines how uploaded files are laid out on disk, see {@code file.storage-mode}.
+ */
+public enum StorageMode {
+    /**
+     * Every upload gets its own file named {@code <fileId>_<originalFilename>}.
+     */
+    PER_UPLOAD,
+    /**
+     * Files are stored once per distinct content under their SHA-256 digest and shared between uploads.
+     */
+    CONTENT_ADDRESSED
+}
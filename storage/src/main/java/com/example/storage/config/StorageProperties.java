@@ -4,6 +4,9 @@ import lombok.Getter;
 import lombok.Setter;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
 
 @Configuration
 @ConfigurationProperties(prefix = "file")
@@ -11,4 +14,22 @@ import org.springframework.context.annotation.Configuration;
 @Setter
 public class StorageProperties {
     private String uploadDir = "uploads";
+    private StorageMode storageMode = StorageMode.PER_UPLOAD;
+    private BlobStoreType blobStore = BlobStoreType.FILESYSTEM;
+    private DataSize maxUploadSize = DataSize.ofGigabytes(10);
+    private DataSize uploadPartSize = DataSize.ofMegabytes(8);
+    private Duration uploadSessionTtl = Duration.ofHours(24);
+    private S3 s3 = new S3();
+
+    @Getter
+    @Setter
+    public static class S3 {
+        // Leave empty for AWS, set to the MinIO (or other S3-compatible) URL otherwise
+        private String endpoint;
+        private String region = "us-east-1";
+        private String bucket = "files";
+        private String accessKey;
+        private String secretKey;
+        private boolean pathStyleAccess = true;
+    }
 }
@@ -0,0 +1,9 @@
+package com.example.storage.config;
+
+/**
+ * Serialization of produced Kafka values, see {@code kafka.producer.value-format}. Consumers read both.
+ */
+public enum ValueFormat {
+    JSON,
+    BINARY
+}
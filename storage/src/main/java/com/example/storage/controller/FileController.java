@@ -4,12 +4,10 @@ import com.example.storage.dto.FileUploadResponseDTO;
 import com.example.storage.entity.FileMetadata;
 import com.example.storage.service.FileStorageServiceImpl;
 import jakarta.servlet.http.HttpServletRequest; // Важно: jakarta.servlet для Spring Boot 3
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.core.io.Resource;
-import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
-import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
@@ -23,6 +21,7 @@ import java.io.IOException;
 public class FileController {
 
     private final FileStorageServiceImpl fileStorageService;
+    private final FileDownloadWriter fileDownloadWriter;
 
     @PostMapping("/upload")
     public ResponseEntity<FileUploadResponseDTO> uploadFile(@RequestParam("file") MultipartFile file,
@@ -35,29 +34,26 @@ public class FileController {
         return ResponseEntity.status(HttpStatus.CREATED).body(response);
     }
 
+    /**
+     * Uploads the raw request body as the file content, which avoids the temporary copy made for multipart
+     * requests. The body's Content-Type is stored as the file's content type.
+     */
+    @PostMapping("/upload/stream")
+    public ResponseEntity<FileUploadResponseDTO> uploadFileStream(@RequestParam("filename") String filename,
+                                                                  @RequestParam(value = "userId", required = false) String userId,
+                                                                  HttpServletRequest request) throws IOException {
+        log.info("Received streaming upload request for original filename: {}, userId: {}, size: {}",
+                filename, userId, request.getContentLengthLong());
+        FileUploadResponseDTO response = fileStorageService.storeStream(
+                request.getInputStream(), filename, request.getContentType(), request.getContentLengthLong(), userId);
+        return ResponseEntity.status(HttpStatus.CREATED).body(response);
+    }
+
     @GetMapping("/{fileId}")
-    public ResponseEntity<Resource> downloadFile(@PathVariable String fileId, HttpServletRequest request) {
+    public void downloadFile(@PathVariable String fileId, HttpServletRequest request,
+                             HttpServletResponse response) throws IOException {
         log.info("Received file download request for fileId: {}", fileId);
-        Resource resource = fileStorageService.loadFileAsResource(fileId);
-
-        String contentType = null;
-        try {
-            contentType = request.getServletContext().getMimeType(resource.getFile().getAbsolutePath());
-        } catch (IOException ex) {
-            log.warn("Could not determine file type for resource: {}", resource.getFilename(), ex);
-        }
-
-        if (contentType == null) {
-            contentType = "application/octet-stream";
-        }
-
-        FileMetadata metadata = fileStorageService.getFileMetadata(fileId);
-
-
-        return ResponseEntity.ok()
-                .contentType(MediaType.parseMediaType(contentType))
-                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + metadata.getOriginalFilename() + "\"") // metadata.getOriginalFilename() корректнее, чем resource.getFilename() который может содержать fileId
-                .body(resource);
+        fileDownloadWriter.write(fileStorageService.loadFile(fileId), request, response);
     }
 
     @GetMapping("/{fileId}/metadata")
@@ -0,0 +1,236 @@
+package com.example.storage.controller;
+
+import com.example.storage.blob.RangeReadableResource;
+import com.example.storage.dto.StoredFile;
+import com.example.storage.entity.FileMetadata;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.util.StreamUtils;
+import org.springframework.util.StringUtils;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Writes file downloads with conditional GET and byte range support.
+ * <p>
+ * The strong ETag is the SHA-256 of the content when known, otherwise the file id, since the content of a
+ * file id never changes. Only Tomcat's sendfile, used for large single-part bodies of file system blobs when the
+ * connector supports it, avoids copying the file through the JVM. Otherwise file system blobs are written with
+ * {@link FileChannel#transferTo} into a channel over the servlet output stream, which still copies through a heap
+ * buffer. Other blobs are streamed, reading only the requested bytes when the store supports it.
+ * <p>
+ * Overlapping and adjacent ranges are merged, and a multi-range request asking for more bytes in total than the
+ * file has is rejected with 416, the same rule as Spring's {@code HttpRange.toResourceRegions}, so a request cannot
+ * make the response much larger than the file.
+ */
+@Component
+@Slf4j
+public class FileDownloadWriter {
+
+    // Same threshold as Tomcat's DefaultServlet; smaller bodies are cheaper to write directly
+    private static final long SENDFILE_MIN_SIZE = 48 * 1024;
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    public void write(StoredFile storedFile, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        FileMetadata metadata = storedFile.getMetadata();
+        Resource resource = storedFile.getResource();
+        String eTag = eTagOf(metadata);
+
+        if (new ServletWebRequest(request, response).checkNotModified(eTag)) {
+            return;
+        }
+
+        long length = resource.contentLength();
+        String contentType = contentTypeOf(metadata, request);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                "attachment; filename=\"" + metadata.getOriginalFilename() + "\"");
+
+        List<ByteRange> ranges;
+        try {
+            ranges = resolveRanges(requestedRanges(request, eTag), length);
+        } catch (IllegalArgumentException ex) {
+            log.debug("Unsatisfiable range {} for fileId {}: {}",
+                    request.getHeader(HttpHeaders.RANGE), metadata.getFileId(), ex.getMessage());
+            response.setStatus(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+            return;
+        }
+
+        boolean head = HttpMethod.HEAD.matches(request.getMethod());
+        if (ranges.isEmpty()) {
+            response.setContentType(contentType);
+            response.setContentLengthLong(length);
+            if (!head) {
+                writeRange(resource, 0, length, request, response, true);
+            }
+        } else if (ranges.size() == 1) {
+            long start = ranges.get(0).start();
+            long end = ranges.get(0).end();
+            response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+            response.setContentType(contentType);
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+            response.setContentLengthLong(end - start + 1);
+            if (!head) {
+                writeRange(resource, start, end - start + 1, request, response, true);
+            }
+        } else {
+            String boundary = MimeTypeUtils.generateMultipartBoundaryString();
+            response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+            response.setContentType("multipart/byteranges; boundary=" + boundary);
+            if (!head) {
+                writeMultipartRanges(resource, ranges, length, boundary, contentType, request, response);
+            }
+        }
+    }
+
+    private List<HttpRange> requestedRanges(HttpServletRequest request, String eTag) {
+        String range = request.getHeader(HttpHeaders.RANGE);
+        if (!StringUtils.hasText(range)) {
+            return List.of();
+        }
+        // A stale If-Range means the client's partial copy is outdated, so the whole file is sent
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange != null && !ifRange.equals(eTag)) {
+            return List.of();
+        }
+        return HttpRange.parseRanges(range);
+    }
+
+    /**
+     * Resolves the ranges against the file length, sorted with overlapping and adjacent ones merged.
+     *
+     * @throws IllegalArgumentException if the ranges cannot be satisfied
+     */
+    static List<ByteRange> resolveRanges(List<HttpRange> ranges, long length) {
+        if (ranges.isEmpty()) {
+            return List.of();
+        }
+        List<ByteRange> resolved = new ArrayList<>(ranges.size());
+        long total = 0;
+        for (HttpRange range : ranges) {
+            long start = range.getRangeStart(length);
+            if (start >= length) {
+                throw new IllegalArgumentException("Range starts beyond the end of the file");
+            }
+            long end = range.getRangeEnd(length);
+            resolved.add(new ByteRange(start, end));
+            total += end - start + 1;
+        }
+        if (ranges.size() > 1 && total > length) {
+            throw new IllegalArgumentException("Ranges add up to " + total + " bytes, more than the file has");
+        }
+
+        resolved.sort(Comparator.comparingLong(ByteRange::start));
+        List<ByteRange> merged = new ArrayList<>(resolved.size());
+        ByteRange current = resolved.get(0);
+        for (ByteRange next : resolved.subList(1, resolved.size())) {
+            if (next.start() <= current.end() + 1) {
+                current = new ByteRange(current.start(), Math.max(current.end(), next.end()));
+            } else {
+                merged.add(current);
+                current = next;
+            }
+        }
+        merged.add(current);
+        return merged;
+    }
+
+    private void writeMultipartRanges(Resource resource, List<ByteRange> ranges, long length, String boundary,
+                                      String contentType, HttpServletRequest request,
+                                      HttpServletResponse response) throws IOException {
+        ServletOutputStream out = response.getOutputStream();
+        for (ByteRange range : ranges) {
+            long start = range.start();
+            long end = range.end();
+            String partHeader = "\r\n--" + boundary + "\r\n" +
+                    HttpHeaders.CONTENT_TYPE + ": " + contentType + "\r\n" +
+                    HttpHeaders.CONTENT_RANGE + ": bytes " + start + "-" + end + "/" + length + "\r\n\r\n";
+            out.write(partHeader.getBytes(StandardCharsets.US_ASCII));
+            writeRange(resource, start, end - start + 1, request, response, false);
+        }
+        out.write(("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private void writeRange(Resource resource, long start, long count, HttpServletRequest request,
+                            HttpServletResponse response, boolean wholeBody) throws IOException {
+        if (resource instanceof RangeReadableResource rangeReadable && count < resource.contentLength()) {
+            try (InputStream in = rangeReadable.getInputStream(start, count)) {
+                StreamUtils.copy(in, response.getOutputStream());
+            }
+            return;
+        }
+        if (!resource.isFile()) {
+            try (InputStream in = resource.getInputStream()) {
+                StreamUtils.copyRange(in, response.getOutputStream(), start, start + count - 1);
+            }
+            return;
+        }
+
+        File file = resource.getFile();
+        if (wholeBody && count >= SENDFILE_MIN_SIZE && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            // Tomcat sends the file from the kernel after the handler returns
+            request.setAttribute(SENDFILE_FILENAME, file.getAbsolutePath());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, start + count);
+            return;
+        }
+
+        OutputStream out = response.getOutputStream();
+        WritableByteChannel target = Channels.newChannel(out);
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long position = start;
+            long end = start + count;
+            while (position < end) {
+                long transferred = channel.transferTo(position, end - position, target);
+                if (transferred <= 0) {
+                    throw new IOException("File " + file + " is shorter than expected");
+                }
+                position += transferred;
+            }
+        }
+    }
+
+    /**
+     * Inclusive byte positions within the file.
+     */
+    record ByteRange(long start, long end) {
+    }
+
+    private static String eTagOf(FileMetadata metadata) {
+        String version = metadata.getContentDigest() != null ? metadata.getContentDigest() : metadata.getFileId();
+        return "\"" + version + "\"";
+    }
+
+    private static String contentTypeOf(FileMetadata metadata, HttpServletRequest request) {
+        String contentType = request.getServletContext().getMimeType(metadata.getOriginalFilename());
+        if (contentType == null) {
+            contentType = metadata.getContentType();
+        }
+        return contentType != null ? contentType : "application/octet-stream";
+    }
+}
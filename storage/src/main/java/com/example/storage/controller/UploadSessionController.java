@@ -0,0 +1,64 @@
+package com.example.storage.controller;
+
+import com.example.storage.dto.FileUploadResponseDTO;
+import com.example.storage.dto.UploadSessionDTO;
+import com.example.storage.service.ChunkedUploadService;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+
+/**
+ * Resumable uploads: {@code POST /uploads} to initiate, {@code PUT /uploads/{uploadId}/parts/{partNumber}} with
+ * the raw part bytes (in any order, in parallel), {@code POST /uploads/{uploadId}/complete} to finish.
+ * {@code GET /uploads/{uploadId}} lists the received parts for resuming.
+ */
+@RestController
+@RequestMapping("/api/v1/files/uploads")
+@RequiredArgsConstructor
+@Slf4j
+public class UploadSessionController {
+
+    private final ChunkedUploadService chunkedUploadService;
+
+    @PostMapping
+    public ResponseEntity<UploadSessionDTO> initiateUpload(@RequestParam("filename") String filename,
+                                                           @RequestParam("size") long size,
+                                                           @RequestParam(value = "partSize", required = false) Long partSize,
+                                                           @RequestParam(value = "contentType", required = false) String contentType,
+                                                           @RequestParam(value = "userId", required = false) String userId) {
+        log.info("Received upload initiation for original filename: {}, size: {}, userId: {}", filename, size, userId);
+        UploadSessionDTO session = chunkedUploadService.initiate(filename, contentType, size, partSize, userId);
+        return ResponseEntity.status(HttpStatus.CREATED).body(session);
+    }
+
+    @PutMapping("/{uploadId}/parts/{partNumber}")
+    public ResponseEntity<UploadSessionDTO> uploadPart(@PathVariable String uploadId, @PathVariable int partNumber,
+                                                       HttpServletRequest request) throws IOException {
+        log.debug("Received part {} of upload {}", partNumber, uploadId);
+        return ResponseEntity.ok(chunkedUploadService.uploadPart(
+                uploadId, partNumber, request.getInputStream(), request.getContentLengthLong()));
+    }
+
+    @GetMapping("/{uploadId}")
+    public ResponseEntity<UploadSessionDTO> getUpload(@PathVariable String uploadId) {
+        return ResponseEntity.ok(chunkedUploadService.getStatus(uploadId));
+    }
+
+    @PostMapping("/{uploadId}/complete")
+    public ResponseEntity<FileUploadResponseDTO> completeUpload(@PathVariable String uploadId) {
+        log.info("Received completion request for upload {}", uploadId);
+        return ResponseEntity.status(HttpStatus.CREATED).body(chunkedUploadService.complete(uploadId));
+    }
+
+    @DeleteMapping("/{uploadId}")
+    public ResponseEntity<Void> abortUpload(@PathVariable String uploadId) {
+        log.info("Received abort request for upload {}", uploadId);
+        chunkedUploadService.abort(uploadId);
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.storage.dto;
+
+import com.example.storage.entity.FileMetadata;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.core.io.Resource;
+
+/**
+ * Metadata of a file together with its opened content, resolved with a single metadata query.
+ */
+@Getter
+@AllArgsConstructor
+public class StoredFile {
+    private final FileMetadata metadata;
+    private final Resource resource;
+}
@@ -0,0 +1,23 @@
+package com.example.storage.dto;
+
+import com.example.storage.entity.UploadStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UploadSessionDTO {
+    private String uploadId;
+    private String fileName;
+    private long totalSize;
+    private long partSize;
+    private int partCount;
+    private UploadStatus status;
+    // Parts that have been received, so a client can resume by sending only the missing ones
+    private List<Integer> uploadedParts;
+    private String fileId;
+}
@@ -14,4 +14,6 @@ public class FileUploadedEvent {
     private long size;
     private String storagePath;
     private String userId;
+    // SHA-256 of the content, hex encoded; null for events from older storage versions
+    private String contentDigest;
 }
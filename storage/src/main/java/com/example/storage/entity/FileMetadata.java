@@ -37,16 +37,22 @@ public class FileMetadata {
     @Column
     private String userId;
 
+    // SHA-256 of the content, hex encoded
+    @Column(length = 64)
+    private String contentDigest;
+
     @CreationTimestamp
     @Column(nullable = false, updatable = false)
     private LocalDateTime uploadTimestamp;
 
-    public FileMetadata(String fileId, String originalFilename, String contentType, long size, String storagePath, String userId) {
+    public FileMetadata(String fileId, String originalFilename, String contentType, long size, String storagePath, String userId,
+                        String contentDigest) {
         this.fileId = fileId;
         this.originalFilename = originalFilename;
         this.contentType = contentType;
         this.size = size;
         this.storagePath = storagePath;
         this.userId = userId;
+        this.contentDigest = contentDigest;
     }
 }
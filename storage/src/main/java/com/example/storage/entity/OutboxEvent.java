@@ -0,0 +1,58 @@
+package com.example.storage.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+
+/**
+ * A Kafka message written in the same transaction as the data it describes and sent later by
+ * {@link com.example.storage.service.OutboxRelay}. Rows are deleted once the broker has acknowledged them.
+ * <p>
+ * A relay claims rows for the duration of its send by setting {@code lockedUntil}; rows of a relay that died
+ * become available again once the lease expires.
+ */
+@Entity
+@Table(name = "outbox_events")
+@Getter
+@Setter
+@NoArgsConstructor
+public class OutboxEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String topic;
+
+    @Column
+    private String messageKey;
+
+    // Event serialized as JSON
+    @Column(nullable = false, columnDefinition = "text")
+    private String payload;
+
+    // Trace context of the enqueuing request as propagation headers (JSON), so the send continues its trace
+    @Column(columnDefinition = "text")
+    private String traceHeaders;
+
+    // Claimed by a relay until then; null if nobody is sending the event
+    @Column(columnDefinition = "timestamp with time zone")
+    private Instant lockedUntil;
+
+    @CreationTimestamp
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    public OutboxEvent(String topic, String messageKey, String payload, String traceHeaders) {
+        this.topic = topic;
+        this.messageKey = messageKey;
+        this.payload = payload;
+        this.traceHeaders = traceHeaders;
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.storage.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * A distinct file content in content-addressed mode, shared by all uploads with the same digest.
+ * {@code referenceCount} is the number of {@link FileMetadata} rows pointing at it.
+ */
+@Entity
+@Table(name = "stored_blobs")
+@Getter
+@Setter
+@NoArgsConstructor
+public class StoredBlob {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, unique = true, length = 64)
+    private String digest;
+
+    @Column(nullable = false)
+    private String storagePath;
+
+    @Column
+    private long size;
+
+    @Column(nullable = false)
+    private long referenceCount;
+
+    @CreationTimestamp
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+}
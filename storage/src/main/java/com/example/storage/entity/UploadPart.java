@@ -0,0 +1,38 @@
+package com.example.storage.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * A part of an {@link UploadSession} that has been fully written.
+ */
+@Entity
+@Table(name = "upload_parts",
+        uniqueConstraints = @UniqueConstraint(name = "uk_upload_parts_upload_part", columnNames = {"uploadId", "partNumber"}))
+@Getter
+@Setter
+@NoArgsConstructor
+public class UploadPart {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String uploadId;
+
+    @Column(nullable = false)
+    private int partNumber;
+
+    @Column(nullable = false)
+    private long size;
+
+    @CreationTimestamp
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,84 @@
+package com.example.storage.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * A resumable upload. Parts are written directly at their offset into a staging file preallocated to
+ * {@code totalSize}, so completing the upload does not need to concatenate anything.
+ */
+@Entity
+@Table(name = "upload_sessions")
+@Getter
+@Setter
+@NoArgsConstructor
+public class UploadSession {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, unique = true)
+    private String uploadId;
+
+    @Column(nullable = false)
+    private String originalFilename;
+
+    @Column
+    private String contentType;
+
+    @Column
+    private String userId;
+
+    @Column(nullable = false)
+    private long totalSize;
+
+    @Column(nullable = false)
+    private long partSize;
+
+    @Column(nullable = false)
+    private int partCount;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private UploadStatus status;
+
+    // Set once the upload has been completed
+    @Column
+    private String fileId;
+
+    @CreationTimestamp
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    public UploadSession(String uploadId, String originalFilename, String contentType, String userId,
+                         long totalSize, long partSize, int partCount) {
+        this.uploadId = uploadId;
+        this.originalFilename = originalFilename;
+        this.contentType = contentType;
+        this.userId = userId;
+        this.totalSize = totalSize;
+        this.partSize = partSize;
+        this.partCount = partCount;
+        this.status = UploadStatus.IN_PROGRESS;
+    }
+
+    /**
+     * Offset of the 1-based part in the file.
+     */
+    public long partOffset(int partNumber) {
+        return (partNumber - 1) * partSize;
+    }
+
+    /**
+     * Exact size of the 1-based part; only the last one may be shorter than {@code partSize}.
+     */
+    public long partLength(int partNumber) {
+        return Math.min(partSize, totalSize - partOffset(partNumber));
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.storage.entity;
+
+public enum UploadStatus {
+    IN_PROGRESS,
+    COMPLETING,
+    COMPLETED,
+    ABORTED,
+    EXPIRED
+}
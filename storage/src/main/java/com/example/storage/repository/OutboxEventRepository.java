@@ -0,0 +1,40 @@
+package com.example.storage.repository;
+
+import com.example.storage.entity.OutboxEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    /**
+     * Locks the oldest events that no relay has claimed, or whose claim has expired. Rows locked by another relay
+     * are skipped, so several instances can claim batches in parallel without sending anything twice.
+     */
+    @Query(value = "SELECT * FROM outbox_events WHERE locked_until IS NULL OR locked_until < now() " +
+            "ORDER BY id LIMIT :limit FOR UPDATE SKIP LOCKED",
+            nativeQuery = true)
+    List<OutboxEvent> lockNextBatch(@Param("limit") int limit);
+
+    /**
+     * Claims the events for the given time, measured by the database clock so relays need not agree on the time.
+     */
+    @Modifying
+    @Query(value = "UPDATE outbox_events SET locked_until = now() + make_interval(secs => :leaseSeconds) " +
+            "WHERE id IN (:ids)",
+            nativeQuery = true)
+    int claim(@Param("ids") Collection<Long> ids, @Param("leaseSeconds") double leaseSeconds);
+
+    /**
+     * Makes claimed events available to the next drain right away, e.g. after a failed send.
+     */
+    @Modifying
+    @Query("update OutboxEvent e set e.lockedUntil = null where e.id in :ids")
+    int release(@Param("ids") Collection<Long> ids);
+}
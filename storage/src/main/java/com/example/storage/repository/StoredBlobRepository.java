@@ -0,0 +1,29 @@
+package com.example.storage.repository;
+
+import com.example.storage.entity.StoredBlob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface StoredBlobRepository extends JpaRepository<StoredBlob, Long> {
+
+    Optional<StoredBlob> findByDigest(String digest);
+
+    /**
+     * Registers one more reference to the blob, creating it on first use. Atomic, so concurrent uploads of the
+     * same new content cannot both create it.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO stored_blobs (digest, storage_path, size, reference_count, created_at) " +
+            "VALUES (:digest, :storagePath, :size, 1, now()) " +
+            "ON CONFLICT (digest) DO UPDATE SET reference_count = stored_blobs.reference_count + 1",
+            nativeQuery = true)
+    int addReference(@Param("digest") String digest,
+                     @Param("storagePath") String storagePath,
+                     @Param("size") long size);
+}
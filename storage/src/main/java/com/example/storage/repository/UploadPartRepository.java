@@ -0,0 +1,33 @@
+package com.example.storage.repository;
+
+import com.example.storage.entity.UploadPart;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface UploadPartRepository extends JpaRepository<UploadPart, Long> {
+
+    @Query("select p.partNumber from UploadPart p where p.uploadId = :uploadId order by p.partNumber")
+    List<Integer> findPartNumbers(@Param("uploadId") String uploadId);
+
+    long countByUploadId(String uploadId);
+
+    /**
+     * Records a written part. Uploading the same part again is allowed, since it overwrites the same bytes.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO upload_parts (upload_id, part_number, size, created_at) " +
+            "VALUES (:uploadId, :partNumber, :size, now()) " +
+            "ON CONFLICT (upload_id, part_number) DO NOTHING",
+            nativeQuery = true)
+    int recordPart(@Param("uploadId") String uploadId, @Param("partNumber") int partNumber, @Param("size") long size);
+
+    @Modifying
+    @Query("delete from UploadPart p where p.uploadId = :uploadId")
+    int deleteByUploadId(@Param("uploadId") String uploadId);
+}
@@ -0,0 +1,45 @@
+package com.example.storage.repository;
+
+import com.example.storage.entity.UploadSession;
+import com.example.storage.entity.UploadStatus;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface UploadSessionRepository extends JpaRepository<UploadSession, Long> {
+
+    Optional<UploadSession> findByUploadId(String uploadId);
+
+    /**
+     * Reads the session with a shared row lock ({@code FOR SHARE}) held until the transaction ends. Part writes
+     * hold it, so {@link #transition} waits for running writes and writes started later see the new status.
+     */
+    @Lock(LockModeType.PESSIMISTIC_READ)
+    @Query("select s from UploadSession s where s.uploadId = :uploadId")
+    Optional<UploadSession> findByUploadIdForShare(@Param("uploadId") String uploadId);
+
+    List<UploadSession> findByStatusAndCreatedAtBefore(UploadStatus status, LocalDateTime createdBefore);
+
+    /**
+     * Moves the session from one status to another only if it is still in the expected one, so concurrent
+     * requests cannot both complete or abort the same upload.
+     *
+     * @return 1 if the transition happened, 0 otherwise
+     */
+    @Modifying
+    @Query("update UploadSession s set s.status = :to where s.uploadId = :uploadId and s.status = :from")
+    int transition(@Param("uploadId") String uploadId, @Param("from") UploadStatus from, @Param("to") UploadStatus to);
+
+    @Modifying
+    @Query("update UploadSession s set s.status = :to, s.fileId = :fileId where s.uploadId = :uploadId")
+    int markCompleted(@Param("uploadId") String uploadId, @Param("fileId") String fileId, @Param("to") UploadStatus to);
+}
@@ -0,0 +1,48 @@
+package com.example.storage.serialization;
+
+import com.example.storage.dto.event.FileUploadedEvent;
+import org.apache.kafka.common.errors.SerializationException;
+
+import java.util.HexFormat;
+
+/**
+ * Compact binary encoding of {@link FileUploadedEvent}, used instead of JSON with
+ * {@code kafka.producer.value-format=BINARY}.
+ * <p>
+ * Layout: a magic byte, the format version, the event type and then protobuf-style tagged fields (a varint key
+ * holding the field number and wire type, followed by a zigzag varint, 8 fixed bytes or a length-prefixed byte
+ * string). Readers keep defaults for missing fields and skip unknown ones, so fields may be added or dropped
+ * freely as long as field numbers are never reused; the version is only raised for incompatible changes.
+ * <p>
+ * The storage service only produces these events, so only encoding lives here. Type ids and field numbers must
+ * match the analyzer's copy of this codec, which also decodes them and knows its own events.
+ */
+public final class BinaryEventCodec {
+
+    public static final byte MAGIC = (byte) 0xB1;
+    static final byte VERSION = 1;
+
+    private static final int TYPE_FILE_UPLOADED = 1;
+
+    private BinaryEventCodec() {
+    }
+
+    public static boolean supports(Class<?> type) {
+        return type == FileUploadedEvent.class;
+    }
+
+    public static byte[] encode(Object event) {
+        if (event instanceof FileUploadedEvent e) {
+            return new EventWriter(TYPE_FILE_UPLOADED)
+                    .string(1, e.getFileId())
+                    .string(2, e.getOriginalFilename())
+                    .string(3, e.getContentType())
+                    .integer(4, e.getSize())
+                    .string(5, e.getStoragePath())
+                    .string(6, e.getUserId())
+                    .bytes(7, e.getContentDigest() != null ? HexFormat.of().parseHex(e.getContentDigest()) : null)
+                    .toByteArray();
+        }
+        throw new SerializationException("No binary encoding for " + event.getClass().getName());
+    }
+}
@@ -0,0 +1,259 @@
+package com.example.storage.service;
+
+import com.example.storage.config.StorageProperties;
+import com.example.storage.dto.FileUploadResponseDTO;
+import com.example.storage.dto.UploadSessionDTO;
+import com.example.storage.entity.UploadSession;
+import com.example.storage.entity.UploadStatus;
+import com.example.storage.exception.FileNotFoundException;
+import com.example.storage.exception.FileStorageException;
+import com.example.storage.exception.FileTooLargeException;
+import com.example.storage.exception.InvalidUploadException;
+import com.example.storage.repository.UploadPartRepository;
+import com.example.storage.repository.UploadSessionRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.UUID;
+
+/**
+ * Resumable uploads: a session is initiated with the total size, parts are uploaded in any order and in
+ * parallel, and completing the session stores the file like a regular upload and publishes its
+ * {@code FileUploadedEvent}.
+ * <p>
+ * Each part is written straight to its offset in a staging file preallocated to the total size, so no
+ * concatenation is needed. Since parts arrive out of order, the content digest is computed at completion with
+ * one sequential read of the assembled file. Part writes hold a shared lock on the session row and every status
+ * change updates that row, so the staging file is never written while it is being completed or deleted.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ChunkedUploadService {
+
+    private static final int MAX_PARTS = 10_000;
+    private static final long MIN_PART_SIZE = 64 * 1024;
+    private static final int DIGEST_BUFFER_SIZE = 64 * 1024;
+
+    private final UploadSessionRepository uploadSessionRepository;
+    private final UploadPartRepository uploadPartRepository;
+    private final FileStorageServiceImpl fileStorageService;
+    private final StorageProperties storageProperties;
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * @param partSize requested part size, or {@code null} for the configured default
+     */
+    @Transactional
+    public UploadSessionDTO initiate(String filename, String contentType, long totalSize, Long partSize, String userId) {
+        String originalFilename = fileStorageService.cleanFilename(filename);
+        long maxSize = storageProperties.getMaxUploadSize().toBytes();
+        if (totalSize > maxSize) {
+            throw new FileTooLargeException("File " + originalFilename + " exceeds the maximum size of " + maxSize + " bytes");
+        }
+        if (totalSize <= 0) {
+            throw new InvalidUploadException("Total size must be positive");
+        }
+        long effectivePartSize = partSize != null ? partSize : storageProperties.getUploadPartSize().toBytes();
+        if (effectivePartSize < MIN_PART_SIZE) {
+            throw new InvalidUploadException("Part size must be at least " + MIN_PART_SIZE + " bytes");
+        }
+        long partCount = (totalSize + effectivePartSize - 1) / effectivePartSize;
+        if (partCount > MAX_PARTS) {
+            throw new InvalidUploadException("Upload would have " + partCount + " parts, at most " + MAX_PARTS + " are allowed");
+        }
+
+        String uploadId = UUID.randomUUID().toString();
+        try (RandomAccessFile file = new RandomAccessFile(stagingFile(uploadId).toFile(), "rw")) {
+            file.setLength(totalSize);
+        } catch (IOException ex) {
+            log.error("Could not create staging file for upload {}", uploadId, ex);
+            throw new FileStorageException("Could not start upload of " + originalFilename, ex);
+        }
+
+        UploadSession session = uploadSessionRepository.save(new UploadSession(
+                uploadId, originalFilename, contentType, userId, totalSize, effectivePartSize, (int) partCount));
+        log.info("Initiated upload {} of {} ({} bytes in {} parts)", uploadId, originalFilename, totalSize, partCount);
+        return toDto(session);
+    }
+
+    /**
+     * Writes one part at its offset. The body must have exactly the part's length. Sending a part again
+     * overwrites it, which makes retries safe.
+     * <p>
+     * The write runs under a shared lock on the session row, so completing, aborting or expiring the upload waits
+     * for it to finish, and a part arriving after that sees the new status instead of touching the staging file.
+     *
+     * @param declaredLength the request's Content-Length, or -1 if unknown
+     */
+    public UploadSessionDTO uploadPart(String uploadId, int partNumber, InputStream content, long declaredLength) {
+        return transactionTemplate.execute(status -> {
+            UploadSession session = uploadSessionRepository.findByUploadIdForShare(uploadId)
+                    .orElseThrow(() -> new FileNotFoundException("Upload not found with id " + uploadId));
+            if (session.getStatus() != UploadStatus.IN_PROGRESS) {
+                throw new InvalidUploadException("Upload " + uploadId + " is " + session.getStatus());
+            }
+            if (partNumber < 1 || partNumber > session.getPartCount()) {
+                throw new InvalidUploadException("Part number must be between 1 and " + session.getPartCount());
+            }
+            long expectedLength = session.partLength(partNumber);
+            if (declaredLength >= 0 && declaredLength != expectedLength) {
+                throw new InvalidUploadException("Part " + partNumber + " must be exactly " + expectedLength + " bytes");
+            }
+
+            writePart(uploadId, partNumber, session.partOffset(partNumber), expectedLength, content);
+            uploadPartRepository.recordPart(uploadId, partNumber, expectedLength);
+            log.debug("Stored part {} of upload {}", partNumber, uploadId);
+            return toDto(session);
+        });
+    }
+
+    @Transactional(readOnly = true)
+    public UploadSessionDTO getStatus(String uploadId) {
+        return toDto(findSession(uploadId));
+    }
+
+    /**
+     * Stores the assembled file once all parts have been received.
+     */
+    public FileUploadResponseDTO complete(String uploadId) {
+        UploadSession session = findSession(uploadId);
+        if (!transition(uploadId, UploadStatus.IN_PROGRESS, UploadStatus.COMPLETING)) {
+            throw new InvalidUploadException("Upload " + uploadId + " is " + findSession(uploadId).getStatus());
+        }
+
+        Path stagingFile = stagingFile(uploadId);
+        try {
+            long receivedParts = uploadPartRepository.countByUploadId(uploadId);
+            if (receivedParts != session.getPartCount()) {
+                throw new InvalidUploadException("Upload " + uploadId + " has " + receivedParts + " of "
+                        + session.getPartCount() + " parts");
+            }
+
+            FileStorageServiceImpl.StagedContent staged = new FileStorageServiceImpl.StagedContent(
+                    stagingFile, digestOf(stagingFile), session.getTotalSize());
+            FileUploadResponseDTO response = fileStorageService.commitStaged(staged, session.getOriginalFilename(),
+                    session.getContentType(), session.getUserId(), fileId -> {
+                        uploadSessionRepository.markCompleted(uploadId, fileId, UploadStatus.COMPLETED);
+                        uploadPartRepository.deleteByUploadId(uploadId);
+                    });
+            log.info("Completed upload {} as fileId {}", uploadId, response.getFileId());
+            return response;
+        } catch (IOException | RuntimeException ex) {
+            // The staged file is consumed once it has been handed to the blob store, after that a retry is impossible
+            UploadStatus next = Files.exists(stagingFile) ? UploadStatus.IN_PROGRESS : UploadStatus.ABORTED;
+            transition(uploadId, UploadStatus.COMPLETING, next);
+            if (ex instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            log.error("Could not complete upload {}", uploadId, ex);
+            throw new FileStorageException("Could not complete upload " + uploadId, ex);
+        }
+    }
+
+    public void abort(String uploadId) {
+        findSession(uploadId);
+        if (!transition(uploadId, UploadStatus.IN_PROGRESS, UploadStatus.ABORTED)) {
+            throw new InvalidUploadException("Upload " + uploadId + " is " + findSession(uploadId).getStatus());
+        }
+        discard(uploadId);
+        log.info("Aborted upload {}", uploadId);
+    }
+
+    @Scheduled(fixedDelayString = "${file.upload-session-cleanup-interval-ms:3600000}")
+    public void expireStaleSessions() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(storageProperties.getUploadSessionTtl());
+        for (UploadSession session : uploadSessionRepository.findByStatusAndCreatedAtBefore(UploadStatus.IN_PROGRESS, cutoff)) {
+            if (transition(session.getUploadId(), UploadStatus.IN_PROGRESS, UploadStatus.EXPIRED)) {
+                discard(session.getUploadId());
+                log.info("Expired upload {} started at {}", session.getUploadId(), session.getCreatedAt());
+            }
+        }
+    }
+
+    private void writePart(String uploadId, int partNumber, long offset, long expectedLength, InputStream content) {
+        try (FileChannel channel = FileChannel.open(stagingFile(uploadId), StandardOpenOption.WRITE)) {
+            ReadableByteChannel source = Channels.newChannel(content);
+            long written = 0;
+            while (written < expectedLength) {
+                long transferred = channel.transferFrom(source, offset + written, expectedLength - written);
+                if (transferred <= 0) {
+                    break;
+                }
+                written += transferred;
+            }
+            if (written != expectedLength || content.read() != -1) {
+                throw new InvalidUploadException("Part " + partNumber + " must be exactly " + expectedLength + " bytes");
+            }
+        } catch (IOException ex) {
+            log.error("Could not write part {} of upload {}", partNumber, uploadId, ex);
+            throw new FileStorageException("Could not write part " + partNumber + " of upload " + uploadId, ex);
+        }
+    }
+
+    private UploadSession findSession(String uploadId) {
+        return uploadSessionRepository.findByUploadId(uploadId)
+                .orElseThrow(() -> new FileNotFoundException("Upload not found with id " + uploadId));
+    }
+
+    private boolean transition(String uploadId, UploadStatus from, UploadStatus to) {
+        Integer updated = transactionTemplate.execute(status -> uploadSessionRepository.transition(uploadId, from, to));
+        return updated != null && updated == 1;
+    }
+
+    private void discard(String uploadId) {
+        transactionTemplate.executeWithoutResult(status -> uploadPartRepository.deleteByUploadId(uploadId));
+        try {
+            Files.deleteIfExists(stagingFile(uploadId));
+        } catch (IOException ex) {
+            log.warn("Could not delete staging file of upload {}: {}", uploadId, ex.getMessage());
+        }
+    }
+
+    private Path stagingFile(String uploadId) {
+        return fileStorageService.stagingPath(uploadId + ".upload");
+    }
+
+    private static String digestOf(Path file) throws IOException {
+        MessageDigest digest = FileStorageServiceImpl.newDigest();
+        ByteBuffer buffer = ByteBuffer.allocateDirect(DIGEST_BUFFER_SIZE);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            while (channel.read(buffer) != -1) {
+                buffer.flip();
+                digest.update(buffer);
+                buffer.clear();
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private UploadSessionDTO toDto(UploadSession session) {
+        return new UploadSessionDTO(
+                session.getUploadId(),
+                session.getOriginalFilename(),
+                session.getTotalSize(),
+                session.getPartSize(),
+                session.getPartCount(),
+                session.getStatus(),
+                uploadPartRepository.findPartNumbers(session.getUploadId()),
+                session.getFileId()
+        );
+    }
+}
@@ -1,54 +1,73 @@
 package com.example.storage.service;
 
+import com.example.storage.blob.BlobStore;
+import com.example.storage.config.StorageMode;
 import com.example.storage.config.StorageProperties;
 import com.example.storage.dto.FileUploadResponseDTO;
+import com.example.storage.dto.StoredFile;
 import com.example.storage.dto.event.FileUploadedEvent;
 import com.example.storage.entity.FileMetadata;
 import com.example.storage.exception.FileNotFoundException;
 import com.example.storage.exception.FileStorageException;
+import com.example.storage.exception.FileTooLargeException;
 import com.example.storage.repository.FileMetadataRepository;
+import com.example.storage.repository.StoredBlobRepository;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
 import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.core.io.Resource;
-import org.springframework.core.io.UrlResource;
-import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.util.StringUtils;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.net.MalformedURLException;
+import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
 import java.util.Objects;
 import java.util.UUID;
+import java.util.function.Consumer;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class FileStorageServiceImpl {
 
+    private static final String DIGEST_ALGORITHM = "SHA-256";
+    private static final String STAGING_DIR = ".staging";
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
     private final FileMetadataRepository fileMetadataRepository;
-    private final KafkaTemplate<String, FileUploadedEvent> kafkaTemplate;
+    private final StoredBlobRepository storedBlobRepository;
+    private final OutboxService outboxService;
     private final StorageProperties storageProperties;
+    private final BlobStore blobStore;
+    private final TransactionTemplate transactionTemplate;
+    private final ObservationRegistry observationRegistry;
 
     @Value("${kafka.topic.files.uploaded}")
     private String filesUploadedTopic;
 
     private Path fileStorageLocation;
+    private Path stagingLocation;
 
     @PostConstruct
     public void init() {
         this.fileStorageLocation = Paths.get(storageProperties.getUploadDir()).toAbsolutePath().normalize();
+        this.stagingLocation = fileStorageLocation.resolve(STAGING_DIR);
         try {
-            Files.createDirectories(this.fileStorageLocation);
+            Files.createDirectories(this.stagingLocation);
             log.info("Created storage directory: {}", this.fileStorageLocation);
         } catch (Exception ex) {
             log.error("Could not create the directory where the uploaded files will be stored.", ex);
@@ -56,88 +75,189 @@ public class FileStorageServiceImpl {
         }
     }
 
-    @Transactional
     public FileUploadResponseDTO storeFile(MultipartFile file, String userId) {
-        String originalFilename = StringUtils.cleanPath(Objects.requireNonNull(file.getOriginalFilename()));
-        String fileId = UUID.randomUUID().toString();
+        try (InputStream inputStream = file.getInputStream()) {
+            return store(inputStream, file.getOriginalFilename(), file.getContentType(), userId);
+        } catch (IOException ex) {
+            log.error("Could not read uploaded file {}", file.getOriginalFilename(), ex);
+            throw new FileStorageException("Could not store file " + file.getOriginalFilename() + ". Please try again!", ex);
+        }
+    }
 
-        String storedFilename = fileId + "_" + originalFilename;
+    /**
+     * Stores a raw request body. Unlike a multipart upload it is not spooled by the servlet container first, so
+     * the content is written to disk exactly once. A declared length over the limit is rejected before reading.
+     *
+     * @param declaredSize the request's Content-Length, or -1 if unknown
+     */
+    public FileUploadResponseDTO storeStream(InputStream content, String originalFilename, String contentType,
+                                             long declaredSize, String userId) {
+        long maxSize = storageProperties.getMaxUploadSize().toBytes();
+        if (declaredSize > maxSize) {
+            log.warn("Rejected upload of {} with declared size {} bytes", originalFilename, declaredSize);
+            throw new FileTooLargeException("File " + originalFilename + " exceeds the maximum size of " + maxSize + " bytes");
+        }
+        return store(content, originalFilename, contentType, userId);
+    }
 
+    /**
+     * The content is staged and put into the blob store before the transaction starts, so a slow upload
+     * does not hold a database connection.
+     */
+    private FileUploadResponseDTO store(InputStream content, String filename, String contentType, String userId) {
+        String originalFilename = cleanFilename(filename);
         try {
-            if (originalFilename.contains("..")) {
-                log.warn("Filename contains invalid path sequence: {}", originalFilename);
-                throw new FileStorageException("Sorry! Filename contains invalid path sequence " + originalFilename);
-            }
-
-            Path targetLocation = this.fileStorageLocation.resolve(storedFilename);
-            try (InputStream inputStream = file.getInputStream()) {
-                Files.copy(inputStream, targetLocation, StandardCopyOption.REPLACE_EXISTING);
-                log.info("Stored file {} to {}", originalFilename, targetLocation);
-            }
-
-            FileMetadata metadata = new FileMetadata(
-                    fileId,
-                    originalFilename,
-                    file.getContentType(),
-                    file.getSize(),
-                    targetLocation.toString(),
-                    userId
-            );
-            fileMetadataRepository.save(metadata);
-            log.info("Saved metadata for fileId: {}", fileId);
-
-            FileUploadedEvent event = new FileUploadedEvent(
-                    fileId,
-                    originalFilename,
-                    file.getContentType(),
-                    file.getSize(),
-                    targetLocation.toString(),
-                    userId
-            );
-            kafkaTemplate.send(filesUploadedTopic, fileId, event); // fileId как ключ сообщения
-            log.info("Sent FileUploadedEvent to Kafka topic {} for fileId: {}", filesUploadedTopic, fileId);
-
-            String fileDownloadUri = ServletUriComponentsBuilder.fromCurrentContextPath()
-                    .path("/api/v1/files/")
-                    .path(fileId)
-                    .toUriString();
-
-            return new FileUploadResponseDTO(
-                    fileId,
-                    originalFilename,
-                    file.getContentType(),
-                    file.getSize(),
-                    "File uploaded successfully",
-                    fileDownloadUri
-            );
-
+            StagedContent staged = Observation.createNotStarted("storage.stage", observationRegistry)
+                    .contextualName("stage upload")
+                    .observeChecked(() -> stageContent(content, originalFilename));
+            return commitStaged(staged, originalFilename, contentType, userId, fileId -> {
+            });
         } catch (IOException ex) {
             log.error("Could not store file {}. Please try again!", originalFilename, ex);
             throw new FileStorageException("Could not store file " + originalFilename + ". Please try again!", ex);
         }
     }
 
-    @Transactional(readOnly = true)
-    public Resource loadFileAsResource(String fileId) {
+    /**
+     * Moves fully staged content into the blob store, then records the file and publishes its
+     * {@link FileUploadedEvent} in one transaction. The staged file is gone afterwards either way.
+     *
+     * @param inTransaction additional work done with the new file id in the same transaction as the metadata
+     */
+    FileUploadResponseDTO commitStaged(StagedContent staged, String originalFilename, String contentType, String userId,
+                                       Consumer<String> inTransaction) throws IOException {
+        String fileId = UUID.randomUUID().toString();
+        boolean contentAddressed = storageProperties.getStorageMode() == StorageMode.CONTENT_ADDRESSED;
+
+        String targetLocation;
         try {
-            FileMetadata metadata = fileMetadataRepository.findByFileId(fileId)
-                    .orElseThrow(() -> {
-                        log.warn("File not found with fileId: {}", fileId);
-                        return new FileNotFoundException("File not found with id " + fileId);
-                    });
-
-            Path filePath = Paths.get(metadata.getStoragePath());
-            Resource resource = new UrlResource(filePath.toUri());
-
-            if (resource.exists() && resource.isReadable()) {
-                return resource;
-            } else {
-                log.error("Could not read file from path: {}", filePath);
-                throw new FileStorageException("Could not read file: " + metadata.getOriginalFilename());
+            String key = contentAddressed
+                    ? staged.digest()
+                    : fileId + "_" + StringUtils.getFilename(originalFilename);
+            targetLocation = Observation.createNotStarted("storage.blob.put", observationRegistry)
+                    .contextualName("put blob")
+                    .lowCardinalityKeyValue("storage.mode", storageProperties.getStorageMode().name())
+                    .observeChecked(() -> blobStore.put(key, staged.path()));
+        } finally {
+            Files.deleteIfExists(staged.path());
+        }
+        log.info("Stored file {} to {}", originalFilename, targetLocation);
+
+        Observation.createNotStarted("storage.metadata.commit", observationRegistry)
+                .contextualName("commit metadata")
+                .observe(() -> transactionTemplate.executeWithoutResult(status -> {
+                    if (contentAddressed) {
+                        // A blob left behind by a rolled back upload is simply reused by the next upload of that content
+                        storedBlobRepository.addReference(staged.digest(), targetLocation, staged.size());
+                    }
+
+                    FileMetadata metadata = new FileMetadata(
+                            fileId,
+                            originalFilename,
+                            contentType,
+                            staged.size(),
+                            targetLocation,
+                            userId,
+                            staged.digest()
+                    );
+                    fileMetadataRepository.save(metadata);
+                    log.info("Saved metadata for fileId: {}", fileId);
+
+                    inTransaction.accept(fileId);
+
+                    FileUploadedEvent event = new FileUploadedEvent(
+                            fileId,
+                            originalFilename,
+                            contentType,
+                            staged.size(),
+                            targetLocation,
+                            userId,
+                            staged.digest()
+                    );
+                    outboxService.enqueue(filesUploadedTopic, fileId, event); // fileId как ключ сообщения
+                    log.info("Enqueued FileUploadedEvent for Kafka topic {} for fileId: {}", filesUploadedTopic, fileId);
+                }));
+
+        String fileDownloadUri = ServletUriComponentsBuilder.fromCurrentContextPath()
+                .path("/api/v1/files/")
+                .path(fileId)
+                .toUriString();
+
+        return new FileUploadResponseDTO(
+                fileId,
+                originalFilename,
+                contentType,
+                staged.size(),
+                "File uploaded successfully",
+                fileDownloadUri
+        );
+    }
+
+    String cleanFilename(String filename) {
+        String originalFilename = StringUtils.cleanPath(Objects.requireNonNull(filename));
+        if (originalFilename.contains("..")) {
+            log.warn("Filename contains invalid path sequence: {}", originalFilename);
+            throw new FileStorageException("Sorry! Filename contains invalid path sequence " + originalFilename);
+        }
+        return originalFilename;
+    }
+
+    Path stagingPath(String name) {
+        return stagingLocation.resolve(name);
+    }
+
+    /**
+     * Copies the content into the staging directory, hashing and counting it on the way, so it is read only once.
+     * The staging directory is on the same file system as the blobs, so storing it afterwards is a rename.
+     */
+    private StagedContent stageContent(InputStream content, String originalFilename) throws IOException {
+        MessageDigest digest = newDigest();
+        long maxSize = storageProperties.getMaxUploadSize().toBytes();
+        Path stagedPath = Files.createTempFile(stagingLocation, "upload-", ".tmp");
+        long size = 0;
+        try (InputStream inputStream = new DigestInputStream(content, digest);
+             OutputStream outputStream = Files.newOutputStream(stagedPath)) {
+            byte[] buffer = new byte[COPY_BUFFER_SIZE];
+            int read;
+            while ((read = inputStream.read(buffer)) != -1) {
+                size += read;
+                if (size > maxSize) {
+                    log.warn("Aborted upload of {} after exceeding {} bytes", originalFilename, maxSize);
+                    throw new FileTooLargeException("File " + originalFilename + " exceeds the maximum size of " + maxSize + " bytes");
+                }
+                outputStream.write(buffer, 0, read);
             }
-        } catch (MalformedURLException ex) {
-            log.error("Malformed URL for fileId: {}", fileId, ex);
-            throw new FileNotFoundException("File not found with id (malformed URL) " + fileId, ex);
+        } catch (IOException | RuntimeException ex) {
+            Files.deleteIfExists(stagedPath);
+            throw ex;
+        }
+        return new StagedContent(stagedPath, HexFormat.of().formatHex(digest.digest()), size);
+    }
+
+    static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance(DIGEST_ALGORITHM);
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(DIGEST_ALGORITHM + " is not supported", ex);
+        }
+    }
+
+    record StagedContent(Path path, String digest, long size) {
+    }
+
+    @Transactional(readOnly = true)
+    public StoredFile loadFile(String fileId) {
+        FileMetadata metadata = fileMetadataRepository.findByFileId(fileId)
+                .orElseThrow(() -> {
+                    log.warn("File not found with fileId: {}", fileId);
+                    return new FileNotFoundException("File not found with id " + fileId);
+                });
+
+        try {
+            return new StoredFile(metadata, blobStore.load(metadata.getStoragePath()));
+        } catch (IOException ex) {
+            log.error("Could not read file from location: {}", metadata.getStoragePath(), ex);
+            throw new FileStorageException("Could not read file: " + metadata.getOriginalFilename(), ex);
         }
     }
 
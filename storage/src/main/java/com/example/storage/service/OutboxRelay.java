@@ -0,0 +1,189 @@
+package com.example.storage.service;
+
+import com.example.storage.dto.event.FileUploadedEvent;
+import com.example.storage.entity.OutboxEvent;
+import com.example.storage.repository.OutboxEventRepository;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.tracing.Span;
+import io.micrometer.tracing.Tracer;
+import io.micrometer.tracing.propagation.Propagator;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Sends outbox events to Kafka in batches. A batch is claimed with a lease in one short transaction, sent without
+ * waiting between records and awaited as a whole outside of any transaction, and then deleted in a second short
+ * transaction, so no row locks or connections are held while waiting for the broker. Events that could not be
+ * sent are released for the next drain; events of a relay that died are picked up again once their lease expires.
+ * An event is removed only after the broker acknowledged it, so it is sent at least once; the idempotent producer
+ * removes duplicates caused by its own retries, and consumers already skip files they have processed.
+ * <p>
+ * Every send runs in a span that continues the trace of the request that enqueued the event, so a trace covers
+ * the upload, the wait in the outbox and the analysis.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class OutboxRelay {
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final KafkaTemplate<String, FileUploadedEvent> kafkaTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final Tracer tracer;
+    private final Propagator propagator;
+    private final ExecutorService drainExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "outbox-relay");
+        thread.setDaemon(true);
+        return thread;
+    });
+    // Coalesces wake-ups: at most one drain is queued while another one runs
+    private final AtomicBoolean drainRequested = new AtomicBoolean();
+
+    @Value("${kafka.outbox.batch-size:500}")
+    private int batchSize;
+
+    @Value("${kafka.outbox.send-timeout-ms:30000}")
+    private long sendTimeoutMs;
+
+    // Must exceed send-timeout-ms, otherwise another relay may send a batch that is still being awaited
+    @Value("${kafka.outbox.lease-ms:60000}")
+    private long leaseMs;
+
+    public void requestDrain() {
+        if (drainRequested.compareAndSet(false, true)) {
+            drainExecutor.execute(() -> {
+                drainRequested.set(false);
+                drain();
+            });
+        }
+    }
+
+    /**
+     * Picks up events whose wake-up was lost, e.g. after a restart or a failed send.
+     */
+    @Scheduled(fixedDelayString = "${kafka.outbox.poll-interval-ms:1000}")
+    public void poll() {
+        requestDrain();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        drainExecutor.shutdown();
+    }
+
+    private void drain() {
+        try {
+            int sent;
+            do {
+                sent = relayBatch();
+            } while (sent == batchSize);
+        } catch (RuntimeException ex) {
+            log.error("Could not relay outbox events: {}", ex.getMessage(), ex);
+        }
+    }
+
+    /**
+     * @return the size of the batch if all of it was sent, otherwise 0
+     */
+    private int relayBatch() {
+        List<OutboxEvent> batch = transactionTemplate.execute(status -> claimNextBatch());
+        if (batch == null || batch.isEmpty()) {
+            return 0;
+        }
+
+        List<CompletableFuture<SendResult<String, FileUploadedEvent>>> futures = new ArrayList<>(batch.size());
+        for (OutboxEvent event : batch) {
+            futures.add(send(event));
+        }
+
+        // One deadline for the whole batch keeps the wait within the lease
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(sendTimeoutMs);
+        List<Long> sentIds = new ArrayList<>(batch.size());
+        List<Long> failedIds = new ArrayList<>();
+        for (int i = 0; i < batch.size(); i++) {
+            OutboxEvent event = batch.get(i);
+            try {
+                futures.get(i).get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                sentIds.add(event.getId());
+            } catch (ExecutionException | TimeoutException ex) {
+                log.warn("Could not send outbox event {} to topic {}, will retry: {}",
+                        event.getId(), event.getTopic(), ex.getMessage());
+                failedIds.add(event.getId());
+            } catch (InterruptedException ex) {
+                // Events not awaited yet stay claimed until their lease expires
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+
+        transactionTemplate.executeWithoutResult(status -> {
+            outboxEventRepository.deleteAllByIdInBatch(sentIds);
+            if (!failedIds.isEmpty()) {
+                outboxEventRepository.release(failedIds);
+            }
+        });
+        log.debug("Relayed {} of {} outbox events", sentIds.size(), batch.size());
+        return sentIds.size() == batch.size() ? batch.size() : 0;
+    }
+
+    private List<OutboxEvent> claimNextBatch() {
+        List<OutboxEvent> batch = outboxEventRepository.lockNextBatch(batchSize);
+        if (!batch.isEmpty()) {
+            outboxEventRepository.claim(batch.stream().map(OutboxEvent::getId).toList(), leaseMs / 1000.0);
+        }
+        return batch;
+    }
+
+    private CompletableFuture<SendResult<String, FileUploadedEvent>> send(OutboxEvent event) {
+        Span span = relaySpan(event);
+        try (Tracer.SpanInScope scope = tracer.withSpan(span)) {
+            FileUploadedEvent payload = objectMapper.readValue(event.getPayload(), FileUploadedEvent.class);
+            return kafkaTemplate.send(event.getTopic(), event.getMessageKey(), payload);
+        } catch (Exception ex) {
+            span.error(ex);
+            return CompletableFuture.failedFuture(ex);
+        } finally {
+            span.end();
+        }
+    }
+
+    private Span relaySpan(OutboxEvent event) {
+        Span.Builder builder = null;
+        if (event.getTraceHeaders() != null) {
+            try {
+                Map<String, String> headers = objectMapper.readValue(event.getTraceHeaders(), new TypeReference<>() {
+                });
+                builder = propagator.extract(headers, Map::get);
+            } catch (Exception ex) {
+                log.debug("Ignoring unreadable trace headers of outbox event {}: {}", event.getId(), ex.getMessage());
+            }
+        }
+        if (builder == null) {
+            builder = tracer.spanBuilder().setNoParent();
+        }
+        return builder.name("outbox relay")
+                .tag("messaging.destination.name", event.getTopic())
+                .tag("outbox.event.id", String.valueOf(event.getId()))
+                .start();
+    }
+}
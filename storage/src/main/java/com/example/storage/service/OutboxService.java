@@ -0,0 +1,66 @@
+package com.example.storage.service;
+
+import com.example.storage.entity.OutboxEvent;
+import com.example.storage.repository.OutboxEventRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.tracing.TraceContext;
+import io.micrometer.tracing.Tracer;
+import io.micrometer.tracing.propagation.Propagator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class OutboxService {
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final OutboxRelay outboxRelay;
+    private final ObjectMapper objectMapper;
+    private final Tracer tracer;
+    private final Propagator propagator;
+
+    /**
+     * Records an event to be sent once the surrounding transaction commits; nothing is sent if it rolls back.
+     * The relay is woken up right after the commit, so the polling interval only matters for retries.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueue(String topic, String key, Object event) {
+        String payload;
+        String traceHeaders;
+        try {
+            payload = objectMapper.writeValueAsString(event);
+            traceHeaders = currentTraceHeaders();
+        } catch (JsonProcessingException ex) {
+            throw new IllegalArgumentException("Could not serialize " + event.getClass().getSimpleName(), ex);
+        }
+        outboxEventRepository.save(new OutboxEvent(topic, key, payload, traceHeaders));
+        log.debug("Enqueued {} for topic {} with key {}", event.getClass().getSimpleName(), topic, key);
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                outboxRelay.requestDrain();
+            }
+        });
+    }
+
+    private String currentTraceHeaders() throws JsonProcessingException {
+        TraceContext context = tracer.currentTraceContext().context();
+        if (context == null) {
+            return null;
+        }
+        Map<String, String> headers = new HashMap<>();
+        propagator.inject(context, headers, Map::put);
+        return headers.isEmpty() ? null : objectMapper.writeValueAsString(headers);
+    }
+}
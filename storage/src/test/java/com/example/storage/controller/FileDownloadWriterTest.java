@@ -0,0 +1,211 @@
+package com.example.storage.controller;
+
+import com.example.storage.dto.StoredFile;
+import com.example.storage.entity.FileMetadata;
+import com.example.storage.service.FileStorageServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.head;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class FileDownloadWriterTest {
+
+    private static final String FILE_ID = "file-1";
+    private static final String CONTENT = "0123456789abcdefghijklmnopqrstuvwxyz";
+    private static final String DIGEST = "d1g3st";
+    private static final String ETAG = "\"" + DIGEST + "\"";
+
+    private FileStorageServiceImpl fileStorageService;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        fileStorageService = mock(FileStorageServiceImpl.class);
+        mockMvc = MockMvcBuilders
+                .standaloneSetup(new FileController(fileStorageService, new FileDownloadWriter()))
+                .build();
+        serve(new ByteArrayResource(CONTENT.getBytes(StandardCharsets.US_ASCII)));
+    }
+
+    @Test
+    void sendsWholeFileWithoutRange() throws Exception {
+        mockMvc.perform(get("/api/v1/files/{fileId}", FILE_ID))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ACCEPT_RANGES, "bytes"))
+                .andExpect(header().string(HttpHeaders.ETAG, ETAG))
+                .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, CONTENT.length()))
+                .andExpect(content().string(CONTENT));
+    }
+
+    @Test
+    void answersMatchingETagWithNotModified() throws Exception {
+        mockMvc.perform(get("/api/v1/files/{fileId}", FILE_ID).header(HttpHeaders.IF_NONE_MATCH, ETAG))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    void sendsClosedRange() throws Exception {
+        mockMvc.perform(get("/api/v1/files/{fileId}", FILE_ID).header(HttpHeaders.RANGE, "bytes=2-5"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 2-5/36"))
+                .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, 4))
+                .andExpect(content().string("2345"));
+    }
+
+    @Test
+    void sendsOpenEndedRange() throws Exception {
+        mockMvc.perform(get("/api/v1/files/{fileId}", FILE_ID).header(HttpHeaders.RANGE, "bytes=30-"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 30-35/36"))
+                .andExpect(content().string("uvwxyz"));
+    }
+
+    @Test
+    void sendsSuffixRange() throws Exception {
+        mockMvc.perform(get("/api/v1/files/{fileId}", FILE_ID).header(HttpHeaders.RANGE, "bytes=-3"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 33-35/36"))
+                .andExpect(content().string("xyz"));
+    }
+
+    @Test
+    void clampsRangeEndToFileLength() throws Exception {
+        mockMvc.perform(get("/api/v1/files/{fileId}", FILE_ID).header(HttpHeaders.RANGE, "bytes=34-1000"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 34-35/36"))
+                .andExpect(content().string("yz"));
+    }
+
+    @Test
+    void rejectsRangeBeyondEndOfFile() throws Exception {
+        mockMvc.perform(get("/api/v1/files/{fileId}", FILE_ID).header(HttpHeaders.RANGE, "bytes=36-40"))
+                .andExpect(status().isRequestedRangeNotSatisfiable())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes */36"))
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    void rejectsMalformedRange() throws Exception {
+        mockMvc.perform(get("/api/v1/files/{fileId}", FILE_ID).header(HttpHeaders.RANGE, "bytes=5-2"))
+                .andExpect(status().isRequestedRangeNotSatisfiable())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes */36"));
+    }
+
+    @Test
+    void rejectsMultipleRangesLargerThanFile() throws Exception {
+        mockMvc.perform(get("/api/v1/files/{fileId}", FILE_ID).header(HttpHeaders.RANGE, "bytes=0-30,1-30"))
+                .andExpect(status().isRequestedRangeNotSatisfiable());
+    }
+
+    @Test
+    void sendsMultipleRangesAsMultipart() throws Exception {
+        MockHttpServletResponse response = mockMvc.perform(get("/api/v1/files/{fileId}", FILE_ID)
+                        .header(HttpHeaders.RANGE, "bytes=0-1,-2"))
+                .andExpect(status().isPartialContent())
+                .andReturn().getResponse();
+
+        String contentType = response.getContentType();
+        assertThat(contentType).startsWith("multipart/byteranges; boundary=");
+        String boundary = contentType.substring(contentType.indexOf("boundary=") + "boundary=".length());
+        assertThat(response.getContentAsString()).isEqualTo(
+                "\r\n--" + boundary + "\r\n" +
+                "Content-Type: application/octet-stream\r\n" +
+                "Content-Range: bytes 0-1/36\r\n\r\n" +
+                "01" +
+                "\r\n--" + boundary + "\r\n" +
+                "Content-Type: application/octet-stream\r\n" +
+                "Content-Range: bytes 34-35/36\r\n\r\n" +
+                "yz" +
+                "\r\n--" + boundary + "--\r\n");
+    }
+
+    @Test
+    void mergesOverlappingRangesIntoSinglePart() throws Exception {
+        mockMvc.perform(get("/api/v1/files/{fileId}", FILE_ID).header(HttpHeaders.RANGE, "bytes=4-6,0-2,3-4"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 0-6/36"))
+                .andExpect(content().string("0123456"));
+    }
+
+    @Test
+    void honoursRangeWhenIfRangeMatches() throws Exception {
+        mockMvc.perform(get("/api/v1/files/{fileId}", FILE_ID)
+                        .header(HttpHeaders.RANGE, "bytes=0-3")
+                        .header(HttpHeaders.IF_RANGE, ETAG))
+                .andExpect(status().isPartialContent())
+                .andExpect(content().string("0123"));
+    }
+
+    @Test
+    void sendsWholeFileWhenIfRangeIsStale() throws Exception {
+        mockMvc.perform(get("/api/v1/files/{fileId}", FILE_ID)
+                        .header(HttpHeaders.RANGE, "bytes=0-3")
+                        .header(HttpHeaders.IF_RANGE, "\"other\""))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_RANGE))
+                .andExpect(content().string(CONTENT));
+    }
+
+    @Test
+    void headSendsHeadersOnly() throws Exception {
+        mockMvc.perform(head("/api/v1/files/{fileId}", FILE_ID).header(HttpHeaders.RANGE, "bytes=2-5"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 2-5/36"))
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    void sendsRangeOfFileSystemBlob(@TempDir Path dir) throws Exception {
+        Path file = Files.writeString(dir.resolve("blob"), CONTENT, StandardCharsets.US_ASCII);
+        serve(new FileSystemResource(file));
+
+        mockMvc.perform(get("/api/v1/files/{fileId}", FILE_ID).header(HttpHeaders.RANGE, "bytes=10-12"))
+                .andExpect(status().isPartialContent())
+                .andExpect(content().string("abc"));
+    }
+
+    @Test
+    void resolveRangesMergesAdjacentRanges() {
+        List<FileDownloadWriter.ByteRange> ranges =
+                FileDownloadWriter.resolveRanges(HttpRange.parseRanges("bytes=5-9,0-4,20-"), 36);
+
+        assertThat(ranges).containsExactly(
+                new FileDownloadWriter.ByteRange(0, 9),
+                new FileDownloadWriter.ByteRange(20, 35));
+    }
+
+    @Test
+    void resolveRangesRejectsRangeOfEmptyFile() {
+        assertThatIllegalArgumentException()
+                .isThrownBy(() -> FileDownloadWriter.resolveRanges(HttpRange.parseRanges("bytes=0-"), 0));
+    }
+
+    private void serve(Resource resource) {
+        FileMetadata metadata = new FileMetadata(FILE_ID, "data.bin", "application/octet-stream",
+                CONTENT.length(), "blobs/" + FILE_ID, null, DIGEST);
+        when(fileStorageService.loadFile(FILE_ID)).thenReturn(new StoredFile(metadata, resource));
+    }
+}
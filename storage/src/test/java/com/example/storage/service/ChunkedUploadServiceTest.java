@@ -0,0 +1,434 @@
+package com.example.storage.service;
+
+import com.example.storage.config.StorageProperties;
+import com.example.storage.dto.FileUploadResponseDTO;
+import com.example.storage.dto.UploadSessionDTO;
+import com.example.storage.entity.UploadSession;
+import com.example.storage.entity.UploadStatus;
+import com.example.storage.exception.InvalidUploadException;
+import com.example.storage.repository.UploadPartRepository;
+import com.example.storage.repository.UploadSessionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Runs {@link ChunkedUploadService} against in-memory repositories and a real staging directory; the blob store
+ * side of {@link FileStorageServiceImpl} is replaced by capturing the staged content.
+ */
+class ChunkedUploadServiceTest {
+
+    private static final int PART_SIZE = 64 * 1024;
+
+    @TempDir
+    Path stagingDir;
+
+    private final Map<String, UploadSession> sessions = new ConcurrentHashMap<>();
+    private final Map<String, Set<Integer>> parts = new ConcurrentHashMap<>();
+    private final Map<String, byte[]> committed = new ConcurrentHashMap<>();
+    private final Map<String, String> committedDigests = new ConcurrentHashMap<>();
+    private final Map<String, ReadWriteLock> rowLocks = new ConcurrentHashMap<>();
+    private final RowLockingTransactionManager transactionManager = new RowLockingTransactionManager();
+
+    private FileStorageServiceImpl fileStorageService;
+    private ChunkedUploadService service;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        UploadSessionRepository sessionRepository = mock(UploadSessionRepository.class);
+        when(sessionRepository.save(any(UploadSession.class))).thenAnswer(call -> {
+            UploadSession session = call.getArgument(0);
+            sessions.put(session.getUploadId(), session);
+            return session;
+        });
+        when(sessionRepository.findByUploadId(anyString()))
+                .thenAnswer(call -> Optional.ofNullable(sessions.get(call.<String>getArgument(0))));
+        when(sessionRepository.findByUploadIdForShare(anyString())).thenAnswer(call -> {
+            transactionManager.hold(rowLock(call.getArgument(0)).readLock());
+            return Optional.ofNullable(sessions.get(call.<String>getArgument(0)));
+        });
+        when(sessionRepository.transition(anyString(), any(), any())).thenAnswer(call -> {
+            transactionManager.hold(rowLock(call.getArgument(0)).writeLock());
+            UploadSession session = sessions.get(call.<String>getArgument(0));
+            if (session == null || session.getStatus() != call.getArgument(1)) {
+                return 0;
+            }
+            session.setStatus(call.getArgument(2));
+            return 1;
+        });
+        when(sessionRepository.markCompleted(anyString(), anyString(), any())).thenAnswer(call -> {
+            UploadSession session = sessions.get(call.<String>getArgument(0));
+            session.setFileId(call.getArgument(1));
+            session.setStatus(call.getArgument(2));
+            return 1;
+        });
+
+        UploadPartRepository partRepository = mock(UploadPartRepository.class);
+        when(partRepository.recordPart(anyString(), anyInt(), anyLong())).thenAnswer(call ->
+                partsOf(call.getArgument(0)).add(call.getArgument(1)) ? 1 : 0);
+        when(partRepository.countByUploadId(anyString()))
+                .thenAnswer(call -> (long) partsOf(call.getArgument(0)).size());
+        when(partRepository.findPartNumbers(anyString()))
+                .thenAnswer(call -> new ArrayList<>(partsOf(call.getArgument(0))));
+        when(partRepository.deleteByUploadId(anyString())).thenAnswer(call -> {
+            Set<Integer> removed = parts.remove(call.<String>getArgument(0));
+            return removed != null ? removed.size() : 0;
+        });
+
+        fileStorageService = mock(FileStorageServiceImpl.class);
+        when(fileStorageService.cleanFilename(anyString())).thenAnswer(call -> call.getArgument(0));
+        when(fileStorageService.stagingPath(anyString()))
+                .thenAnswer(call -> stagingDir.resolve(call.<String>getArgument(0)));
+        when(fileStorageService.commitStaged(any(), anyString(), any(), any(), any())).thenAnswer(call -> {
+            FileStorageServiceImpl.StagedContent staged = call.getArgument(0);
+            Consumer<String> inTransaction = call.getArgument(4);
+            String fileId = "file-" + (committed.size() + 1);
+            committed.put(fileId, Files.readAllBytes(staged.path()));
+            committedDigests.put(fileId, staged.digest());
+            assertThat(staged.size()).isEqualTo(committed.get(fileId).length);
+            Files.delete(staged.path());
+            inTransaction.accept(fileId);
+            return new FileUploadResponseDTO(fileId, call.getArgument(1), call.getArgument(2), staged.size(),
+                    "File uploaded successfully", "/api/v1/files/" + fileId);
+        });
+
+        StorageProperties storageProperties = new StorageProperties();
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        service = new ChunkedUploadService(sessionRepository, partRepository, fileStorageService,
+                storageProperties, transactionTemplate);
+    }
+
+    @Test
+    void assemblesPartsUploadedOutOfOrder() throws Exception {
+        byte[] content = randomContent(2 * PART_SIZE + 1000);
+        String uploadId = initiate(content.length);
+
+        uploadPart(uploadId, 3, content);
+        uploadPart(uploadId, 1, content);
+        UploadSessionDTO status = uploadPart(uploadId, 2, content);
+        assertThat(status.getUploadedParts()).containsExactly(1, 2, 3);
+
+        FileUploadResponseDTO response = service.complete(uploadId);
+
+        assertThat(committed.get(response.getFileId())).isEqualTo(content);
+        assertThat(committedDigests.get(response.getFileId())).isEqualTo(sha256(content));
+        assertThat(response.getSize()).isEqualTo(content.length);
+        assertThat(sessions.get(uploadId).getStatus()).isEqualTo(UploadStatus.COMPLETED);
+        assertThat(sessions.get(uploadId).getFileId()).isEqualTo(response.getFileId());
+        assertThat(parts).doesNotContainKey(uploadId);
+    }
+
+    @Test
+    void duplicatePartOverwritesEarlierBytes() throws Exception {
+        byte[] content = randomContent(2 * PART_SIZE);
+        String uploadId = initiate(content.length);
+
+        byte[] garbage = new byte[content.length];
+        Arrays.fill(garbage, (byte) 0x5A);
+        uploadPart(uploadId, 1, garbage);
+        uploadPart(uploadId, 2, content);
+        UploadSessionDTO status = uploadPart(uploadId, 1, content);
+        assertThat(status.getUploadedParts()).containsExactly(1, 2);
+
+        FileUploadResponseDTO response = service.complete(uploadId);
+
+        assertThat(committed.get(response.getFileId())).isEqualTo(content);
+        assertThat(committedDigests.get(response.getFileId())).isEqualTo(sha256(content));
+    }
+
+    @Test
+    void completionWithMissingPartKeepsUploadResumable() throws Exception {
+        byte[] content = randomContent(3 * PART_SIZE);
+        String uploadId = initiate(content.length);
+        uploadPart(uploadId, 1, content);
+        uploadPart(uploadId, 3, content);
+
+        assertThatThrownBy(() -> service.complete(uploadId))
+                .isInstanceOf(InvalidUploadException.class)
+                .hasMessageContaining("2 of 3 parts");
+        assertThat(sessions.get(uploadId).getStatus()).isEqualTo(UploadStatus.IN_PROGRESS);
+        verify(fileStorageService, never()).commitStaged(any(), anyString(), any(), any(), any());
+
+        uploadPart(uploadId, 2, content);
+        FileUploadResponseDTO response = service.complete(uploadId);
+
+        assertThat(committed.get(response.getFileId())).isEqualTo(content);
+    }
+
+    @Test
+    void rejectsPartOfWrongLength() throws Exception {
+        byte[] content = randomContent(PART_SIZE + 10);
+        String uploadId = initiate(content.length);
+
+        assertThatThrownBy(() -> service.uploadPart(uploadId, 2, new ByteArrayInputStream(new byte[10]), 11))
+                .isInstanceOf(InvalidUploadException.class);
+        assertThatThrownBy(() -> service.uploadPart(uploadId, 2, new ByteArrayInputStream(new byte[9]), -1))
+                .isInstanceOf(InvalidUploadException.class);
+        assertThatThrownBy(() -> service.uploadPart(uploadId, 2, new ByteArrayInputStream(new byte[11]), -1))
+                .isInstanceOf(InvalidUploadException.class);
+        assertThat(partsOf(uploadId)).isEmpty();
+    }
+
+    @Test
+    void rejectsPartNumberOutOfRange() throws Exception {
+        String uploadId = initiate(PART_SIZE);
+
+        assertThatThrownBy(() -> service.uploadPart(uploadId, 0, new ByteArrayInputStream(new byte[0]), -1))
+                .isInstanceOf(InvalidUploadException.class);
+        assertThatThrownBy(() -> service.uploadPart(uploadId, 2, new ByteArrayInputStream(new byte[0]), -1))
+                .isInstanceOf(InvalidUploadException.class);
+    }
+
+    @Test
+    void completedUploadCannotBeCompletedOrChangedAgain() throws Exception {
+        byte[] content = randomContent(PART_SIZE);
+        String uploadId = initiate(content.length);
+        uploadPart(uploadId, 1, content);
+        service.complete(uploadId);
+
+        assertThatThrownBy(() -> service.complete(uploadId))
+                .isInstanceOf(InvalidUploadException.class)
+                .hasMessageContaining("COMPLETED");
+        assertThatThrownBy(() -> uploadPart(uploadId, 1, content))
+                .isInstanceOf(InvalidUploadException.class);
+        assertThat(committed).hasSize(1);
+    }
+
+    @Test
+    void abortDiscardsStagedParts() throws Exception {
+        byte[] content = randomContent(PART_SIZE);
+        String uploadId = initiate(content.length);
+        uploadPart(uploadId, 1, content);
+
+        service.abort(uploadId);
+
+        assertThat(sessions.get(uploadId).getStatus()).isEqualTo(UploadStatus.ABORTED);
+        assertThat(parts).doesNotContainKey(uploadId);
+        try (var staged = Files.list(stagingDir)) {
+            assertThat(staged).isEmpty();
+        }
+        assertThatThrownBy(() -> service.complete(uploadId)).isInstanceOf(InvalidUploadException.class);
+    }
+
+    @Test
+    void completionWaitsForRunningPartWrite() throws Exception {
+        byte[] content = randomContent(2 * PART_SIZE);
+        String uploadId = initiate(content.length);
+        uploadPart(uploadId, 1, content);
+        BlockingInputStream part2 = new BlockingInputStream(Arrays.copyOfRange(content, PART_SIZE, 2 * PART_SIZE));
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<UploadSessionDTO> write = executor.submit(() -> service.uploadPart(uploadId, 2, part2, PART_SIZE));
+            assertThat(part2.started.await(5, TimeUnit.SECONDS)).isTrue();
+            Future<FileUploadResponseDTO> completion = executor.submit(() -> service.complete(uploadId));
+
+            Thread.sleep(200);
+            assertThat(completion).isNotDone();
+            assertThat(sessions.get(uploadId).getStatus()).isEqualTo(UploadStatus.IN_PROGRESS);
+
+            part2.release.countDown();
+            write.get(5, TimeUnit.SECONDS);
+            FileUploadResponseDTO response = completion.get(5, TimeUnit.SECONDS);
+
+            assertThat(committed.get(response.getFileId())).isEqualTo(content);
+            assertThat(committedDigests.get(response.getFileId())).isEqualTo(sha256(content));
+        } finally {
+            part2.release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void rejectsPartWhileCompleting() throws Exception {
+        byte[] content = randomContent(2 * PART_SIZE);
+        String uploadId = initiate(content.length);
+        uploadPart(uploadId, 1, content);
+        sessions.get(uploadId).setStatus(UploadStatus.COMPLETING);
+        byte[] staged = Files.readAllBytes(stagingDir.resolve(uploadId + ".upload"));
+
+        assertThatThrownBy(() -> uploadPart(uploadId, 2, content))
+                .isInstanceOf(InvalidUploadException.class)
+                .hasMessageContaining("COMPLETING");
+        assertThat(Files.readAllBytes(stagingDir.resolve(uploadId + ".upload"))).isEqualTo(staged);
+        assertThat(partsOf(uploadId)).containsExactly(1);
+    }
+
+    @Test
+    void abortWaitsForRunningPartWrite() throws Exception {
+        byte[] content = randomContent(PART_SIZE);
+        String uploadId = initiate(content.length);
+        BlockingInputStream part1 = new BlockingInputStream(content);
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<UploadSessionDTO> write = executor.submit(() -> service.uploadPart(uploadId, 1, part1, PART_SIZE));
+            assertThat(part1.started.await(5, TimeUnit.SECONDS)).isTrue();
+            Future<?> abort = executor.submit(() -> service.abort(uploadId));
+
+            Thread.sleep(200);
+            assertThat(abort).isNotDone();
+
+            part1.release.countDown();
+            write.get(5, TimeUnit.SECONDS);
+            abort.get(5, TimeUnit.SECONDS);
+
+            // The part row written before the abort is removed with the session's other parts
+            assertThat(parts).doesNotContainKey(uploadId);
+            assertThat(stagingDir.resolve(uploadId + ".upload")).doesNotExist();
+        } finally {
+            part1.release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void rejectsPartSizeBelowMinimum() {
+        assertThatThrownBy(() -> service.initiate("a.bin", null, 1000, 1000L, null))
+                .isInstanceOf(InvalidUploadException.class);
+    }
+
+    private String initiate(long totalSize) {
+        UploadSessionDTO session = service.initiate("data.bin", "application/octet-stream", totalSize,
+                (long) PART_SIZE, "user-1");
+        assertThat(session.getPartCount()).isEqualTo((int) ((totalSize + PART_SIZE - 1) / PART_SIZE));
+        return session.getUploadId();
+    }
+
+    private UploadSessionDTO uploadPart(String uploadId, int partNumber, byte[] content) {
+        int from = (partNumber - 1) * PART_SIZE;
+        int to = Math.min(content.length, from + PART_SIZE);
+        byte[] part = Arrays.copyOfRange(content, from, to);
+        return service.uploadPart(uploadId, partNumber, new ByteArrayInputStream(part), part.length);
+    }
+
+    private ReadWriteLock rowLock(String uploadId) {
+        return rowLocks.computeIfAbsent(uploadId, key -> new ReentrantReadWriteLock());
+    }
+
+    private Set<Integer> partsOf(String uploadId) {
+        return parts.computeIfAbsent(uploadId, key -> new TreeSet<>());
+    }
+
+    private static byte[] randomContent(int length) {
+        byte[] content = new byte[length];
+        new Random(length).nextBytes(content);
+        return content;
+    }
+
+    private static String sha256(byte[] content) throws Exception {
+        return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+    }
+
+    /**
+     * Stands in for the database row locks: locks taken in a transaction are released when it ends.
+     */
+    private static final class RowLockingTransactionManager implements PlatformTransactionManager {
+
+        private final ThreadLocal<List<Lock>> held = ThreadLocal.withInitial(ArrayList::new);
+
+        void hold(Lock lock) {
+            lock.lock();
+            held.get().add(lock);
+        }
+
+        @Override
+        public TransactionStatus getTransaction(TransactionDefinition definition) {
+            return new SimpleTransactionStatus();
+        }
+
+        @Override
+        public void commit(TransactionStatus status) {
+            releaseAll();
+        }
+
+        @Override
+        public void rollback(TransactionStatus status) {
+            releaseAll();
+        }
+
+        private void releaseAll() {
+            held.get().forEach(Lock::unlock);
+            held.get().clear();
+        }
+    }
+
+    /**
+     * A part body that stalls after the first read until released, like a slow client.
+     */
+    private static final class BlockingInputStream extends InputStream {
+
+        private final ByteArrayInputStream content;
+        private final CountDownLatch started = new CountDownLatch(1);
+        private final CountDownLatch release = new CountDownLatch(1);
+
+        BlockingInputStream(byte[] content) {
+            this.content = new ByteArrayInputStream(content);
+        }
+
+        @Override
+        public int read() {
+            awaitRelease();
+            return content.read();
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) {
+            awaitRelease();
+            return content.read(buffer, offset, length);
+        }
+
+        private void awaitRelease() {
+            started.countDown();
+            try {
+                if (!release.await(10, TimeUnit.SECONDS)) {
+                    throw new IllegalStateException("Part body was never released");
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(ex);
+            }
+        }
+    }
+}